@@ -16,7 +16,11 @@ import net.pixlies.nations.integrations.NationsPlaceholderExpansion;
 import net.pixlies.nations.listeners.ListenerManager;
 import net.pixlies.nations.locale.NationsLang;
 import net.pixlies.nations.nations.NationManager;
+import net.pixlies.nations.nations.chunk.ClaimStore;
 import net.pixlies.nations.nations.interfaces.NationProfile;
+import net.pixlies.nations.nations.wealth.Ledger;
+import net.pixlies.nations.nations.wealth.Treasury;
+import net.pixlies.nations.nations.wealth.WealthLeaderboard;
 import net.pixlies.nations.packets.NationPacketManager;
 import net.pixlies.nations.runnables.RunnableManager;
 import net.pixlies.nations.scoreboard.ScoreboardAdapter;
@@ -40,6 +44,10 @@ public class Nations extends JavaPlugin implements Module {
     private NationManager nationManager;
     private MongoManager mongoManager;
     private RunnableManager runnableManager;
+    private WealthLeaderboard wealthLeaderboard;
+    private Ledger ledger;
+    private Treasury treasury;
+    private ClaimStore claimStore;
 
     private final Gson gson = new GsonBuilder()
             .serializeNulls()
@@ -68,6 +76,13 @@ public class Nations extends JavaPlugin implements Module {
         // HANDLERS & MANAGERS
         mongoManager = new MongoManager();
         mongoManager.init();
+        ledger = new Ledger();
+        ledger.recover();
+        treasury = new Treasury();
+        treasury.load();
+        claimStore = new ClaimStore();
+        wealthLeaderboard = new WealthLeaderboard();
+        wealthLeaderboard.seed();
         handlerManager = new HandlerManager();
         nationManager = new NationManager();
         runnableManager = new RunnableManager();
@@ -95,6 +110,11 @@ public class Nations extends JavaPlugin implements Module {
 
         // LOADING
         nationManager.refreshNations();
+        getServer().getScheduler().runTaskTimerAsynchronously(this, ledger::flush, 20, 20);
+        long treasuryPeriod = config.getLong("treasury.flushPeriod", 100);
+        getServer().getScheduler().runTaskTimerAsynchronously(this, treasury::flush, treasuryPeriod, treasuryPeriod);
+        long claimsPeriod = config.getLong("claims.flushPeriod", 40);
+        getServer().getScheduler().runTaskTimerAsynchronously(this, claimStore::flush, claimsPeriod, claimsPeriod);
 
     }
 
@@ -103,6 +123,9 @@ public class Nations extends JavaPlugin implements Module {
 
         // COMMANDS & LISTENERS
         nationManager.backupAll();
+        ledger.flush();
+        treasury.flush();
+        claimStore.flush();
         listenerManager.unregisterAllListeners();
         packetManager.unregisterAll();
         commandManager.unregisterAllCommands();
@@ -5,16 +5,20 @@ import co.aikar.commands.annotation.CommandAlias;
 import co.aikar.commands.annotation.Description;
 import co.aikar.commands.annotation.Optional;
 import co.aikar.commands.annotation.Subcommand;
+import co.aikar.commands.annotation.Syntax;
+import net.pixlies.core.economy.Money;
 import net.pixlies.core.entity.user.User;
 import net.pixlies.nations.commands.CommandManager;
 import net.pixlies.nations.locale.NationsLang;
 import net.pixlies.nations.nations.Nation;
+import net.pixlies.nations.nations.chunk.AreaClaim;
 import net.pixlies.nations.nations.chunk.NationChunk;
 import net.pixlies.nations.nations.chunk.NationChunkType;
 import net.pixlies.nations.nations.interfaces.NationProfile;
 import net.pixlies.nations.nations.ranks.NationPermission;
 import net.pixlies.nations.utils.NationTextUtils;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 
@@ -68,7 +72,6 @@ public class NationClaimCommand extends BaseCommand {
                     player.getChunk().getZ()
             );
             chunk.claim(true);
-            nation.save();
 
             NationsLang.NATION_CLAIM_MESSAGE.send(player,
                     "%LOCATION%;" + NationTextUtils.getChunkLocationFormatted(chunk.getX(), chunk.getZ()),
@@ -113,7 +116,6 @@ public class NationClaimCommand extends BaseCommand {
                 new ArrayList<>()
         );
         chunk.claim(true);
-        nation.save();
 
         NationsLang.NATION_CLAIM_MESSAGE.send(player,
                 "%LOCATION%;" + NationTextUtils.getChunkLocationFormatted(chunk.getX(), chunk.getZ()),
@@ -191,4 +193,124 @@ public class NationClaimCommand extends BaseCommand {
         NationsLang.NATION_CLAIM_AUTO_ENABLED.send(player);
     }
 
+    // -------------------------------------------------------------------------------------------------
+    //                                        /n claim square
+    // -------------------------------------------------------------------------------------------------
+    @Subcommand("square")
+    @Description("Claim a square of chunks around you")
+    @Syntax("<radius> [nation]")
+    public void onClaimSquare(Player player, int radius, @Optional String nationName) {
+        Nation nation = getClaimingNation(player, nationName);
+        if (nation == null) return;
+
+        AreaClaim area = AreaClaim.square(nation, player.getWorld().getName(), player.getChunk().getX(), player.getChunk().getZ(), Math.max(0, radius));
+        claimArea(player, nation, area);
+    }
+
+    // -------------------------------------------------------------------------------------------------
+    //                                        /n claim circle
+    // -------------------------------------------------------------------------------------------------
+    @Subcommand("circle")
+    @Description("Claim a circle of chunks around you")
+    @Syntax("<radius> [nation]")
+    public void onClaimCircle(Player player, int radius, @Optional String nationName) {
+        Nation nation = getClaimingNation(player, nationName);
+        if (nation == null) return;
+
+        AreaClaim area = AreaClaim.circle(nation, player.getWorld().getName(), player.getChunk().getX(), player.getChunk().getZ(), Math.max(0, radius));
+        claimArea(player, nation, area);
+    }
+
+    // -------------------------------------------------------------------------------------------------
+    //                                         /n claim line
+    // -------------------------------------------------------------------------------------------------
+    @Subcommand("line")
+    @Description("Claim a line of chunks in front of you")
+    @Syntax("<length> [nation]")
+    public void onClaimLine(Player player, int length, @Optional String nationName) {
+        Nation nation = getClaimingNation(player, nationName);
+        if (nation == null) return;
+
+        AreaClaim area = AreaClaim.line(nation, player.getWorld().getName(), player.getChunk().getX(), player.getChunk().getZ(), player.getFacing(), Math.max(0, length));
+        claimArea(player, nation, area);
+    }
+
+    // -------------------------------------------------------------------------------------------------
+    //                                         /n claim fill
+    // -------------------------------------------------------------------------------------------------
+    @Subcommand("fill")
+    @Description("Claim the unclaimed area enclosed by your claims")
+    @Syntax("[nation]")
+    public void onClaimFill(Player player, @Optional String nationName) {
+        Nation nation = getClaimingNation(player, nationName);
+        if (nation == null) return;
+
+        AreaClaim area = AreaClaim.fill(nation, player.getWorld().getName(), player.getChunk().getX(), player.getChunk().getZ());
+        claimArea(player, nation, area);
+    }
+
+    /**
+     * @return the nation of the player, or the nation a staff member claims for, or null if they cannot claim
+     */
+    private static @Nullable Nation getClaimingNation(Player player, @Nullable String nationName) {
+        User user = User.get(player.getUniqueId());
+        NationProfile profile = NationProfile.get(player.getUniqueId());
+
+        boolean staffCondition = user.isBypassing() && player.hasPermission("nations.staff.forceclaim");
+        boolean playerCondition = NationPermission.CLAIM.hasPermission(player);
+
+        // :: /nation claim <area>
+        if (nationName == null || nationName.isEmpty()) {
+            Nation nation = profile.getNation();
+            if (nation == null) {
+                NationsLang.NOT_IN_NATION.send(player);
+                return null;
+            }
+
+            if (!(staffCondition || playerCondition)) {
+                NationsLang.NATION_NO_PERMISSION.send(player);
+                return null;
+            }
+
+            return nation;
+        }
+
+        // :: /nation claim <area> <NATION>
+        if (!staffCondition) {
+            NationsLang.NATION_NO_PERMISSION.send(player);
+            return null;
+        }
+
+        Nation nation = Nation.getFromName(nationName);
+        if (nation == null) {
+            NationsLang.NATION_DOES_NOT_EXIST.send(player);
+            return null;
+        }
+        return nation;
+    }
+
+    private static void claimArea(Player player, Nation nation, AreaClaim area) {
+        User user = User.get(player.getUniqueId());
+        boolean free = user.isBypassing() && player.hasPermission("nations.staff.forceclaim");
+
+        AreaClaim.Result result = area.claim(player, free);
+        if (result.getMessage() != null) {
+            result.getMessage().send(player,
+                    "%AMOUNT%;" + area.getChunks().size(),
+                    "%NATION%;" + nation.getName(),
+                    "%PRICE%;" + Money.format(area.getPrice()),
+                    "%MAX%;" + AreaClaim.getMaxArea()
+            );
+        }
+        if (result != AreaClaim.Result.CLAIMED) return;
+
+        nation.getOnlineMembersAsPlayer().forEach((p) -> {
+            if (player.equals(p)) return;
+            NationsLang.NATION_CLAIM_AREA_ANNOUNCE.send(p,
+                    "%PLAYER%;" + player.getName(),
+                    "%AMOUNT%;" + area.getChunks().size()
+            );
+        });
+    }
+
 }
@@ -8,6 +8,7 @@ import net.kyori.adventure.text.event.HoverEvent;
 import net.pixlies.nations.Nations;
 import net.pixlies.nations.locale.NationsLang;
 import net.pixlies.nations.nations.Nation;
+import net.pixlies.nations.nations.chunk.ClaimIndex;
 import net.pixlies.nations.nations.chunk.NationChunk;
 import net.pixlies.nations.nations.interfaces.NationProfile;
 import net.pixlies.nations.nations.relations.Relation;
@@ -47,6 +48,13 @@ public class NationMapCommand extends BaseCommand {
         final int playerChunkZ = player.getLocation().getChunk().getZ();
         final World world = player.getWorld();
 
+        // Every claim of the map, fetched at once: rows from north to south, columns from west to east
+        final int size = width * 2 + 1;
+        NationChunk[] area = new NationChunk[size * (height * 2 + 1)];
+        ClaimIndex claims = instance.getNationManager().getNationClaims().get(world.getName());
+        if (claims != null)
+            claims.fillArea(playerChunkX - width, playerChunkZ - height, size, height * 2 + 1, area);
+
         // for each row
         for (int row = height; row >= -height; row--) {
             TextComponent.Builder comp = Component.text();
@@ -57,7 +65,7 @@ public class NationMapCommand extends BaseCommand {
                 final int chunkZ = playerChunkZ - row;
                 boolean playerChunk = chunkX == playerChunkX && chunkZ == playerChunkZ;
 
-                NationChunk nChunk = NationChunk.getClaimAt(world.getName(), chunkX, chunkZ);
+                NationChunk nChunk = area[(chunkZ - playerChunkZ + height) * size + chunkX - playerChunkX + width];
                 if (nChunk == null) {
                     TextComponent cComp = Component.text()
                             .content(playerChunk ? "§7█" : "§2█")
@@ -7,16 +7,21 @@ import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.*;
 import lombok.Getter;
+import net.pixlies.core.economy.Money;
 import net.pixlies.core.modules.configuration.ModuleConfig;
 import net.pixlies.nations.Nations;
+import net.pixlies.nations.nations.chunk.ClaimStore;
 import net.pixlies.nations.nations.interfaces.NationProfile;
+import org.bson.BsonType;
 import org.bson.Document;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -29,9 +34,13 @@ public class MongoManager {
     private MongoDatabase database;
     private MongoCollection<Document> nationsCollection;
     private MongoCollection<Document> nationProfileCollection;
+    private MongoCollection<Document> ledgerCollection;
+    private MongoCollection<Document> revenueCollection;
+    private MongoCollection<Document> claimsCollection;
     private MongoClient client;
 
-    private final Map<UUID, NationProfile> profileCache = new HashMap<>();
+    // Also read by the ProtoBusiness matching threads and the async login listener
+    private final Map<UUID, NationProfile> profileCache = new ConcurrentHashMap<>();
 
     public void init() {
 
@@ -55,11 +64,36 @@ public class MongoManager {
         database = client.getDatabase(conf("mongo.database", "database"));
         nationsCollection = database.getCollection(conf("mongo.nationsCollection", "nations"));
         nationProfileCollection = database.getCollection(conf("mongo.nationProfileCollection", "nationProfiles"));
+        ledgerCollection = database.getCollection(conf("mongo.ledgerCollection", "ledger"));
+        revenueCollection = database.getCollection(conf("mongo.revenueCollection", "nationRevenue"));
+        claimsCollection = database.getCollection(conf("mongo.claimsCollection", "nationClaims"));
+
+        migrateMoney(nationProfileCollection, "balance");
+        migrateMoney(nationsCollection, "money");
+        ClaimStore.migrate(nationsCollection, claimsCollection);
 
         instance.getLogger().info("Initialized MongoDB database.");
 
     }
 
+    /**
+     * Amounts of money used to be stored as coins in doubles, they are now micro-coins in longs.
+     * Converts the old ones, so that the database can keep sorting by them.
+     */
+    private static void migrateMoney(MongoCollection<Document> collection, String field) {
+        List<WriteModel<Document>> writes = new ArrayList<>();
+        for (Document document : collection.find(Filters.type(field, BsonType.DOUBLE))) {
+            writes.add(new UpdateOneModel<>(
+                    Filters.eq("_id", document.get("_id")),
+                    Updates.set(field, Money.read(document.get(field)))
+            ));
+        }
+        if (writes.isEmpty()) return;
+
+        collection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        instance.getLogger().info("Converted " + writes.size() + " amounts of " + field + " to micro-coins.");
+    }
+
     private static String conf(String what, String def) {
         return instance.getConfig().getString(what, def);
     }
@@ -0,0 +1,46 @@
+package net.pixlies.nations.events.impl;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import net.pixlies.nations.nations.Nation;
+import net.pixlies.nations.nations.chunk.NationChunk;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Called once before an area of chunks is claimed, with every chunk of the area.
+ */
+@RequiredArgsConstructor
+@ToString
+public class NationClaimEvent extends Event implements Cancellable {
+
+    private static final HandlerList handlers = new HandlerList();
+
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+
+    @Override
+    public @NotNull HandlerList getHandlers() {
+        return handlers;
+    }
+
+    @Getter @Setter private boolean cancelled = false;
+
+    @Getter @NotNull private final Player player;
+    @Getter @NotNull private final Nation nation;
+
+    // Not claimed yet
+    @Getter @NotNull private final List<NationChunk> chunks;
+
+    // In micro-coins, see Money
+    @Getter private final long price;
+
+}
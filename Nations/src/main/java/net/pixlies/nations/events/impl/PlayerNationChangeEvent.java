@@ -0,0 +1,42 @@
+package net.pixlies.nations.events.impl;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * Called after a player joined or left a nation, also while they are offline.
+ * Called asynchronously when the change is made off the main thread, like when a nation is disbanded.
+ */
+@ToString
+public class PlayerNationChangeEvent extends Event {
+
+    private static final HandlerList handlers = new HandlerList();
+
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+
+    @Override
+    public @NotNull HandlerList getHandlers() {
+        return handlers;
+    }
+
+    @Getter @NotNull private final UUID uuid;
+
+    // Null if the player left their nation
+    @Getter @Nullable private final String nationId;
+
+    public PlayerNationChangeEvent(@NotNull UUID uuid, @Nullable String nationId) {
+        super(!Bukkit.isPrimaryThread());
+        this.uuid = uuid;
+        this.nationId = nationId;
+    }
+
+}
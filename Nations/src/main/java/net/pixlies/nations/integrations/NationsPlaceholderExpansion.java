@@ -1,11 +1,13 @@
 package net.pixlies.nations.integrations;
 
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
+import net.pixlies.core.economy.Money;
 import net.pixlies.core.utils.CC;
 import net.pixlies.nations.Nations;
 import net.pixlies.nations.nations.Nation;
 import net.pixlies.nations.nations.interfaces.NationProfile;
 import net.pixlies.nations.nations.ranks.NationRank;
+import net.pixlies.nations.nations.wealth.Treasury;
 import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
 
@@ -43,6 +45,20 @@ public class NationsPlaceholderExpansion extends PlaceholderExpansion {
 
             return rank.getPrefix() + CC.format("&7&l") + nation.getName() + " "; // TODO: ALLY, NORMAL WHATEVER THING
         }
+
+        // Tax and tariff revenue of the nation over the last day, week or month
+        int days = switch (params.toLowerCase()) {
+            case "revenue_today" -> 1;
+            case "revenue_week" -> 7;
+            case "revenue_month" -> Treasury.HISTORY_DAYS;
+            default -> 0;
+        };
+        if (days > 0) {
+            if (!player.isOnline()) return "";
+            Nation nation = NationProfile.get(player.getUniqueId()).getNation();
+            if (nation == null) return "";
+            return Money.format(Nations.getInstance().getTreasury().getRevenue(nation.getNationId(), days).total());
+        }
         return null;
     }
 
@@ -2,6 +2,7 @@ package net.pixlies.nations.listeners;
 
 import com.google.common.collect.ImmutableList;
 import net.pixlies.nations.Nations;
+import net.pixlies.nations.listeners.impl.ClaimProtectionListener;
 import net.pixlies.nations.listeners.impl.NationProfileListener;
 import net.pixlies.nations.listeners.impl.NationsChatListener;
 import net.pixlies.nations.listeners.impl.PlayerTerritoryListener;
@@ -17,7 +18,8 @@ public class ListenerManager {
             new NationProfileListener(),
             new PlayerTerritoryListener(),
             new TerritoryChangeListener(),
-            new NationsChatListener()
+            new NationsChatListener(),
+            new ClaimProtectionListener()
     );
 
     public void registerAllListeners() {
@@ -0,0 +1,151 @@
+package net.pixlies.nations.listeners.impl;
+
+import net.pixlies.nations.Nations;
+import net.pixlies.nations.locale.NationsLang;
+import net.pixlies.nations.nations.Nation;
+import net.pixlies.nations.nations.chunk.ClaimProtection;
+import net.pixlies.nations.nations.chunk.NationChunk;
+import net.pixlies.nations.nations.ranks.NationPermission;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.*;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerBucketEmptyEvent;
+import org.bukkit.event.player.PlayerBucketFillEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Objects;
+
+public class ClaimProtectionListener implements Listener {
+
+    private static final Nations instance = Nations.getInstance();
+
+    @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
+    public void onBreak(BlockBreakEvent event) {
+        protect(event.getPlayer(), event.getBlock(), NationPermission.BUILD, event, true);
+    }
+
+    @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
+    public void onPlace(BlockPlaceEvent event) {
+        protect(event.getPlayer(), event.getBlock(), NationPermission.BUILD, event, true);
+    }
+
+    @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
+    public void onBucketEmpty(PlayerBucketEmptyEvent event) {
+        protect(event.getPlayer(), event.getBlock(), NationPermission.BUILD, event, true);
+    }
+
+    @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
+    public void onBucketFill(PlayerBucketFillEvent event) {
+        protect(event.getPlayer(), event.getBlock(), NationPermission.BUILD, event, true);
+    }
+
+    @EventHandler(priority = EventPriority.LOW)
+    public void onInteract(PlayerInteractEvent event) {
+        Block block = event.getClickedBlock();
+        if (block == null) return;
+
+        switch (event.getAction()) {
+            case RIGHT_CLICK_BLOCK -> protect(event.getPlayer(), block, NationPermission.INTERACT, event, true);
+            // Pressure plates and farmland, stepped on all the time, so without a message
+            case PHYSICAL -> protect(event.getPlayer(), block, NationPermission.INTERACT, event, false);
+            default -> {}
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        protectFromExplosion(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        protectFromExplosion(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        if (crossesClaims(event.getBlock(), event.getBlocks(), event.getDirection()))
+            event.setCancelled(true);
+    }
+
+    @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        if (crossesClaims(event.getBlock(), event.getBlocks(), event.getDirection()))
+            event.setCancelled(true);
+    }
+
+    @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
+    public void onFlow(BlockFromToEvent event) {
+        Block from = event.getBlock();
+        Block to = event.getToBlock();
+        // Liquids mostly flow within a chunk
+        if (from.getX() >> 4 == to.getX() >> 4 && from.getZ() >> 4 == to.getZ() >> 4) return;
+
+        String owner = getOwnerId(to);
+        if (owner != null && !owner.equals(getOwnerId(from)))
+            event.setCancelled(true);
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static void protect(Player player, Block block, NationPermission permission, Cancellable event, boolean message) {
+        NationChunk claim = getClaim(block);
+        if (ClaimProtection.canAct(player, claim, permission)) return;
+
+        event.setCancelled(true);
+        if (!message) return;
+
+        Nation nation = claim.getNation();
+        NationsLang.NATION_CLAIM_PROTECTED.send(player, "%NATION%;" + (nation == null ? claim.getNationId() : nation.getName()));
+    }
+
+    private static void protectFromExplosion(List<Block> blocks) {
+        if (instance.getConfig().getBoolean("protection.explosions", false)) return;
+
+        // Blocks of an explosion are mostly in the same few chunks
+        int lastX = Integer.MIN_VALUE;
+        int lastZ = Integer.MIN_VALUE;
+        boolean lastClaimed = false;
+        for (int i = blocks.size() - 1; i >= 0; i--) {
+            Block block = blocks.get(i);
+            int chunkX = block.getX() >> 4;
+            int chunkZ = block.getZ() >> 4;
+            if (chunkX != lastX || chunkZ != lastZ) {
+                lastX = chunkX;
+                lastZ = chunkZ;
+                lastClaimed = NationChunk.getClaimAt(block.getWorld().getName(), chunkX, chunkZ) != null;
+            }
+            if (lastClaimed) blocks.remove(i);
+        }
+    }
+
+    /**
+     * @return true if a piston would move blocks into, out of or within a claim of another nation than its own
+     */
+    private static boolean crossesClaims(Block piston, List<Block> blocks, BlockFace direction) {
+        String owner = getOwnerId(piston);
+        for (Block block : blocks) {
+            if (!Objects.equals(owner, getOwnerId(block)) || !Objects.equals(owner, getOwnerId(block.getRelative(direction))))
+                return true;
+        }
+        return false;
+    }
+
+    private static @Nullable NationChunk getClaim(Block block) {
+        return NationChunk.getClaimAt(block.getWorld().getName(), block.getX() >> 4, block.getZ() >> 4);
+    }
+
+    private static @Nullable String getOwnerId(Block block) {
+        NationChunk claim = getClaim(block);
+        return claim == null ? null : claim.getNationId();
+    }
+
+}
@@ -1,79 +1,123 @@
 package net.pixlies.nations.listeners.impl;
 
 import net.pixlies.core.utils.EventUtils;
+import net.pixlies.nations.Nations;
 import net.pixlies.nations.commands.CommandManager;
 import net.pixlies.nations.events.impl.PlayerTerritoryChangeEvent;
 import net.pixlies.nations.nations.Nation;
+import net.pixlies.nations.nations.chunk.ClaimProtection;
 import net.pixlies.nations.nations.chunk.NationChunk;
+import net.pixlies.nations.nations.chunk.TerritoryTracker;
 import net.pixlies.nations.nations.interfaces.NationProfile;
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
-import org.bukkit.event.entity.PlayerDeathEvent;
-import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerRespawnEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
 
-import java.util.Objects;
-
 public class PlayerTerritoryListener implements Listener {
 
-    @EventHandler
-    public void onPlayerMove(PlayerMoveEvent event) {
-        Player player = event.getPlayer();
-
-        NationProfile profile = NationProfile.get(player.getUniqueId());
+    private static final Nations instance = Nations.getInstance();
 
-        NationChunk from = NationChunk.getClaimFromChunk(event.getFrom().getChunk());
-        NationChunk to = NationChunk.getClaimFromChunk(event.getTo().getChunk());
+    @EventHandler(ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        // Most moves stay in the same chunk, or are only head rotations
+        if (TerritoryTracker.isSameChunk(event.getFrom(), event.getTo())) return;
 
-        if (from == null) from = new NationChunk("wilderness", event.getFrom().getWorld().getName(), event.getFrom().getChunk().getX(), event.getFrom().getChunk().getZ());
-        if (to == null) to = new NationChunk("wilderness", event.getTo().getWorld().getName(), event.getTo().getChunk().getX(), event.getTo().getChunk().getZ());
-        if (to.getNationId().equals("wilderness") && CommandManager.autoClaimPlayers.containsKey(player.getUniqueId())) {
-            System.out.println("Minecraft");
-            profile.attemptClaim(player, Nation.getFromId(CommandManager.autoClaimPlayers.get(player.getUniqueId())));
+        Player player = event.getPlayer();
+        Location to = event.getTo();
+        TerritoryTracker tracker = TerritoryTracker.get(player);
+        NationChunk territory = TerritoryTracker.getTerritoryAt(to);
+
+        if (territory == NationChunk.WILDERNESS && CommandManager.autoClaimPlayers.containsKey(player.getUniqueId())) {
+            tracker.moveTo(to, territory);
+            // Claimed once the player stands in the chunk
+            instance.getServer().getScheduler().runTask(instance, () -> autoClaim(player));
             return;
         }
-        if (Objects.equals(from, to)) return;
-        if (from.getNationId().equals(to.getNationId())) return;
 
-        PlayerTerritoryChangeEvent playerTerritoryChangeEvent = new PlayerTerritoryChangeEvent(player, from, to);
-        EventUtils.call(playerTerritoryChangeEvent);
+        if (TerritoryTracker.isSameOwner(tracker.getTerritory(), territory)) {
+            tracker.moveTo(to, territory);
+            return;
+        }
 
-        event.setCancelled(playerTerritoryChangeEvent.isCancelled());
+        if (changeTerritory(player, tracker.getTerritory(), territory)) {
+            event.setCancelled(true);
+            return;
+        }
+        tracker.moveTo(to, territory);
     }
 
-    @EventHandler
+    @EventHandler(ignoreCancelled = true)
     public void onPlayerTeleport(PlayerTeleportEvent event) {
         Player player = event.getPlayer();
+        Location to = event.getTo();
+        TerritoryTracker tracker = TerritoryTracker.get(player);
+        if (tracker.isIn(to)) return;
 
-        NationChunk from = NationChunk.getClaimFromChunk(event.getFrom().getChunk());
-        NationChunk to = NationChunk.getClaimFromChunk(event.getTo().getChunk());
-
-        if (Objects.equals(from, to)) return;
-
-        if (from == null) from = new NationChunk("wilderness", event.getFrom().getWorld().getName(), event.getFrom().getChunk().getX(), event.getFrom().getChunk().getZ());
-        if (to == null) to = new NationChunk("wilderness", event.getTo().getWorld().getName(), event.getTo().getChunk().getX(), event.getTo().getChunk().getZ());
-        if (from.getNationId().equals(to.getNationId())) return;
-
-        PlayerTerritoryChangeEvent playerTerritoryChangeEvent = new PlayerTerritoryChangeEvent(player, from, to);
-        EventUtils.call(playerTerritoryChangeEvent);
+        NationChunk territory = TerritoryTracker.getTerritoryAt(to);
+        if (TerritoryTracker.isSameOwner(tracker.getTerritory(), territory)) {
+            tracker.moveTo(to, territory);
+            return;
+        }
 
-        event.setCancelled(playerTerritoryChangeEvent.isCancelled());
+        if (changeTerritory(player, tracker.getTerritory(), territory)) {
+            event.setCancelled(true);
+            return;
+        }
+        tracker.moveTo(to, territory);
     }
 
     @EventHandler(priority = EventPriority.LOWEST)
     public void onDeath(PlayerRespawnEvent event) {
         Player player = event.getPlayer();
+        Location to = event.getRespawnLocation();
+
+        NationChunk territory = TerritoryTracker.getTerritoryAt(to);
+        TerritoryTracker.get(player).moveTo(to, territory);
 
-        NationChunk to = NationChunk.getClaimFromChunk(event.getRespawnLocation().getChunk());
+        PlayerTerritoryChangeEvent playerTerritoryChangeEvent = new PlayerTerritoryChangeEvent(player, null, territory);
+        EventUtils.call(playerTerritoryChangeEvent);
+    }
 
-        if (to == null) to = new NationChunk("wilderness", event.getRespawnLocation().getWorld().getName(), event.getRespawnLocation().getChunk().getX(), event.getRespawnLocation().getChunk().getZ());
+    @EventHandler
+    public void onJoin(PlayerJoinEvent event) {
+        // Starts tracking the player where they joined
+        TerritoryTracker.get(event.getPlayer());
+    }
 
-        PlayerTerritoryChangeEvent playerTerritoryChangeEvent = new PlayerTerritoryChangeEvent(player, null, to);
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        TerritoryTracker.remove(event.getPlayer().getUniqueId());
+        ClaimProtection.invalidate(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * @return true if the change was cancelled
+     */
+    private static boolean changeTerritory(Player player, NationChunk from, NationChunk to) {
+        PlayerTerritoryChangeEvent playerTerritoryChangeEvent = new PlayerTerritoryChangeEvent(player, from, to);
         EventUtils.call(playerTerritoryChangeEvent);
+        return playerTerritoryChangeEvent.isCancelled();
+    }
+
+    private static void autoClaim(Player player) {
+        if (!player.isOnline()) return;
+        String nationId = CommandManager.autoClaimPlayers.get(player.getUniqueId());
+        if (nationId == null) return;
+
+        Nation nation = Nation.getFromId(nationId);
+        if (nation == null) return;
+
+        NationProfile profile = NationProfile.get(player.getUniqueId());
+        if (profile.attemptClaim(player, nation)) {
+            TerritoryTracker.get(player).moveTo(player.getLocation());
+        }
     }
 
 }
@@ -62,6 +62,14 @@ public enum NationsLang {
     NATION_CLAIM_ALREADY_CLAIMED(NationsLang.NATION),
     NATION_CLAIM_AUTO_ENABLED(NationsLang.NATION),
     NATION_CLAIM_AUTO_DISABLED(NationsLang.NATION),
+    NATION_CLAIM_PROTECTED(NationsLang.NATION),
+    NATION_CLAIM_AREA(NationsLang.NATION),
+    NATION_CLAIM_AREA_ANNOUNCE(NationsLang.NATION),
+    NATION_CLAIM_AREA_NOTHING(NationsLang.NATION),
+    NATION_CLAIM_AREA_TOO_LARGE(NationsLang.NATION),
+    NATION_CLAIM_AREA_NOT_ENCLOSED(NationsLang.NATION),
+    NATION_CLAIM_AREA_NOT_ENOUGH_POWER(NationsLang.NATION),
+    NATION_CLAIM_AREA_NOT_ENOUGH_MONEY(NationsLang.NATION),
 
     NATION_SAME_CHAT_FORMAT(NationsLang.NATION),
     NATION_ALLY_CHAT_FORMAT(NationsLang.ALLY),
@@ -1,13 +1,18 @@
 package net.pixlies.nations.nations;
 
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
 import lombok.*;
+import net.pixlies.core.economy.Money;
 import net.pixlies.core.utils.EventUtils;
 import net.pixlies.core.utils.RankUtils;
 import net.pixlies.nations.Nations;
 import net.pixlies.nations.events.impl.NationDisbandEvent;
 import net.pixlies.nations.locale.NationsLang;
+import net.pixlies.nations.nations.chunk.ClaimProtection;
 import net.pixlies.nations.nations.chunk.NationChunk;
+import net.pixlies.nations.nations.chunk.TerritoryTracker;
 import net.pixlies.nations.nations.customization.GovernmentType;
 import net.pixlies.nations.nations.customization.Ideology;
 import net.pixlies.nations.nations.customization.NationConstitution;
@@ -50,14 +55,15 @@ public class Nation {
     private @Getter String name;
     private @Getter @Setter String description = NationUtils.randomDescription();
     private @Setter String motd = "";
-    private @Getter @Setter UUID leaderUUID;
+    private @Getter UUID leaderUUID;
     private @Getter @Setter long created = System.currentTimeMillis();
     private final @Getter boolean systemNation;
     private @Getter boolean loaded = false;
 
     // DATA
     private @Getter @Setter double politicalPower = 0.0d;
-    private @Getter @Setter double balance = 0.0d;
+    // In micro-coins, see Money
+    private @Getter long balance = Money.ZERO;
 
     /**
      * Tax rate for buy orders.
@@ -109,7 +115,7 @@ public class Nation {
                   long created,
                   boolean systemNation,
                   double politicalPower,
-                  double balance,
+                  long balance,
                   double taxRate,
                   GovernmentType governmentType,
                   Ideology ideology,
@@ -305,7 +311,11 @@ public class Nation {
             ally.save();
         });
 
-        claims.parallelStream().forEach(NationChunk::unloadClaim);
+        for (NationChunk claim : claims) {
+            claim.unloadClaim();
+            instance.getClaimStore().delete(claim);
+            TerritoryTracker.refresh(claim.getWorld(), claim.getX(), claim.getZ());
+        }
 
         this.delete();
 
@@ -347,6 +357,12 @@ public class Nation {
         this.rename(null, newName);
     }
 
+    public void setLeaderUUID(UUID leaderUUID) {
+        this.leaderUUID = leaderUUID;
+        // The old and new leaders have other permissions in the claims
+        ClaimProtection.invalidateAll();
+    }
+
     /**
      * Broadcasts a message to all Nation members with a permission
      * @param message The message to broadcast
@@ -369,16 +385,12 @@ public class Nation {
 
     public void delete() {
         this.removeCache();
+        instance.getTreasury().remove(nationId);
+        ClaimProtection.invalidateAll();
         instance.getServer().getScheduler().runTaskAsynchronously(instance, () ->
                 instance.getMongoManager().getNationsCollection().deleteOne(Filters.eq("nationId", nationId)));
     }
 
-    public void loadClaims() {
-        for (NationChunk claim : claims) {
-            claim.loadClaim();
-        }
-    }
-
     public Collection<Nation> getAlliedNations() {
         List<Nation> nations = new ArrayList<>();
         for (String alliedNationId : alliedNationIds) {
@@ -395,6 +407,8 @@ public class Nation {
 
         // THEIR NATION
         toAlly.alliedNationIds.add(this.nationId);
+
+        ClaimProtection.invalidateAll();
     }
 
     public void removeAlly(@NotNull Nation wasAlly) {
@@ -403,6 +417,8 @@ public class Nation {
 
         // THEIR NATION
         wasAlly.alliedNationIds.remove(this.nationId);
+
+        ClaimProtection.invalidateAll();
     }
 
     public Relation getRelationTo(@NotNull Nation toMatch) {
@@ -445,8 +461,6 @@ public class Nation {
 
         document.put("members", members.stream().map(UUID::toString).toList());
 
-        document.put("claims", claims.stream().map(NationChunk::toDocument).toList());
-
         document.put("alliedNationIds", alliedNationIds);
 
         return document;
@@ -462,7 +476,7 @@ public class Nation {
         // systemNation OK
 
         politicalPower = document.get("politicalPower", politicalPower);
-        balance = document.get("money", balance);
+        setBalance(Money.read(document.get("money")));
 
         taxRate = document.get("taxRate", taxRate);
 
@@ -493,11 +507,6 @@ public class Nation {
                     .map(UUID::fromString).collect(Collectors.toList());
         } catch (ClassCastException ignored) {}
 
-        try {
-            claims = document.get("claims", new ArrayList<Document>()).stream()
-                    .map(NationChunk::new).collect(Collectors.toList());
-        } catch (ClassCastException ignored) {}
-
         try {
             alliedNationIds = document.get("alliedNationIds", new ArrayList<>());
         } catch (ClassCastException ignored) {}
@@ -511,23 +520,46 @@ public class Nation {
     }
 
     /**
-     * Not async
+     * Not async.
+     * The money is only written when the nation is created, the Treasury adds to it afterwards.
+     * Claims are written by the ClaimStore.
      */
     public void backup() {
-        if (instance.getMongoManager().getNationsCollection().find(Filters.eq("nationId", nationId)).first() == null) {
-            instance.getMongoManager().getNationsCollection().insertOne(this.toDocument());
+        Document document = this.toDocument();
+        document.remove("money");
+        instance.getMongoManager().getNationsCollection().updateOne(
+                Filters.eq("nationId", nationId),
+                Updates.combine(new Document("$set", document), Updates.setOnInsert("money", balance)),
+                new UpdateOptions().upsert(true)
+        );
+    }
+
+    /**
+     * Changes the balance in memory only, for money which was already written to the database.
+     */
+    public void changeBalance(long amount) {
+        setBalance(Money.add(balance, amount));
+    }
+
+    public void setBalance(long balance) {
+        this.balance = balance;
+        if (instance.getNationManager().getNations().containsKey(nationId) && !systemNation) {
+            instance.getWealthLeaderboard().getNations().update(nationId, balance);
         }
-        instance.getMongoManager().getNationsCollection().replaceOne(Filters.eq("nationId", nationId), this.toDocument());
     }
 
     public void cache() {
         instance.getNationManager().getNations().put(nationId, this);
         instance.getNationManager().getNationNames().put(name, nationId);
+        if (!systemNation) {
+            instance.getWealthLeaderboard().getNations().update(nationId, balance);
+        }
     }
 
     public void removeCache() {
         instance.getNationManager().getNations().remove(nationId);
         instance.getNationManager().getNationNames().remove(name);
+        instance.getWealthLeaderboard().getNations().remove(nationId);
     }
 
 
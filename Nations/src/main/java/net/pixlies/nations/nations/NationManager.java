@@ -1,10 +1,9 @@
 package net.pixlies.nations.nations;
 
-import com.google.common.collect.Table;
 import lombok.Getter;
 import net.pixlies.core.utils.PlayerUtils;
 import net.pixlies.nations.Nations;
-import net.pixlies.nations.nations.chunk.NationChunk;
+import net.pixlies.nations.nations.chunk.ClaimIndex;
 import org.bson.Document;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
@@ -20,7 +19,7 @@ public class NationManager {
     private final @Getter Map<String, Nation> nations = new HashMap<>(); // ID, Nation
     private final @Getter Map<String, String> nationNames = new HashMap<>();
 
-    private final @Getter Map<String, Table<Integer, Integer, NationChunk>> nationClaims = new HashMap<>();
+    private final @Getter Map<String, ClaimIndex> nationClaims = new HashMap<>();
 
     public void backupAll() {
         for (Nation nation : nations.values()) {
@@ -53,13 +52,14 @@ public class NationManager {
                 );
                 nation.loadFromDocument(document);
                 nation.cache();
-                nation.loadClaims();
             } catch (Exception e) {
                 e.printStackTrace();
                 instance.getLogger().warning("Failed to load a nation.");
             }
         }
 
+        instance.getClaimStore().loadAll();
+
         Nation warzone = Nation.getFromId("warzone");
         if (warzone == null) {
             warzone = new Nation("warzone", "Warzone", PlayerUtils.getConsoleUUID(), true);
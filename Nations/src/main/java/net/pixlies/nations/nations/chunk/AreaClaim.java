@@ -0,0 +1,189 @@
+package net.pixlies.nations.nations.chunk;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.pixlies.core.economy.Money;
+import net.pixlies.core.utils.EventUtils;
+import net.pixlies.nations.Nations;
+import net.pixlies.nations.events.impl.NationClaimEvent;
+import net.pixlies.nations.locale.NationsLang;
+import net.pixlies.nations.nations.Nation;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Chunks claimed at once for a nation: a square, a circle, a line, or an area enclosed by the claims of the nation.
+ * The chunks of the area are found and checked against the claim index, the political power and the balance of the
+ * nation in one pass, then all claimed together, with one event and one batch of writes.
+ * Only used on the main thread.
+ *
+ * @author vyketype
+ */
+public class AreaClaim {
+
+    private static final Nations instance = Nations.getInstance();
+
+    private final Nation nation;
+    private final String world;
+
+    // Chunks of the area which are not claimed yet
+    private final @Getter List<NationChunk> chunks = new ArrayList<>();
+
+    // In micro-coins, see Money
+    private @Getter long price = Money.ZERO;
+
+    // Set when the area cannot be claimed whatever the nation has
+    private @Nullable Result invalid;
+
+    private AreaClaim(Nation nation, String world) {
+        this.nation = nation;
+        this.world = world;
+    }
+
+    public static AreaClaim square(Nation nation, String world, int centerX, int centerZ, int radius) {
+        AreaClaim area = new AreaClaim(nation, world);
+        if (area.isTooLarge(AreaSize.square(radius))) return area;
+
+        for (int x = centerX - radius; x <= centerX + radius; x++) {
+            for (int z = centerZ - radius; z <= centerZ + radius; z++) {
+                area.add(x, z);
+            }
+        }
+        return area;
+    }
+
+    public static AreaClaim circle(Nation nation, String world, int centerX, int centerZ, int radius) {
+        AreaClaim area = new AreaClaim(nation, world);
+        if (area.isTooLarge(AreaSize.circle(radius))) return area;
+
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dz = -radius; dz <= radius; dz++) {
+                if (AreaSize.isInCircle(dx, dz, radius)) area.add(centerX + dx, centerZ + dz);
+            }
+        }
+        return area;
+    }
+
+    /**
+     * @param facing one of the four cardinal directions
+     */
+    public static AreaClaim line(Nation nation, String world, int startX, int startZ, BlockFace facing, int length) {
+        AreaClaim area = new AreaClaim(nation, world);
+        if (area.isTooLarge(length)) return area;
+
+        for (int i = 0; i < length; i++) {
+            area.add(startX + facing.getModX() * i, startZ + facing.getModZ() * i);
+        }
+        return area;
+    }
+
+    /**
+     * Floods the unclaimed chunks connected to a chunk, which must all be surrounded by claims of the nation.
+     */
+    public static AreaClaim fill(Nation nation, String world, int startX, int startZ) {
+        AreaClaim area = new AreaClaim(nation, world);
+        if (NationChunk.getClaimAt(world, startX, startZ) != null) return area;
+
+        int maxArea = getMaxArea();
+        Set<Long> visited = new HashSet<>();
+        Deque<Long> queue = new ArrayDeque<>();
+        visited.add(ClaimIndex.pack(startX, startZ));
+        queue.add(ClaimIndex.pack(startX, startZ));
+
+        while (!queue.isEmpty()) {
+            long key = queue.poll();
+            int x = ClaimIndex.unpackX(key);
+            int z = ClaimIndex.unpackZ(key);
+            area.chunks.add(new NationChunk(nation.getNationId(), world, x, z));
+            // Too large to be enclosed, the claims of the nation most likely have a gap
+            if (area.chunks.size() > maxArea) {
+                area.invalid = Result.NOT_ENCLOSED;
+                return area;
+            }
+
+            for (BlockFace face : List.of(BlockFace.NORTH, BlockFace.EAST, BlockFace.SOUTH, BlockFace.WEST)) {
+                int nextX = x + face.getModX();
+                int nextZ = z + face.getModZ();
+                NationChunk claim = NationChunk.getClaimAt(world, nextX, nextZ);
+                if (claim != null) {
+                    if (claim.getNationId().equals(nation.getNationId())) continue;
+                    area.invalid = Result.NOT_ENCLOSED;
+                    return area;
+                }
+                long next = ClaimIndex.pack(nextX, nextZ);
+                if (visited.add(next)) queue.add(next);
+            }
+        }
+        return area;
+    }
+
+    /**
+     * Claims every chunk of the area for the nation, or none of them.
+     *
+     * @param free true for staff, who claim without political power or money
+     * @return CLAIMED, or why nothing was claimed
+     */
+    public Result claim(Player player, boolean free) {
+        if (invalid != null) return invalid;
+        if (chunks.isEmpty()) return Result.NOTHING_TO_CLAIM;
+
+        if (!free) {
+            double perPower = instance.getConfig().getDouble("claims.perPoliticalPower", 0);
+            if (perPower > 0 && nation.getClaims().size() + chunks.size() > (long) (nation.getPoliticalPower() * perPower))
+                return Result.NOT_ENOUGH_POWER;
+
+            price = Money.multiply(Money.of(instance.getConfig().getDouble("claims.price", 0)), chunks.size());
+            if (nation.getBalance() < price) return Result.NOT_ENOUGH_MONEY;
+        }
+
+        NationClaimEvent event = new NationClaimEvent(player, nation, Collections.unmodifiableList(chunks), price);
+        EventUtils.call(event);
+        if (event.isCancelled()) return Result.CANCELLED;
+
+        if (!instance.getTreasury().spend(nation, price)) return Result.NOT_ENOUGH_MONEY;
+        for (NationChunk chunk : chunks) {
+            chunk.claim(false);
+        }
+        // Written now as one batch, instead of waiting for the next flush
+        instance.getServer().getScheduler().runTaskAsynchronously(instance, instance.getClaimStore()::flush);
+
+        instance.getLogger().info(chunks.size() + " chunks claimed in " + world + " for Nation " + nation.getName() + " by " + player.getName());
+        return Result.CLAIMED;
+    }
+
+    private void add(int x, int z) {
+        if (NationChunk.getClaimAt(world, x, z) != null) return;
+        chunks.add(new NationChunk(nation.getNationId(), world, x, z));
+    }
+
+    private boolean isTooLarge(long size) {
+        if (size <= getMaxArea()) return false;
+        invalid = Result.TOO_LARGE;
+        return true;
+    }
+
+    public static int getMaxArea() {
+        return instance.getConfig().getInt("claims.maxArea", 256);
+    }
+
+    // --------------------------------------------------------------------------------------------
+
+    @Getter
+    @AllArgsConstructor
+    public enum Result {
+        CLAIMED(NationsLang.NATION_CLAIM_AREA),
+        NOTHING_TO_CLAIM(NationsLang.NATION_CLAIM_AREA_NOTHING),
+        TOO_LARGE(NationsLang.NATION_CLAIM_AREA_TOO_LARGE),
+        NOT_ENCLOSED(NationsLang.NATION_CLAIM_AREA_NOT_ENCLOSED),
+        NOT_ENOUGH_POWER(NationsLang.NATION_CLAIM_AREA_NOT_ENOUGH_POWER),
+        NOT_ENOUGH_MONEY(NationsLang.NATION_CLAIM_AREA_NOT_ENOUGH_MONEY),
+        // The listener which cancelled the event tells the player why
+        CANCELLED(null);
+
+        private final @Nullable NationsLang message;
+    }
+
+}
@@ -0,0 +1,42 @@
+package net.pixlies.nations.nations.chunk;
+
+/**
+ * Sizes of the shapes of area claims, in chunks.
+ * Radii come straight from commands, so the sizes are computed in longs and never overflow, whatever radius is asked
+ * for: too large ones only make a size larger than any maximum area.
+ *
+ * @author vyketype
+ */
+public final class AreaSize {
+
+    // Largest radius whose square still fits in a long
+    private static final int MAX_RADIUS = 1 << 30;
+
+    private AreaSize() {}
+
+    /**
+     * @return the chunks of a square around a center chunk
+     */
+    public static long square(int radius) {
+        if (radius < 0) return 0;
+        if (radius > MAX_RADIUS) return Long.MAX_VALUE;
+        long side = 2L * radius + 1;
+        return side * side;
+    }
+
+    /**
+     * @return roughly the chunks of a circle around a center chunk, about π/4 of its square
+     */
+    public static long circle(int radius) {
+        if (radius < 0) return 0;
+        return (long) Math.ceil(Math.PI * radius * radius);
+    }
+
+    /**
+     * @return true if a chunk at an offset from the center of a circle is inside it
+     */
+    public static boolean isInCircle(int dx, int dz, int radius) {
+        return (long) dx * dx + (long) dz * dz <= (long) radius * radius;
+    }
+
+}
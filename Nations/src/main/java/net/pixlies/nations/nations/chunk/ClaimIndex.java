@@ -0,0 +1,176 @@
+package net.pixlies.nations.nations.chunk;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Claimed chunks of one world, by coordinates.
+ * An open-addressing hash table keyed by both coordinates packed in a long, so that looking up a chunk never boxes
+ * or allocates, and the table holds little more than one key and one reference per claim.
+ * Only used on the main thread.
+ *
+ * @author vyketype
+ */
+public class ClaimIndex {
+
+    private static final int MIN_CAPACITY = 64;
+
+    // A slot is empty when its value is null, so every long is a valid key
+    private long[] keys = new long[MIN_CAPACITY];
+    private NationChunk[] values = new NationChunk[MIN_CAPACITY];
+    private int mask = MIN_CAPACITY - 1;
+    private int size = 0;
+
+    public static long pack(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    public static int unpackX(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int unpackZ(long key) {
+        return (int) key;
+    }
+
+    public @Nullable NationChunk get(int x, int z) {
+        long key = pack(x, z);
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            NationChunk value = values[slot];
+            if (value == null || keys[slot] == key) return value;
+        }
+    }
+
+    /**
+     * @return the chunk which was claimed at the same coordinates before, if any
+     */
+    public @Nullable NationChunk put(NationChunk chunk) {
+        long key = pack(chunk.getX(), chunk.getZ());
+        int slot = slot(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                NationChunk old = values[slot];
+                values[slot] = chunk;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = chunk;
+        // Kept at most three quarters full, so that probes stay short
+        if (++size > (mask + 1) / 4 * 3) resize((mask + 1) * 2);
+        return null;
+    }
+
+    /**
+     * @return the chunk which was claimed at the coordinates, if any
+     */
+    public @Nullable NationChunk remove(int x, int z) {
+        long key = pack(x, z);
+        int slot = slot(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                NationChunk old = values[slot];
+                shiftBack(slot);
+                size--;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        keys = new long[MIN_CAPACITY];
+        values = new NationChunk[MIN_CAPACITY];
+        mask = MIN_CAPACITY - 1;
+        size = 0;
+    }
+
+    /**
+     * Copies the claims of a rectangle of chunks, row by row, with null for the unclaimed ones.
+     * Small rectangles are looked up chunk by chunk. Rectangles with more chunks than the table has slots are filled
+     * in one pass over the table instead, without hashing any coordinates.
+     *
+     * @param area at least width * height long, reused between calls by the caller
+     */
+    public void fillArea(int minX, int minZ, int width, int height, NationChunk[] area) {
+        Arrays.fill(area, 0, width * height, null);
+        if (size == 0)
+            return;
+
+        if ((long) width * height <= values.length) {
+            for (int row = 0; row < height; row++) {
+                for (int column = 0; column < width; column++) {
+                    area[row * width + column] = get(minX + column, minZ + row);
+                }
+            }
+            return;
+        }
+
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] == null) continue;
+            // Compared as unsigned, so that coordinates below the minimum are out of range too
+            int column = unpackX(keys[slot]) - minX;
+            int row = unpackZ(keys[slot]) - minZ;
+            if (Integer.compareUnsigned(column, width) >= 0 || Integer.compareUnsigned(row, height) >= 0) continue;
+            area[row * width + column] = values[slot];
+        }
+    }
+
+    private int slot(long key) {
+        // Finalizer of MurmurHash3, so that neighbouring chunks spread over the table
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    /**
+     * Empties a slot, moving back the entries after it which would not be found anymore.
+     * Linear probing needs no tombstones this way.
+     */
+    private void shiftBack(int slot) {
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (values[next] == null) break;
+
+            // Entries which belong between the emptied slot and their own slot stay where they are
+            int ideal = slot(keys[next]);
+            if (slot <= next ? slot < ideal && ideal <= next : slot < ideal || ideal <= next) continue;
+
+            keys[slot] = keys[next];
+            values[slot] = values[next];
+            slot = next;
+        }
+        values[slot] = null;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        NationChunk[] oldValues = values;
+        keys = new long[capacity];
+        values = new NationChunk[capacity];
+        mask = capacity - 1;
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == null) continue;
+            int slot = slot(oldKeys[i]);
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+}
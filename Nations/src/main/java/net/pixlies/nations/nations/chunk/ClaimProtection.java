@@ -0,0 +1,106 @@
+package net.pixlies.nations.nations.chunk;
+
+import net.pixlies.core.entity.user.User;
+import net.pixlies.nations.Nations;
+import net.pixlies.nations.nations.Nation;
+import net.pixlies.nations.nations.interfaces.NationProfile;
+import net.pixlies.nations.nations.ranks.NationPermission;
+import net.pixlies.nations.nations.ranks.NationRank;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What players may do in the claims of each nation.
+ * The permissions of a player in the claims of a nation, from their rank or the relation of their nation, are
+ * compiled into a bit mask the first time they are needed, so that checking a block event takes one lookup and
+ * one bit test. The masks are compiled again after ranks, memberships or relations change.
+ * Masks are only compiled and read on the main thread, but may be forgotten from any thread, since profiles are
+ * loaded and left asynchronously.
+ *
+ * @author vyketype
+ */
+public class ClaimProtection {
+
+    private static final Nations instance = Nations.getInstance();
+
+    private static final Map<UUID, Rights> RIGHTS = new ConcurrentHashMap<>();
+
+    /**
+     * @param claim the claim the player acts in, null for the wilderness
+     * @return true if the player may act in the claim, or has access to it, or is bypassing
+     */
+    public static boolean canAct(Player player, @Nullable NationChunk claim, NationPermission permission) {
+        if (claim == null) return true;
+
+        long mask = RIGHTS.computeIfAbsent(player.getUniqueId(), Rights::new).getMask(claim.getNationId());
+        if ((mask & permission.getBit()) != 0) return true;
+
+        // Only reached when denied, so that the common case never scans the accessors
+        return claim.getAccessors().contains(player.getUniqueId().toString())
+                || User.get(player.getUniqueId()).isBypassing();
+    }
+
+    /**
+     * Forgets the masks of a player, after their nation or rank changed.
+     */
+    public static void invalidate(UUID uuid) {
+        RIGHTS.remove(uuid);
+    }
+
+    /**
+     * Forgets the masks of every player, after relations or the permissions of ranks changed.
+     */
+    public static void invalidateAll() {
+        RIGHTS.clear();
+    }
+
+    /**
+     * @return the permissions of a player in the claims of a nation
+     */
+    private static long compile(UUID uuid, String nationId) {
+        Nation nation = Nation.getFromId(nationId);
+        // Claims left behind by a nation which does not exist anymore
+        if (nation == null) return NationPermission.ALL;
+        if (nation.isSystemNation()) return NationPermission.NONE;
+
+        NationProfile profile = NationProfile.get(uuid);
+        return switch (profile.getRelationTo(nation)) {
+            case SAME -> {
+                if (profile.isNationLeader()) yield NationPermission.ALL;
+                NationRank rank = profile.getRank();
+                yield rank == null ? NationPermission.NONE : NationPermission.toMask(rank.getPermissions());
+            }
+            case ALLY -> NationPermission.namesToMask(instance.getConfig().getStringList("protection.allyPermissions"));
+            case OTHER -> NationPermission.namesToMask(instance.getConfig().getStringList("protection.foreignPermissions"));
+        };
+    }
+
+    /**
+     * Masks of one player, by nation ID.
+     */
+    private static final class Rights {
+        private final UUID uuid;
+        private final Map<String, Long> masks = new HashMap<>();
+
+        // Players mostly act in one claim after another of the same nation
+        private String lastNationId;
+        private long lastMask;
+
+        private Rights(UUID uuid) {
+            this.uuid = uuid;
+        }
+
+        private long getMask(String nationId) {
+            if (nationId.equals(lastNationId)) return lastMask;
+            lastNationId = nationId;
+            lastMask = masks.computeIfAbsent(nationId, id -> compile(uuid, id));
+            return lastMask;
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+package net.pixlies.nations.nations.chunk;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.*;
+import net.pixlies.nations.Nations;
+import net.pixlies.nations.nations.Nation;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Claims of the nations, one document per chunk in their own collection.
+ * Claiming or unclaiming a chunk only queues the write of its document, and the writes queued for the same chunk
+ * replace each other. They are written every few seconds as one unordered batch, instead of saving the whole nation
+ * with all of its claims.
+ *
+ * @author vyketype
+ */
+public class ClaimStore {
+
+    private static final Nations instance = Nations.getInstance();
+
+    // Chunk -> last write queued for it, queued on the main thread and written asynchronously
+    private final Map<ClaimKey, WriteModel<Document>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Queues the claim to be written, with its owner and accessors as they are now.
+     */
+    public void save(NationChunk chunk) {
+        Document document = chunk.toDocument();
+        // Copied, so that the list is not changed while the document is written
+        document.put("accessors", new ArrayList<>(chunk.getAccessors()));
+        pending.put(ClaimKey.of(chunk), new ReplaceOneModel<>(
+                filter(chunk.getWorld(), chunk.getX(), chunk.getZ()),
+                document,
+                new ReplaceOptions().upsert(true)
+        ));
+    }
+
+    /**
+     * Queues the claim to be deleted.
+     */
+    public void delete(NationChunk chunk) {
+        pending.put(ClaimKey.of(chunk), new DeleteOneModel<>(filter(chunk.getWorld(), chunk.getX(), chunk.getZ())));
+    }
+
+    /**
+     * Writes the claims queued since the last flush. Writes which failed are queued again, unless a newer one was.
+     */
+    public synchronized void flush() {
+        List<ClaimKey> keys = new ArrayList<>();
+        List<WriteModel<Document>> writes = new ArrayList<>();
+        for (Map.Entry<ClaimKey, WriteModel<Document>> entry : pending.entrySet()) {
+            if (!pending.remove(entry.getKey(), entry.getValue())) continue;
+            keys.add(entry.getKey());
+            writes.add(entry.getValue());
+        }
+        if (writes.isEmpty()) return;
+
+        try {
+            instance.getMongoManager().getClaimsCollection().bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        } catch (MongoBulkWriteException ex) {
+            for (BulkWriteError error : ex.getWriteErrors()) {
+                pending.putIfAbsent(keys.get(error.getIndex()), writes.get(error.getIndex()));
+            }
+            instance.getLogger().log(Level.SEVERE, "Unable to write " + ex.getWriteErrors().size() + " claims, retrying later.", ex);
+        } catch (Exception ex) {
+            for (int i = 0; i < writes.size(); i++) {
+                pending.putIfAbsent(keys.get(i), writes.get(i));
+            }
+            instance.getLogger().log(Level.SEVERE, "Unable to write " + writes.size() + " claims, retrying later.", ex);
+        }
+    }
+
+    /**
+     * Loads every claim into the claim index of its world and the claims of its nation, one world after another.
+     * Claims of nations which do not exist anymore are left out.
+     * Called once on startup, after the nations are loaded.
+     */
+    public void loadAll() {
+        MongoCollection<Document> collection = instance.getMongoManager().getClaimsCollection();
+        collection.createIndex(Indexes.ascending("world", "x", "z"), new IndexOptions().unique(true));
+        collection.createIndex(Indexes.ascending("nationId"));
+
+        int loaded = 0;
+        int orphaned = 0;
+        for (String world : collection.distinct("world", String.class)) {
+            // Uses the (world, x, z) index, and streams the documents instead of reading them all at once
+            for (Document document : collection.find(Filters.eq("world", world)).batchSize(1000)) {
+                NationChunk chunk = new NationChunk(document);
+                Nation nation = Nation.getFromId(chunk.getNationId());
+                if (nation == null) {
+                    orphaned++;
+                    continue;
+                }
+                nation.getClaims().add(chunk);
+                chunk.loadClaim();
+                loaded++;
+            }
+        }
+
+        instance.getLogger().info("Loaded " + loaded + " claims.");
+        if (orphaned > 0)
+            instance.getLogger().warning("Left out " + orphaned + " claims of nations which do not exist.");
+    }
+
+    /**
+     * Claims used to be stored in the documents of their nations.
+     * Moves them to the claims collection, so that saving a nation does not write all of its claims anymore.
+     */
+    public static void migrate(MongoCollection<Document> nations, MongoCollection<Document> claims) {
+        List<WriteModel<Document>> writes = new ArrayList<>();
+        List<Object> migrated = new ArrayList<>();
+        for (Document nation : nations.find(Filters.exists("claims")).projection(Projections.include("claims"))) {
+            for (Document claim : nation.getList("claims", Document.class, List.of())) {
+                writes.add(new ReplaceOneModel<>(
+                        filter(claim.getString("world"), claim.getInteger("x"), claim.getInteger("z")),
+                        claim,
+                        new ReplaceOptions().upsert(true)
+                ));
+            }
+            migrated.add(nation.get("_id"));
+        }
+        if (migrated.isEmpty()) return;
+
+        if (!writes.isEmpty())
+            claims.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        nations.updateMany(Filters.in("_id", migrated), Updates.unset("claims"));
+        instance.getLogger().info("Moved " + writes.size() + " claims of " + migrated.size() + " nations to their own collection.");
+    }
+
+    private static Bson filter(String world, int x, int z) {
+        return Filters.and(Filters.eq("world", world), Filters.eq("x", x), Filters.eq("z", z));
+    }
+
+    private record ClaimKey(String world, long chunk) {
+
+        private static ClaimKey of(NationChunk chunk) {
+            return new ClaimKey(chunk.getWorld(), ClaimIndex.pack(chunk.getX(), chunk.getZ()));
+        }
+
+    }
+
+}
@@ -1,7 +1,5 @@
 package net.pixlies.nations.nations.chunk;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -28,6 +26,12 @@ import java.util.List;
 public class NationChunk {
     private static final Nations instance = Nations.getInstance();
 
+    /**
+     * Stands for every chunk which is not claimed, so that unclaimed chunks need no object of their own.
+     * Never claimed, and never to be changed.
+     */
+    public static final NationChunk WILDERNESS = new NationChunk("wilderness", null, 0, 0, NationChunkType.NORMAL, List.of());
+
     private String nationId;
     private String world;
     private int x;
@@ -56,7 +60,7 @@ public class NationChunk {
         } catch (IllegalArgumentException e) {
             this.type = NationChunkType.NORMAL;
         }
-        this.accessors = document.getList("accessors", String.class);
+        this.accessors = document.getList("accessors", String.class, new ArrayList<>());
     }
 
     public Document toDocument() {
@@ -74,8 +78,8 @@ public class NationChunk {
 
     /**
      * Claims a chunk
-     * Backup will not be called.
-     * @see Nation#save()
+     * The claim is written by the ClaimStore, the nation does not need to be saved.
+     * @see ClaimStore
      * @param log Logs the claim.
      */
     public void claim(boolean log) {
@@ -85,6 +89,8 @@ public class NationChunk {
 
         nation.getClaims().add(this);
         loadClaim();
+        instance.getClaimStore().save(this);
+        TerritoryTracker.refresh(world, x, z);
 
         if (log) {
             instance.getLogger().info( type.name() + " Chunk claimed at " + x + ", " + z + "for Nation " + nation.getName());
@@ -93,21 +99,21 @@ public class NationChunk {
     }
 
     public void loadClaim() {
-        Table<Integer, Integer, NationChunk> claims = instance.getNationManager().getNationClaims().computeIfAbsent(getWorld(),
-                k -> HashBasedTable.create());
-        claims.put(getX(), getZ(), this);
+        ClaimIndex claims = instance.getNationManager().getNationClaims().computeIfAbsent(getWorld(),
+                k -> new ClaimIndex());
+        claims.put(this);
     }
 
     public void unloadClaim() {
-        Table<Integer, Integer, NationChunk> claims = instance.getNationManager().getNationClaims().get(getWorld());
+        ClaimIndex claims = instance.getNationManager().getNationClaims().get(getWorld());
         if (claims == null) return;
         claims.remove(getX(), getZ());
     }
 
     /**
      * Unclaim this chunk.
-     * Backup will not be called.
-     * @see Nation#save()
+     * The claim is deleted by the ClaimStore, the nation does not need to be saved.
+     * @see ClaimStore
      **/
     public void unclaim() {
         Nation nation = Nation.getFromId(nationId);
@@ -116,6 +122,8 @@ public class NationChunk {
 
         nation.getClaims().remove(this);
         unloadClaim();
+        instance.getClaimStore().delete(this);
+        TerritoryTracker.refresh(world, x, z);
     }
 
     public @Nullable Nation getNation() {
@@ -129,6 +137,7 @@ public class NationChunk {
      */
     public void grantAccess(@NotNull NationProfile profile) {
         accessors.add(profile.getUuid());
+        instance.getClaimStore().save(this);
     }
 
     /**
@@ -138,6 +147,7 @@ public class NationChunk {
      */
     public void revokeAccess(@NotNull NationProfile profile) {
         accessors.remove(profile.getUuid());
+        instance.getClaimStore().save(this);
     }
 
     /**
@@ -151,7 +161,7 @@ public class NationChunk {
 
     public static @Nullable NationChunk getClaimAt(String world, int x, int z) {
         if (world == null) return null;
-        Table<Integer, Integer, NationChunk> claims = instance.getNationManager().getNationClaims().get(world);
+        ClaimIndex claims = instance.getNationManager().getNationClaims().get(world);
         if (claims == null) return null;
         return claims.get(x, z);
     }
@@ -0,0 +1,91 @@
+package net.pixlies.nations.nations.chunk;
+
+import lombok.Getter;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The chunk each online player was last seen in, and whose territory it is.
+ * Lets the territory listener look claims up only when a player enters another chunk, and fire events only when
+ * the owner of their territory changes.
+ * Only used on the main thread.
+ *
+ * @author vyketype
+ */
+public class TerritoryTracker {
+
+    private static final Map<UUID, TerritoryTracker> TRACKERS = new HashMap<>();
+
+    private String world;
+    private long chunkKey;
+    private @Getter NationChunk territory;
+
+    private TerritoryTracker(Location location) {
+        moveTo(location);
+    }
+
+    /**
+     * @return the tracker of a player, starting at their location if they had none
+     */
+    public static TerritoryTracker get(Player player) {
+        return TRACKERS.computeIfAbsent(player.getUniqueId(), uuid -> new TerritoryTracker(player.getLocation()));
+    }
+
+    public static void remove(UUID uuid) {
+        TRACKERS.remove(uuid);
+    }
+
+    /**
+     * Looks up the claim of a chunk again for the players standing in it.
+     * Called whenever the chunk is claimed or unclaimed, since players are otherwise only looked up when they move.
+     */
+    public static void refresh(String world, int x, int z) {
+        long key = ClaimIndex.pack(x, z);
+        NationChunk claim = NationChunk.getClaimAt(world, x, z);
+        for (TerritoryTracker tracker : TRACKERS.values()) {
+            if (tracker.chunkKey == key && tracker.world.equals(world))
+                tracker.territory = claim == null ? NationChunk.WILDERNESS : claim;
+        }
+    }
+
+    /**
+     * @return the claim of a chunk, or the wilderness if it is not claimed. Never loads the chunk.
+     */
+    public static NationChunk getTerritoryAt(Location location) {
+        NationChunk claim = NationChunk.getClaimAt(location.getWorld().getName(), location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        return claim == null ? NationChunk.WILDERNESS : claim;
+    }
+
+    public static boolean isSameChunk(Location from, Location to) {
+        return from.getBlockX() >> 4 == to.getBlockX() >> 4
+                && from.getBlockZ() >> 4 == to.getBlockZ() >> 4
+                && from.getWorld() == to.getWorld();
+    }
+
+    public static boolean isSameOwner(NationChunk territory, NationChunk other) {
+        return territory.getNationId().equals(other.getNationId());
+    }
+
+    public boolean isIn(Location location) {
+        return chunkKey == ClaimIndex.pack(location.getBlockX() >> 4, location.getBlockZ() >> 4)
+                && location.getWorld().getName().equals(world);
+    }
+
+    /**
+     * Moves the player to the chunk of a location, looking up its claim again.
+     */
+    public void moveTo(Location location) {
+        moveTo(location, getTerritoryAt(location));
+    }
+
+    public void moveTo(Location location, NationChunk territory) {
+        this.world = location.getWorld().getName();
+        this.chunkKey = ClaimIndex.pack(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        this.territory = territory;
+    }
+
+}
@@ -1,19 +1,25 @@
 package net.pixlies.nations.nations.interfaces;
 
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
 import lombok.AccessLevel;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
+import net.pixlies.core.economy.Money;
 import net.pixlies.core.entity.user.User;
+import net.pixlies.core.utils.EventUtils;
 import net.pixlies.nations.Nations;
+import net.pixlies.nations.events.impl.PlayerNationChangeEvent;
 import net.pixlies.nations.locale.NationsLang;
 import net.pixlies.nations.nations.Nation;
+import net.pixlies.nations.nations.chunk.ClaimProtection;
 import net.pixlies.nations.nations.chunk.NationChunk;
 import net.pixlies.nations.nations.chunk.NationChunkType;
 import net.pixlies.nations.nations.interfaces.profile.ChatType;
 import net.pixlies.nations.nations.ranks.NationRank;
 import net.pixlies.nations.nations.relations.Relation;
+import net.pixlies.nations.nations.wealth.Transfer;
 import net.pixlies.nations.utils.NationTextUtils;
 import org.bson.Document;
 import org.bukkit.entity.Player;
@@ -51,7 +57,8 @@ public class NationProfile {
     private @Getter(AccessLevel.NONE) String profileChatType = ChatType.GLOBAL.name();
 
     // Economy
-    private @Getter @Setter double balance = 0.00;
+    // In micro-coins, see Money
+    private @Getter long balance = Money.ZERO;
     
     // Local
     private @Getter(AccessLevel.NONE) boolean autoClaim = false;
@@ -81,7 +88,6 @@ public class NationProfile {
                     player.getChunk().getZ()
             );
             chunk.claim(true);
-            nation.save();
 
             NationsLang.NATION_CLAIM_MESSAGE.send(player,
                     "%LOCATION%;" + NationTextUtils.getChunkLocationFormatted(chunk.getX(), chunk.getZ()),
@@ -127,7 +133,6 @@ public class NationProfile {
                 new ArrayList<>()
         );
         chunk.claim(true);
-        nation.save();
 
         NationsLang.NATION_CLAIM_MESSAGE.send(player,
                 "%LOCATION%;" + NationTextUtils.getChunkLocationFormatted(chunk.getX(), chunk.getZ()),
@@ -177,6 +182,13 @@ public class NationProfile {
 
     public void setNation(Nation nation) {
         nationId = nation.getNationId();
+        ClaimProtection.invalidate(getUniqueId());
+        EventUtils.call(new PlayerNationChangeEvent(getUniqueId(), nationId));
+    }
+
+    public void setNationRank(@Nullable String nationRank) {
+        this.nationRank = nationRank;
+        ClaimProtection.invalidate(getUniqueId());
     }
 
     public Nation getNation() {
@@ -218,12 +230,27 @@ public class NationProfile {
         return nation.getRelationTo(toMatch);
     }
     
-    public void addBalance(double amount) {
-        balance += amount;
+    public void setBalance(long balance) {
+        this.balance = balance;
+        instance.getWealthLeaderboard().getPlayers().update(uuid, balance);
     }
     
-    public void removeBalance(double amount) {
-        balance -= amount;
+    /**
+     * Changes the balance in memory only, the ledger writes it to the database.
+     */
+    public void changeBalance(long amount) {
+        balance = Money.add(balance, amount);
+        instance.getWealthLeaderboard().getPlayers().increment(uuid, amount);
+    }
+    
+    public void addBalance(long amount) {
+        changeBalance(amount);
+        instance.getLedger().record(Transfer.of(null, uuid, amount));
+    }
+    
+    public void removeBalance(long amount) {
+        changeBalance(-amount);
+        instance.getLedger().record(Transfer.of(uuid, null, amount));
     }
 
     /**
@@ -248,7 +275,9 @@ public class NationProfile {
         nationRank = null;
         profileChatType = ChatType.GLOBAL.name();
 
-        nation.getMembers().remove(uuid);
+        nation.getMembers().remove(getUniqueId());
+        ClaimProtection.invalidate(getUniqueId());
+        EventUtils.call(new PlayerNationChangeEvent(getUniqueId(), null));
 
         if (saveNation) {
             nation.save();
@@ -269,12 +298,16 @@ public class NationProfile {
 
     /**
      * Non sync backup
+     * The balance is left out, only the ledger writes it.
      */
     public void backup() {
-        if (instance.getMongoManager().getNationProfileCollection().find(Filters.eq("uuid", uuid)).first() == null) {
-            instance.getMongoManager().getNationProfileCollection().insertOne(toDocument());
-        }
-        instance.getMongoManager().getNationProfileCollection().replaceOne(Filters.eq("uuid", uuid), toDocument());
+        Document document = toDocument();
+        document.remove("balance");
+        instance.getMongoManager().getNationProfileCollection().updateOne(
+                Filters.eq("uuid", uuid),
+                new Document("$set", document),
+                new UpdateOptions().upsert(true)
+        );
     }
 
     public Document toDocument() {
@@ -297,8 +330,9 @@ public class NationProfile {
         nationId = document.getString("nationId") == null ? nationId : document.getString("nationId");
         nationRank = document.getString("nationRank") == null ? nationRank : document.getString("nationRank");
         profileChatType = document.getString("profileChatType") == null ? profileChatType : document.getString("profileChatType");
+        ClaimProtection.invalidate(getUniqueId());
 
-        balance = document.get("balance", 0.00);
+        setBalance(Money.read(document.get("balance")));
     }
 
     public void load(boolean cache) {
@@ -5,6 +5,8 @@ import net.pixlies.nations.nations.interfaces.NationProfile;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.util.Collection;
+
 public enum NationPermission {
 
     INVITE,
@@ -47,6 +49,40 @@ public enum NationPermission {
     MANAGE_TARIFFS,
     MANAGE_EMBARGOES;
 
+    // Masks of permissions, see ClaimProtection
+    public static final long NONE = 0L;
+    public static final long ALL = -1L;
+
+    /**
+     * @return the bit of this permission in a mask, there are fewer than 64 permissions
+     */
+    public long getBit() {
+        return 1L << ordinal();
+    }
+
+    public static long toMask(Collection<NationPermission> permissions) {
+        long mask = NONE;
+        for (NationPermission permission : permissions) {
+            mask |= permission.getBit();
+        }
+        return mask;
+    }
+
+    /**
+     * Unknown names are left out.
+     */
+    public static long namesToMask(Collection<String> names) {
+        long mask = NONE;
+        for (String name : names) {
+            try {
+                mask |= valueOf(name.toUpperCase()).getBit();
+            } catch (IllegalArgumentException ignored) {
+                // unknown permission
+            }
+        }
+        return mask;
+    }
+
     public boolean hasPermission(CommandSender sender) {
         if (!(sender instanceof Player player)) return true;
         User user = User.get(player.getUniqueId());
@@ -59,7 +95,7 @@ public enum NationPermission {
         if (profile.isNationLeader()) return true;
         NationRank rank = profile.getRank();
         if (rank == null) return false;
-        return rank.getPermissions().contains(this.name());
+        return rank.getPermissions().contains(this);
     }
 
     public static boolean exists(String name) {
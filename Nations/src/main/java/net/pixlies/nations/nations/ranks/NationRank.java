@@ -2,6 +2,7 @@ package net.pixlies.nations.nations.ranks;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import net.pixlies.nations.nations.chunk.ClaimProtection;
 import org.bson.Document;
 
 import java.util.ArrayList;
@@ -32,6 +33,11 @@ public class NationRank {
         }};
     }
 
+    public void setPermissions(List<NationPermission> permissions) {
+        this.permissions = permissions;
+        ClaimProtection.invalidateAll();
+    }
+
     public Document toDocument() {
         Document document = new Document();
 
@@ -0,0 +1,162 @@
+package net.pixlies.nations.nations.wealth;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.*;
+import net.pixlies.nations.Nations;
+import net.pixlies.nations.nations.interfaces.NationProfile;
+import org.bson.Document;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+
+/**
+ * Every change to the balance of a profile, written to an append-only collection.
+ * Balances are changed in memory right away, and the database catches up in batches of $inc updates, instead of
+ * each change saving whole profiles.
+ * <p>
+ * A batch is written in three steps which can all be repeated safely: the transfers are added to the ledger as
+ * pending, applied to the profiles, then marked as applied. Each profile remembers the transfers applied to it until
+ * the last step, so a batch retried after an error, or replayed after a crash, never applies a transfer twice.
+ *
+ * @author vyketype
+ */
+public class Ledger {
+
+    private static final Nations instance = Nations.getInstance();
+
+    private static final String PENDING = "PENDING";
+    private static final String APPLIED = "APPLIED";
+
+    // Field of the profiles with the transfers being applied to them
+    private static final String APPLIED_TRANSFERS = "appliedTransfers";
+
+    private final Queue<Transfer> queue = new ConcurrentLinkedQueue<>();
+
+    // Lock for the balances in memory, so that two payments never spend the same money
+    private final Object balanceLock = new Object();
+
+    /**
+     * Moves money from a player to another.
+     *
+     * @return the transfer, or null if the payer does not have enough money
+     */
+    public @Nullable Transfer transfer(NationProfile from, NationProfile to, long amount) {
+        synchronized (balanceLock) {
+            if (from.getBalance() < amount) return null;
+            from.changeBalance(-amount);
+            to.changeBalance(amount);
+        }
+        return record(Transfer.of(from.getUuid(), to.getUuid(), amount));
+    }
+
+    /**
+     * Writes a change to a balance which was already made in memory.
+     */
+    public Transfer record(Transfer transfer) {
+        queue.add(transfer);
+        return transfer;
+    }
+
+    /**
+     * Writes every queued transfer to the database.
+     * Transfers which could not be written are queued again.
+     */
+    public synchronized void flush() {
+        List<Transfer> batch = new ArrayList<>();
+        Transfer transfer;
+        while ((transfer = queue.poll()) != null) {
+            batch.add(transfer);
+        }
+        if (batch.isEmpty()) return;
+
+        try {
+            insert(batch);
+            apply(batch);
+        } catch (Exception ex) {
+            instance.getLogger().log(Level.SEVERE, "Unable to write " + batch.size() + " transfers, retrying later.", ex);
+            queue.addAll(batch);
+        }
+    }
+
+    /**
+     * Finishes the transfers which were in the ledger, but maybe not applied, when the server stopped.
+     * Called before any balance is read.
+     */
+    public synchronized void recover() {
+        MongoCollection<Document> ledger = instance.getMongoManager().getLedgerCollection();
+        ledger.createIndex(Indexes.ascending("state"));
+        ledger.createIndex(Indexes.ascending("from"));
+        ledger.createIndex(Indexes.ascending("to"));
+        instance.getMongoManager().getNationProfileCollection().createIndex(Indexes.ascending("uuid"));
+
+        List<Transfer> pending = new ArrayList<>();
+        for (Document document : ledger.find(Filters.eq("state", PENDING))) {
+            pending.add(Transfer.fromDocument(document));
+        }
+        if (pending.isEmpty()) return;
+
+        apply(pending);
+        instance.getLogger().info("Recovered " + pending.size() + " pending transfers.");
+    }
+
+    private static void insert(List<Transfer> batch) {
+        List<Document> documents = new ArrayList<>(batch.size());
+        for (Transfer transfer : batch) {
+            documents.add(transfer.toDocument().append("state", PENDING));
+        }
+
+        try {
+            instance.getMongoManager().getLedgerCollection().insertMany(documents, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException ex) {
+            // Transfers already in the ledger were written by an earlier try
+            for (BulkWriteError error : ex.getWriteErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) throw ex;
+            }
+        }
+    }
+
+    private static void apply(List<Transfer> batch) {
+        MongoCollection<Document> profiles = instance.getMongoManager().getNationProfileCollection();
+
+        Set<String> uuids = new HashSet<>();
+        List<String> ids = new ArrayList<>(batch.size());
+        for (Transfer transfer : batch) {
+            if (transfer.from() != null) uuids.add(transfer.from());
+            if (transfer.to() != null) uuids.add(transfer.to());
+            ids.add(transfer.id());
+        }
+
+        // Profiles which were never saved are created first, so that the updates below never need an upsert
+        List<WriteModel<Document>> writes = new ArrayList<>();
+        for (String uuid : uuids) {
+            writes.add(new UpdateOneModel<>(
+                    Filters.eq("uuid", uuid),
+                    Updates.setOnInsert("balance", 0L),
+                    new UpdateOptions().upsert(true)
+            ));
+        }
+        for (Transfer transfer : batch) {
+            // Paying yourself changes nothing
+            if (Objects.equals(transfer.from(), transfer.to())) continue;
+            if (transfer.from() != null) writes.add(change(transfer.from(), transfer.id(), -transfer.amount()));
+            if (transfer.to() != null) writes.add(change(transfer.to(), transfer.id(), transfer.amount()));
+        }
+        profiles.bulkWrite(writes, new BulkWriteOptions().ordered(true));
+
+        instance.getMongoManager().getLedgerCollection().updateMany(Filters.in("_id", ids), Updates.set("state", APPLIED));
+        profiles.updateMany(Filters.in("uuid", uuids), Updates.pullAll(APPLIED_TRANSFERS, ids));
+    }
+
+    private static UpdateOneModel<Document> change(String uuid, String id, long amount) {
+        return new UpdateOneModel<>(
+                Filters.and(Filters.eq("uuid", uuid), Filters.ne(APPLIED_TRANSFERS, id)),
+                Updates.combine(Updates.inc("balance", amount), Updates.push(APPLIED_TRANSFERS, id))
+        );
+    }
+
+}
@@ -0,0 +1,208 @@
+package net.pixlies.nations.nations.wealth;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ids ranked by a score, highest first, in an order-statistic skip list.
+ * Every link knows how many entries it skips, so updating an entry, finding its rank and reading a page are all
+ * O(log n). Ties are broken by id, so that the order is stable.
+ *
+ * @author vyketype
+ */
+public class RankedIndex {
+
+    private static final int MAX_LEVEL = 32;
+    private static final double LEVEL_PROBABILITY = 0.25;
+
+    private final Node head = new Node(null, Long.MAX_VALUE, MAX_LEVEL);
+    private final Map<String, Node> nodes = new HashMap<>();
+    private int level = 1;
+
+    /**
+     * Adds an id, or moves it to its new score.
+     */
+    public synchronized void update(String id, long score) {
+        Node node = nodes.get(id);
+        if (node != null) {
+            if (node.score == score) return;
+            nodes.remove(id);
+            delete(node);
+        }
+        nodes.put(id, insert(id, score));
+    }
+
+    /**
+     * Adds to the score of an id, which starts at 0 if it is not ranked yet.
+     */
+    public synchronized void increment(String id, long amount) {
+        Node node = nodes.get(id);
+        update(id, node == null ? amount : node.score + amount);
+    }
+
+    public synchronized void remove(String id) {
+        Node node = nodes.remove(id);
+        if (node != null) delete(node);
+    }
+
+    /**
+     * @return the rank of an id, starting at 1, or 0 if it is not ranked
+     */
+    public synchronized int getRank(String id) {
+        Node node = nodes.get(id);
+        if (node == null) return 0;
+
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], node.score, node.id) <= 0) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x == node) return rank;
+        }
+        return 0;
+    }
+
+    /**
+     * @param offset the number of entries to skip from the top
+     * @param limit the maximum number of entries
+     * @return the entries from the given offset, highest first
+     */
+    public synchronized List<Entry> getPage(int offset, int limit) {
+        List<Entry> page = new ArrayList<>(Math.max(0, Math.min(limit, nodes.size() - offset)));
+        if (offset < 0 || offset >= nodes.size()) return page;
+
+        // Walk down to the entry right before the page
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= offset) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+        }
+
+        for (x = x.next[0]; x != null && page.size() < limit; x = x.next[0]) {
+            page.add(new Entry(x.id, x.score));
+        }
+        return page;
+    }
+
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    public synchronized void clear() {
+        nodes.clear();
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+            head.span[i] = 0;
+        }
+        level = 1;
+    }
+
+    private Node insert(String id, long score) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && compare(x.next[i], score, id) < 0) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                update[i].span[i] = nodes.size();
+            }
+            level = nodeLevel;
+        }
+
+        Node node = new Node(id, score, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+
+        // Links above the new node now skip one more entry
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        return node;
+    }
+
+    private void delete(Node node) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], node.score, node.id) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+    }
+
+    /**
+     * @return a negative number if the node ranks before the given score and id, 0 if it is the same entry
+     */
+    private static int compare(Node node, long score, String id) {
+        if (node.score != score) return node.score > score ? -1 : 1;
+        return node.id.compareTo(id);
+    }
+
+    private static int randomLevel() {
+        int level = 1;
+        while (level < MAX_LEVEL && ThreadLocalRandom.current().nextDouble() < LEVEL_PROBABILITY) {
+            level++;
+        }
+        return level;
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static final class Node {
+        private final String id;
+        private final long score;
+
+        private final Node[] next;
+
+        // Number of entries each link moves forward by
+        private final int[] span;
+
+        private Node(String id, long score, int level) {
+            this.id = id;
+            this.score = score;
+            next = new Node[level];
+            span = new int[level];
+        }
+    }
+
+    public record Entry(String id, long score) {}
+
+}
@@ -0,0 +1,23 @@
+package net.pixlies.nations.nations.wealth;
+
+/**
+ * Money collected by a nation from the market.
+ *
+ * @param tax from the tax rate of the nation, in micro-coins
+ * @param tariff from the tariffs of the nation, in micro-coins
+ *
+ * @author vyketype
+ */
+public record Revenue(long tax, long tariff) {
+
+    public static final Revenue ZERO = new Revenue(0L, 0L);
+
+    public long total() {
+        return tax + tariff;
+    }
+
+    public Revenue plus(Revenue other) {
+        return new Revenue(tax + other.tax, tariff + other.tariff);
+    }
+
+}
@@ -0,0 +1,43 @@
+package net.pixlies.nations.nations.wealth;
+
+import org.bson.Document;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * A movement of money between two profiles, as written in the ledger.
+ * A missing side is the server: money paid by the market, or removed by staff.
+ *
+ * @param id unique, so that writing the same transfer twice only applies it once
+ * @param from the UUID of the profile paying, if any
+ * @param to the UUID of the profile paid, if any
+ * @param amount in micro-coins, see Money
+ *
+ * @author vyketype
+ */
+public record Transfer(String id, @Nullable String from, @Nullable String to, long amount, long timestamp) {
+
+    public static Transfer of(@Nullable String from, @Nullable String to, long amount) {
+        return new Transfer(UUID.randomUUID().toString(), from, to, amount, System.currentTimeMillis());
+    }
+
+    public static Transfer fromDocument(Document document) {
+        return new Transfer(
+                document.getString("_id"),
+                document.getString("from"),
+                document.getString("to"),
+                document.getLong("amount"),
+                document.getLong("timestamp")
+        );
+    }
+
+    public Document toDocument() {
+        return new Document("_id", id)
+                .append("from", from)
+                .append("to", to)
+                .append("amount", amount)
+                .append("timestamp", timestamp);
+    }
+
+}
@@ -0,0 +1,226 @@
+package net.pixlies.nations.nations.wealth;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.*;
+import net.pixlies.core.economy.Money;
+import net.pixlies.nations.Nations;
+import net.pixlies.nations.nations.Nation;
+import org.bson.Document;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Tax and tariff revenue of the nations, collected by the market.
+ * Trades only add to striped counters, which are written every few seconds as one batch of $inc updates to the
+ * nations, instead of each trade saving its nation. Each batch is also added to the daily revenue of the nations,
+ * the last days of which are kept in memory so that they can be shown without reading the database.
+ * Money spent by the nations is taken from their balances in memory right away, and written in the same batches.
+ *
+ * @author vyketype
+ */
+public class Treasury {
+
+    private static final Nations instance = Nations.getInstance();
+
+    // Days of revenue kept in memory, today included
+    public static final int HISTORY_DAYS = 30;
+
+    // Nation ID -> revenue not written yet, added to by the matching threads
+    private final Map<String, Accumulator> pending = new ConcurrentHashMap<>();
+
+    // Nation ID -> epoch day -> revenue
+    private final Map<String, NavigableMap<Long, Revenue>> history = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the revenue of a trade to a nation. Safe to call from any thread.
+     *
+     * @param tax in micro-coins
+     * @param tariff in micro-coins
+     */
+    public void credit(String nationId, long tax, long tariff) {
+        if (tax == 0 && tariff == 0) return;
+        Accumulator accumulator = pending.computeIfAbsent(nationId, id -> new Accumulator());
+        accumulator.tax.add(tax);
+        accumulator.tariff.add(tariff);
+    }
+
+    /**
+     * Takes money from a nation, in memory right away and in the database with the next flush.
+     * Only called on the main thread.
+     *
+     * @param amount in micro-coins
+     * @return false if the nation does not have enough money
+     */
+    public boolean spend(Nation nation, long amount) {
+        if (amount == 0) return true;
+        if (nation.getBalance() < amount) return false;
+        nation.changeBalance(-amount);
+        pending.computeIfAbsent(nation.getNationId(), id -> new Accumulator()).spent.add(amount);
+        return true;
+    }
+
+    /**
+     * Writes the revenue collected and the money spent since the last flush to the balances of the nations, and the
+     * revenue to their history. What could not be written is collected again.
+     */
+    public synchronized void flush() {
+        List<String> nationIds = new ArrayList<>();
+        List<Revenue> batch = new ArrayList<>();
+        List<Long> spending = new ArrayList<>();
+        pending.forEach((nationId, accumulator) -> {
+            Revenue revenue = new Revenue(accumulator.tax.sumThenReset(), accumulator.tariff.sumThenReset());
+            long spent = accumulator.spent.sumThenReset();
+            if (revenue.tax() == 0 && revenue.tariff() == 0 && spent == 0) return;
+            nationIds.add(nationId);
+            batch.add(revenue);
+            spending.add(spent);
+        });
+        if (batch.isEmpty()) return;
+
+        long day = today();
+        List<WriteModel<Document>> balances = new ArrayList<>(batch.size());
+        List<WriteModel<Document>> days = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            String nationId = nationIds.get(i);
+            Revenue revenue = batch.get(i);
+            balances.add(new UpdateOneModel<>(
+                    Filters.eq("nationId", nationId),
+                    Updates.inc("money", Money.subtract(revenue.total(), spending.get(i)))
+            ));
+            if (revenue.tax() == 0 && revenue.tariff() == 0) continue;
+            days.add(new UpdateOneModel<>(
+                    Filters.and(Filters.eq("nationId", nationId), Filters.eq("day", day)),
+                    Updates.combine(Updates.inc("tax", revenue.tax()), Updates.inc("tariff", revenue.tariff())),
+                    new UpdateOptions().upsert(true)
+            ));
+        }
+
+        Set<Integer> failed = writeBalances(balances);
+        if (failed.size() == batch.size()) {
+            restore(nationIds, batch, spending, failed);
+            return;
+        }
+
+        try {
+            if (!days.isEmpty())
+                instance.getMongoManager().getRevenueCollection().bulkWrite(days, new BulkWriteOptions().ordered(false));
+        } catch (Exception ex) {
+            // The balances were written, so the revenue is not collected again
+            instance.getLogger().log(Level.WARNING, "Unable to write the revenue history of " + days.size() + " nations.", ex);
+        }
+
+        restore(nationIds, batch, spending, failed);
+        Map<String, Revenue> written = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (failed.contains(i)) continue;
+            if (batch.get(i).tax() == 0 && batch.get(i).tariff() == 0) continue;
+            written.put(nationIds.get(i), batch.get(i));
+            addToHistory(nationIds.get(i), day, batch.get(i));
+        }
+
+        // Balances in memory are only changed on the main thread, and nobody needs them once the server stops
+        if (!instance.isEnabled()) return;
+        instance.getServer().getScheduler().runTask(instance, () -> written.forEach((nationId, revenue) -> {
+            Nation nation = Nation.getFromId(nationId);
+            if (nation != null) nation.changeBalance(revenue.total());
+        }));
+    }
+
+    /**
+     * Loads the last days of revenue of every nation.
+     * Called once on startup.
+     */
+    public void load() {
+        MongoCollection<Document> collection = instance.getMongoManager().getRevenueCollection();
+        collection.createIndex(Indexes.ascending("nationId", "day"), new IndexOptions().unique(true));
+        collection.createIndex(Indexes.ascending("day"));
+
+        history.clear();
+        long from = today() - HISTORY_DAYS + 1;
+        for (Document document : collection.find(Filters.gte("day", from)).batchSize(1000)) {
+            addToHistory(
+                    document.getString("nationId"),
+                    document.getLong("day"),
+                    new Revenue(document.get("tax", 0L), document.get("tariff", 0L))
+            );
+        }
+    }
+
+    /**
+     * @param days how many days to add up, today included, at most HISTORY_DAYS
+     * @return the revenue of a nation over the last days, without what was not written yet
+     */
+    public Revenue getRevenue(String nationId, int days) {
+        NavigableMap<Long, Revenue> revenues = history.get(nationId);
+        if (revenues == null) return Revenue.ZERO;
+
+        Revenue sum = Revenue.ZERO;
+        for (Revenue revenue : revenues.tailMap(today() - days + 1, true).values()) {
+            sum = sum.plus(revenue);
+        }
+        return sum;
+    }
+
+    /**
+     * Forgets the revenue of a nation which was disbanded.
+     */
+    public void remove(String nationId) {
+        pending.remove(nationId);
+        history.remove(nationId);
+    }
+
+    /**
+     * @return the indexes of the writes which failed
+     */
+    private static Set<Integer> writeBalances(List<WriteModel<Document>> balances) {
+        Set<Integer> failed = new HashSet<>();
+        try {
+            instance.getMongoManager().getNationsCollection().bulkWrite(balances, new BulkWriteOptions().ordered(false));
+        } catch (MongoBulkWriteException ex) {
+            for (BulkWriteError error : ex.getWriteErrors()) {
+                failed.add(error.getIndex());
+            }
+            instance.getLogger().log(Level.SEVERE, "Unable to credit the revenue of " + failed.size() + " nations, retrying later.", ex);
+        } catch (Exception ex) {
+            for (int i = 0; i < balances.size(); i++) {
+                failed.add(i);
+            }
+            instance.getLogger().log(Level.SEVERE, "Unable to credit the revenue of " + balances.size() + " nations, retrying later.", ex);
+        }
+        return failed;
+    }
+
+    private void restore(List<String> nationIds, List<Revenue> batch, List<Long> spending, Set<Integer> failed) {
+        for (int i : failed) {
+            credit(nationIds.get(i), batch.get(i).tax(), batch.get(i).tariff());
+            // Already taken from the balance in memory, so only queued again
+            if (spending.get(i) != 0)
+                pending.computeIfAbsent(nationIds.get(i), id -> new Accumulator()).spent.add(spending.get(i));
+        }
+    }
+
+    private void addToHistory(String nationId, long day, Revenue revenue) {
+        NavigableMap<Long, Revenue> revenues = history.computeIfAbsent(nationId, id -> new ConcurrentSkipListMap<>());
+        revenues.merge(day, revenue, Revenue::plus);
+        revenues.headMap(today() - HISTORY_DAYS + 1).clear();
+    }
+
+    private static long today() {
+        return LocalDate.now(ZoneOffset.UTC).toEpochDay();
+    }
+
+    private static final class Accumulator {
+        private final LongAdder tax = new LongAdder();
+        private final LongAdder tariff = new LongAdder();
+        private final LongAdder spent = new LongAdder();
+    }
+
+}
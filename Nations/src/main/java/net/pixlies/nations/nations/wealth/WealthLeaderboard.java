@@ -0,0 +1,46 @@
+package net.pixlies.nations.nations.wealth;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import lombok.Getter;
+import net.pixlies.core.economy.Money;
+import net.pixlies.nations.Nations;
+import org.bson.Document;
+
+/**
+ * Players and nations ranked by balance.
+ * Players are seeded once on startup, nations are ranked as they are loaded. After that, both are kept up to date
+ * by every balance change, so the database is never sorted again.
+ *
+ * @author vyketype
+ */
+@Getter
+public class WealthLeaderboard {
+
+    private static final Nations instance = Nations.getInstance();
+
+    // By UUID
+    private final RankedIndex players = new RankedIndex();
+
+    // By nation ID, without the system nations
+    private final RankedIndex nations = new RankedIndex();
+
+    public void seed() {
+        MongoCollection<Document> collection = instance.getMongoManager().getNationProfileCollection();
+        collection.createIndex(Indexes.descending("balance"));
+
+        players.clear();
+        for (Document document : collection.find()
+                .projection(Projections.include("uuid", "balance"))
+                .sort(Indexes.descending("balance"))
+                .batchSize(1000)) {
+            String uuid = document.getString("uuid");
+            if (uuid == null) continue;
+            players.update(uuid, Money.read(document.get("balance")));
+        }
+
+        instance.getLogger().info("Ranked " + players.size() + " player balances.");
+    }
+
+}
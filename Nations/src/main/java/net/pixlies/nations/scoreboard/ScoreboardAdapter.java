@@ -1,6 +1,7 @@
 package net.pixlies.nations.scoreboard;
 
 import net.pixlies.core.Main;
+import net.pixlies.core.economy.Money;
 import net.pixlies.core.entity.user.User;
 import net.pixlies.core.entity.user.timers.Timer;
 import net.pixlies.core.handlers.impl.TimerHandler;
@@ -45,7 +46,7 @@ public class ScoreboardAdapter implements AssembleAdapter {
 
         // LINES
         lines.add("&3&l" + player.getName());
-        lines.add("&bBalance&7: &6" + profile.getBalance() + " quid");
+        lines.add("&bBalance&7: &6" + Money.format(profile.getBalance()) + " quid");
 
         if (profile.isInNation() && profile.getNation() != null) {
             Nation nation = profile.getNation();
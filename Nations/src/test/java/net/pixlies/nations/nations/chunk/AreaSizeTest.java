@@ -0,0 +1,60 @@
+package net.pixlies.nations.nations.chunk;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AreaSizeTest {
+
+    private static final int MAX_AREA = 256;
+
+    @Test
+    void squareCountsEveryChunk() {
+        assertEquals(1, AreaSize.square(0));
+        assertEquals(9, AreaSize.square(1));
+        assertEquals(225, AreaSize.square(7));
+    }
+
+    @Test
+    void squareAtTheBound() {
+        // A radius of 7 is a 15 by 15 square, 8 is 17 by 17
+        assertTrue(AreaSize.square(7) <= MAX_AREA);
+        assertTrue(AreaSize.square(8) > MAX_AREA);
+    }
+
+    @Test
+    void squareNeverOverflows() {
+        // (radius * 2 + 1) overflowed to a small or negative size in ints
+        assertTrue(AreaSize.square(Integer.MAX_VALUE) > MAX_AREA);
+        assertTrue(AreaSize.square(Integer.MAX_VALUE / 2) > MAX_AREA);
+        assertTrue(AreaSize.square(1 << 30) > MAX_AREA);
+        assertTrue(AreaSize.square((1 << 30) + 1) > MAX_AREA);
+        assertTrue(AreaSize.square(65536) > MAX_AREA);
+    }
+
+    @Test
+    void circleNeverOverflows() {
+        assertTrue(AreaSize.circle(9) <= MAX_AREA);
+        assertTrue(AreaSize.circle(10) > MAX_AREA);
+        assertTrue(AreaSize.circle(Integer.MAX_VALUE) > MAX_AREA);
+        assertTrue(AreaSize.circle(46341) > MAX_AREA);
+    }
+
+    @Test
+    void negativeRadiiAreEmpty() {
+        assertEquals(0, AreaSize.square(-1));
+        assertEquals(0, AreaSize.circle(-1));
+        assertEquals(0, AreaSize.square(Integer.MIN_VALUE));
+    }
+
+    @Test
+    void circleContainsItsRadius() {
+        assertTrue(AreaSize.isInCircle(0, 0, 0));
+        assertTrue(AreaSize.isInCircle(3, 4, 5));
+        assertFalse(AreaSize.isInCircle(4, 4, 5));
+        // dx * dx + dz * dz overflowed in ints
+        assertTrue(AreaSize.isInCircle(46341, 0, 46341));
+        assertFalse(AreaSize.isInCircle(46341, 46341, 46341));
+    }
+
+}
@@ -7,10 +7,12 @@ import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
-import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.*;
 import lombok.Getter;
 import net.pixlies.core.Main;
+import net.pixlies.core.economy.Money;
 import net.pixlies.core.entity.user.User;
+import org.bson.BsonType;
 import org.bson.Document;
 
 import java.util.*;
@@ -57,6 +59,7 @@ public class MongoManager {
         punishmentCollection = database.getCollection(conf("database.punishmentCollection", "punishments"));
         otherDocumentCollection = database.getCollection(conf("database.otherDocumentCollection", "otherDocuments"));
 
+        migrateWallets(usersCollection);
         reloadBannedIpList();
 
         instance.getLogger().info("Initialized MongoDB database.");
@@ -88,6 +91,28 @@ public class MongoManager {
         otherDocumentCollection.replaceOne(Filters.eq("identifier", "bannedIpList"), document);
     }
 
+    /**
+     * Balances of the wallets of users used to be stored as coins in doubles, they are now micro-coins in longs.
+     * Converts the old ones, so that the wallets can be read again.
+     */
+    private static void migrateWallets(MongoCollection<Document> collection) {
+        List<WriteModel<Document>> writes = new ArrayList<>();
+        for (Document user : collection.find(Filters.elemMatch("wallets", Filters.type("balance", BsonType.DOUBLE)))) {
+            List<Document> wallets = new ArrayList<>();
+            for (Document wallet : user.getList("wallets", Document.class)) {
+                wallets.add(new Document(wallet).append("balance", Money.read(wallet.get("balance"))));
+            }
+            writes.add(new UpdateOneModel<>(
+                    Filters.eq("_id", user.get("_id")),
+                    Updates.set("wallets", wallets)
+            ));
+        }
+        if (writes.isEmpty()) return;
+
+        collection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        instance.getLogger().info("Converted the wallets of " + writes.size() + " users to micro-coins.");
+    }
+
     private static String conf(String what, String def) {
         return instance.getConfig().getString(what, def);
     }
@@ -0,0 +1,98 @@
+package net.pixlies.core.economy;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money amounts, as a whole number of micro-coins in a primitive long.
+ * Adding and multiplying amounts is exact and never allocates, unlike doubles or BigDecimals.
+ * Only rates (taxes, tariffs) are doubles, and applying one rounds to the nearest micro-coin.
+ *
+ * @author vyketype
+ */
+public final class Money {
+
+    // Micro-coins per coin
+    public static final long SCALE = 1_000_000L;
+    private static final int DECIMALS = 6;
+
+    public static final long ZERO = 0L;
+    public static final long COIN = SCALE;
+
+    private Money() {
+    }
+
+    /**
+     * Converts an amount of coins given as a double, like an old balance or a typed price.
+     */
+    public static long of(double coins) {
+        return Math.round(coins * SCALE);
+    }
+
+    public static long ofCoins(long coins) {
+        return Math.multiplyExact(coins, SCALE);
+    }
+
+    /**
+     * Reads an amount typed by a player, without going through a double.
+     *
+     * @throws NumberFormatException if the text is not a number, or has more decimals than a micro-coin
+     */
+    public static long parse(String text) {
+        try {
+            return new BigDecimal(text.trim()).movePointRight(DECIMALS).setScale(0, RoundingMode.UNNECESSARY).longValueExact();
+        } catch (ArithmeticException ex) {
+            throw new NumberFormatException("Not a valid amount of money: " + text);
+        }
+    }
+
+    public static double toDouble(long money) {
+        return (double) money / SCALE;
+    }
+
+    public static long add(long money, long other) {
+        return Math.addExact(money, other);
+    }
+
+    public static long subtract(long money, long other) {
+        return Math.subtractExact(money, other);
+    }
+
+    public static long multiply(long money, long amount) {
+        return Math.multiplyExact(money, amount);
+    }
+
+    /**
+     * @return the given part of an amount, rounded to the nearest micro-coin
+     */
+    public static long percent(long money, double rate) {
+        return Math.round(money * rate);
+    }
+
+    /**
+     * @return an amount with a rate (tax, tariff) added on top of it
+     */
+    public static long tax(long money, double rate) {
+        return add(money, percent(money, rate));
+    }
+
+    /**
+     * Reads an amount stored in a Mongo document.
+     * Amounts were stored as coins in doubles before, they are converted.
+     */
+    public static long read(@Nullable Object value) {
+        if (value instanceof Long money) return money;
+        if (value instanceof Number coins) return of(coins.doubleValue());
+        return ZERO;
+    }
+
+    /**
+     * @return the amount in coins, without trailing zeros
+     */
+    public static String format(long money) {
+        return BigDecimal.valueOf(money, DECIMALS).stripTrailingZeros().toPlainString();
+    }
+
+}
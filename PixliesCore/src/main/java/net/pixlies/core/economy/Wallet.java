@@ -16,20 +16,21 @@ public class Wallet {
 
     private String name;
     private String sign;
-    private double balance;
+    // In micro-coins, see Money
+    private long balance;
     private List<String> history;
     private boolean prefix;
     private Palette palette;
 
-    public void deposit(double amount, String reason) {
-        this.balance += amount;
-        history.add("+;" + amount + ";" + reason.replace(";", ":") + ";" + System.currentTimeMillis());
+    public void deposit(long amount, String reason) {
+        this.balance = Money.add(balance, amount);
+        history.add("+;" + Money.format(amount) + ";" + reason.replace(";", ":") + ";" + System.currentTimeMillis());
     }
 
-    public boolean withdraw(double amount, String reason) {
-        if (this.balance - amount < 0) return false;
-        this.balance -= amount;
-        this.history.add("-;" + amount + ";" + reason.replace(";", ":") + ";" + System.currentTimeMillis());
+    public boolean withdraw(long amount, String reason) {
+        if (!canWithdraw(amount)) return false;
+        this.balance = Money.subtract(balance, amount);
+        this.history.add("-;" + Money.format(amount) + ";" + reason.replace(";", ":") + ";" + System.currentTimeMillis());
         return true;
     }
 
@@ -38,11 +39,11 @@ public class Wallet {
      * @param amount The amount of cash to check
      * @return True of the player can withdraw; False if the player cannot withdraw.
      */
-    public boolean canWithdraw(double amount) {
-        return !(this.balance - amount < 0);
+    public boolean canWithdraw(long amount) {
+        return balance >= amount;
     }
 
-    public String format(double amount) {
+    public String format(long amount) {
         StringBuilder builder = new StringBuilder();
         if (prefix) {
             builder.append(palette.getEffect());
@@ -51,7 +52,7 @@ public class Wallet {
             builder.append(ChatColor.RESET);
         }
         builder.append(palette.getPrimary());
-        builder.append(amount);
+        builder.append(Money.format(amount));
         if (!prefix) {
             builder.append(palette.getEffect());
             builder.append(palette.getAccent());
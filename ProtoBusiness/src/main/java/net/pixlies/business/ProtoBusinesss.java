@@ -5,12 +5,24 @@ import net.pixlies.business.commands.CommandManager;
 import net.pixlies.business.handlers.HandlerManager;
 import net.pixlies.business.listeners.ListenerManager;
 import net.pixlies.business.locale.MarketLang;
+import net.pixlies.business.market.CandleStore;
+import net.pixlies.business.market.Embargo;
+import net.pixlies.business.market.MarketJournal;
+import net.pixlies.business.market.MarketNotifier;
+import net.pixlies.business.market.MarketThrottle;
+import net.pixlies.business.market.MatchingEngine;
 import net.pixlies.business.market.OrderBook;
 import net.pixlies.business.market.MarketProfile;
-import net.pixlies.business.threads.BalTopThread;
+import net.pixlies.business.market.MarketStats;
+import net.pixlies.business.market.Tariff;
+import net.pixlies.business.market.TradeFilter;
+import net.pixlies.business.market.Trigger;
 import net.pixlies.business.threads.EmbargoExpirationThread;
+import net.pixlies.business.threads.JournalThread;
+import net.pixlies.business.threads.OrderExpirationThread;
 import net.pixlies.core.modules.Module;
 import net.pixlies.core.modules.configuration.ModuleConfig;
+import net.pixlies.nations.Nations;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
@@ -28,8 +40,10 @@ public class ProtoBusinesss extends JavaPlugin implements Module {
     private CommandManager commandManager;
     private ListenerManager listenerManager;
     
-    private BalTopThread balTopThread;
     private EmbargoExpirationThread embargoExpirationThread;
+    private OrderExpirationThread orderExpirationThread;
+    private JournalThread journalThread;
+    private MatchingEngine matchingEngine;
     
     @Override
     public void onEnable() {
@@ -41,10 +55,10 @@ public class ProtoBusinesss extends JavaPlugin implements Module {
         this.saveResource("languages/LANG_ENG.yml", true);
         MarketLang.load();
         
-        balTopThread = new BalTopThread();
-        balTopThread.startThread();
-    
+        TradeFilter.loadNations(Nations.getInstance().getNationManager().getNations().values());
+        Embargo.loadAll();
         embargoExpirationThread = new EmbargoExpirationThread();
+        embargoExpirationThread.scheduleAll();
         embargoExpirationThread.startThread();
         
         handlerManager = new HandlerManager();
@@ -53,7 +67,30 @@ public class ProtoBusinesss extends JavaPlugin implements Module {
         commandManager = new CommandManager();
         commandManager.registerAllCommands();
         
+        Tariff.loadAll();
+        MarketProfile.loadAll();
         OrderBook.loadAll();
+        Trigger.loadAll();
+        MarketProfile.preload();
+        orderExpirationThread = new OrderExpirationThread();
+        orderExpirationThread.scheduleAll();
+        orderExpirationThread.startThread();
+        MarketStats.load();
+        CandleStore.loadAll();
+        
+        journalThread = new JournalThread(new File(MarketJournal.JOURNAL_PATH), new File(MarketJournal.OLD_JOURNAL_PATH),
+                new File(MarketJournal.SNAPSHOTS_PATH));
+        journalThread.startThread();
+        MarketJournal.checkpoint();
+        
+        matchingEngine = new MatchingEngine(config.getInt("matchingThreads", 2));
+        
+        long snapshotTicks = config.getLong("snapshotInterval", 5) * 60 * 20;
+        getServer().getScheduler().runTaskTimerAsynchronously(this, MarketJournal::checkpoint, snapshotTicks, snapshotTicks);
+        getServer().getScheduler().runTaskTimer(this, MarketStats::flush, 20 * 60, 20 * 60);
+        getServer().getScheduler().runTaskTimer(this, () -> MarketProfile.flush(true), 5 * 20, 5 * 20);
+        getServer().getScheduler().runTaskTimer(this, MarketNotifier::flush, 1, 1);
+        getServer().getScheduler().runTaskTimer(this, MarketThrottle::evictIdle, 60 * 20, 60 * 20);
         
         listenerManager = new ListenerManager();
         listenerManager.registerAllListeners();
@@ -62,10 +99,17 @@ public class ProtoBusinesss extends JavaPlugin implements Module {
     @Override
     public void onDisable() {
         commandManager.unregisterAllCommands();
-        balTopThread.stopThread();
+        embargoExpirationThread.stopThread();
+        orderExpirationThread.stopThread();
         
-        MarketProfile.backupAll();
-        OrderBook.backupAll();
+        MarketThrottle.placeAllWaiting();
+        matchingEngine.shutdown();
+        MarketStats.flush();
+        CandleStore.closeAll();
+        MarketNotifier.flush();
+        MarketProfile.close();
+        MarketJournal.checkpoint();
+        journalThread.stopThread();
         
         instance = null;
     }
@@ -12,6 +12,8 @@ public class CommandManager {
       private final ImmutableList<BaseCommand> commands = ImmutableList.of(
               new MarketCommand(),
               new PriceCommand(),
+              new PriceAlertCommand(),
+              new StopOrderCommand(),
               new TariffCommand(),
               new ChallengeCommand(),
               new TradeBlockCommand(),
@@ -3,50 +3,72 @@ package net.pixlies.business.commands.economy;
 import co.aikar.commands.BaseCommand;
 import co.aikar.commands.annotation.*;
 import net.pixlies.business.locale.MarketLang;
-import net.pixlies.business.threads.BalTopThread;
+import net.pixlies.core.economy.Money;
+import net.pixlies.nations.Nations;
 import net.pixlies.nations.nations.Nation;
+import net.pixlies.nations.nations.interfaces.NationProfile;
+import net.pixlies.nations.nations.wealth.RankedIndex;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
-import org.ocpsoft.prettytime.PrettyTime;
+import org.bukkit.entity.Player;
 
-import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
+import java.util.List;
 import java.util.UUID;
 
 @CommandAlias("balancetop|baltop")
 @CommandPermission("pixlies.business.balancetop")
-@Description("Check the top 10 players' (or nations') balance")
+@Description("Check the richest players (or nations), and your own rank")
 public class BalTopCommand extends BaseCommand {
+      private static final int PAGE_SIZE = 10;
+      
       @Default
-      @Syntax("[nations]")
-      public void onBalanceTop(CommandSender sender, @Optional String nations) {
-            PrettyTime prettyTime = new PrettyTime();
-            Set<Map.Entry<String, Double>> entries;
+      @Syntax("[page]")
+      public void onBalanceTop(CommandSender sender, @Default("1") int page) {
+            RankedIndex players = Nations.getInstance().getWealthLeaderboard().getPlayers();
+            if (!showPage(sender, players, page, false)) return;
+            
+            if (sender instanceof Player player) {
+                  sendRank(sender, players, player.getUniqueId().toString());
+            }
+      }
+      
+      @Subcommand("nations")
+      @Syntax("[page]")
+      public void onNationsTop(CommandSender sender, @Default("1") int page) {
+            RankedIndex nations = Nations.getInstance().getWealthLeaderboard().getNations();
+            if (!showPage(sender, nations, page, true)) return;
+            
+            if (sender instanceof Player player) {
+                  NationProfile profile = NationProfile.get(player.getUniqueId());
+                  if (profile.isInNation()) {
+                        sendRank(sender, nations, profile.getNationId());
+                  }
+            }
+      }
       
-            if (nations != null && nations.equalsIgnoreCase("nations")) {
+      private boolean showPage(CommandSender sender, RankedIndex index, int page, boolean nations) {
+            int pages = Math.max(1, (int) Math.ceil(index.size() / (double) PAGE_SIZE));
+            if (page < 1 || page > pages) {
+                  MarketLang.PAGE_DOES_NOT_EXIST.send(sender);
+                  return false;
+            }
+            
+            if (nations) {
                   MarketLang.BALTOP_NATIONS_HEADER.send(sender);
-                  MarketLang.BALTOP_LAST_UPDATED.send(
-                          sender,
-                          "%TIME%;" + prettyTime.format(BalTopThread.BALTOP_NATIONS_DATE)
-                  );
-                  entries = BalTopThread.BALTOP_NATIONS_MAP.entrySet();
             } else {
                   MarketLang.BALTOP_HEADER.send(sender);
-                  MarketLang.BALTOP_LAST_UPDATED.send(
-                          sender,
-                          "%TIME%;" + prettyTime.format(BalTopThread.BALTOP_PLAYERS_DATE)
-                  );
-                  entries = BalTopThread.BALTOP_PLAYERS_MAP.entrySet();
             }
-      
-            int i = 1;
-            for (Map.Entry<String, Double> entry : entries) {
+            
+            List<RankedIndex.Entry> entries = index.getPage((page - 1) * PAGE_SIZE, PAGE_SIZE);
+            int i = (page - 1) * PAGE_SIZE + 1;
+            for (RankedIndex.Entry entry : entries) {
                   String name;
-                  if (nations.equalsIgnoreCase("nations")) {
-                        name = Bukkit.getOfflinePlayer(UUID.fromString(entry.getKey())).getName();
+                  if (nations) {
+                        Nation nation = Nation.getFromId(entry.id());
+                        name = nation == null ? "Unknown" : nation.getName();
                   } else {
-                        name = Objects.requireNonNull(Nation.getFromId(entry.getKey())).getName();
+                        name = Bukkit.getOfflinePlayer(UUID.fromString(entry.id())).getName();
+                        if (name == null) name = "Unknown";
                   }
                   
                   String numberColor;
@@ -62,9 +84,18 @@ public class BalTopCommand extends BaseCommand {
                           "%COLOR%;" + numberColor,
                           "%NUMBER%;" + i,
                           "%NAME%;" + name,
-                          "%BALANCE%;" + Math.round(entry.getValue())
+                          "%BALANCE%;" + Money.format(entry.score())
                   );
                   i++;
             }
+            
+            MarketLang.PAGE_INDEX.send(sender, "%PAGE%;" + page, "%MAX%;" + pages);
+            return true;
+      }
+      
+      private void sendRank(CommandSender sender, RankedIndex index, String id) {
+            int rank = index.getRank(id);
+            if (rank == 0) return;
+            MarketLang.BALTOP_YOUR_RANK.send(sender, "%RANK%;" + rank, "%TOTAL%;" + index.size());
       }
 }
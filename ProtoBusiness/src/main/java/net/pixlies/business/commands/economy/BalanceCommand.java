@@ -4,6 +4,7 @@ import co.aikar.commands.BaseCommand;
 import co.aikar.commands.annotation.*;
 import net.pixlies.business.locale.MarketLang;
 import net.pixlies.business.util.preconditions.CommandPreconditions;
+import net.pixlies.core.economy.Money;
 import net.pixlies.nations.nations.interfaces.NationProfile;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
@@ -17,7 +18,7 @@ public class BalanceCommand extends BaseCommand {
       public void onBalance(Player player, @Optional String targetName) {
             if (targetName == null || targetName.isEmpty()) {
                   NationProfile profile = NationProfile.get(player.getUniqueId());
-                  MarketLang.BALANCE.send(player, "%PLAYER%;" + player.getName(), "%BALANCE%;" + profile.getBalance());
+                  MarketLang.BALANCE.send(player, "%PLAYER%;" + player.getName(), "%BALANCE%;" + Money.format(profile.getBalance()));
                   return;
             }
       
@@ -28,6 +29,6 @@ public class BalanceCommand extends BaseCommand {
                   return;
       
             NationProfile profile = NationProfile.get(offlineTarget.getUniqueId());
-            MarketLang.BALANCE.send(player, "%PLAYER%;" + offlineTarget.getName(), "%BALANCE%;" + profile.getBalance());
+            MarketLang.BALANCE.send(player, "%PLAYER%;" + offlineTarget.getName(), "%BALANCE%;" + Money.format(profile.getBalance()));
       }
 }
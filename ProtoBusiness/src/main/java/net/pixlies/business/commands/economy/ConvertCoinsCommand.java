@@ -7,6 +7,7 @@ import net.pixlies.business.locale.MarketLang;
 import net.pixlies.business.util.InventoryUtil;
 import net.pixlies.business.util.SoundUtil;
 import net.pixlies.business.util.preconditions.CommandPreconditions;
+import net.pixlies.core.economy.Money;
 import net.pixlies.nations.nations.interfaces.NationProfile;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -22,13 +23,13 @@ public class ConvertCoinsCommand extends BaseCommand {
       @Syntax("<coins>")
       public void onConvertCoins(Player player, double amount) {
             // If the player does not have enough money
-            if (!CommandPreconditions.playerHasEnoughMoney(player, amount))
+            if (!CommandPreconditions.playerHasEnoughMoney(player, Money.of(amount)))
                   return;
             
-            int conversionRate = instance.getConfig().getInt("goldStandard");
-            double remainder = amount % conversionRate;
-            double coins = amount - remainder;
-            int gold = (int) Math.floor(coins / conversionRate);
+            // Only whole gold ingots are given, the remainder stays in the wallet
+            long rate = Money.ofCoins(instance.getConfig().getInt("goldStandard"));
+            int gold = (int) (Money.of(amount) / rate);
+            long coins = Money.multiply(rate, gold);
             
             // Add items to inventory
             InventoryUtil.addItemsToInventory(player, new ItemStack(Material.GOLD_INGOT, gold));
@@ -36,10 +37,9 @@ public class ConvertCoinsCommand extends BaseCommand {
             // Take coins from wallet
             NationProfile profile = NationProfile.get(player.getUniqueId());
             profile.removeBalance(coins);
-            profile.save();
       
             // Send message, play sound
-            MarketLang.CONVERTED_COINS_TO_GOLD.send(player, "%COINS%;" + coins, "%GOLD%;" + gold);
+            MarketLang.CONVERTED_COINS_TO_GOLD.send(player, "%COINS%;" + Money.format(coins), "%GOLD%;" + gold);
             SoundUtil.littleSuccess(player);
       }
 }
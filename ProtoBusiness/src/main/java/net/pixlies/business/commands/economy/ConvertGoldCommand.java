@@ -7,6 +7,7 @@ import net.pixlies.business.locale.MarketLang;
 import net.pixlies.business.market.OrderItem;
 import net.pixlies.business.util.SoundUtil;
 import net.pixlies.business.util.preconditions.CommandPreconditions;
+import net.pixlies.core.economy.Money;
 import net.pixlies.nations.nations.interfaces.NationProfile;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -26,19 +27,18 @@ public class ConvertGoldCommand extends BaseCommand {
                   return;
             
             int conversionRate = instance.getConfig().getInt("goldStandard");
-            double coins = amount * conversionRate;
+            long coins = Money.ofCoins((long) amount * conversionRate);
             
             // Give coins
             NationProfile profile = NationProfile.get(player.getUniqueId());
             profile.addBalance(coins);
-            profile.save();
             
             // Take gold ingots from inventory
             player.getInventory().removeItemAnySlot(new ItemStack(Material.GOLD_INGOT, amount));
             player.updateInventory();
             
             // Send message, play sound
-            MarketLang.CONVERTED_GOLD_TO_COINS.send(player, "%GOLD%;" + amount, "%COINS%;" + coins);
+            MarketLang.CONVERTED_GOLD_TO_COINS.send(player, "%GOLD%;" + amount, "%COINS%;" + Money.format(coins));
             SoundUtil.littleSuccess(player);
       }
 }
@@ -6,6 +6,7 @@ import co.aikar.commands.annotation.*;
 import net.pixlies.business.locale.MarketLang;
 import net.pixlies.business.util.SoundUtil;
 import net.pixlies.business.util.preconditions.CommandPreconditions;
+import net.pixlies.core.economy.Money;
 import net.pixlies.nations.nations.interfaces.NationProfile;
 import org.apache.commons.lang.StringUtils;
 import org.bukkit.Bukkit;
@@ -28,8 +29,7 @@ public class EconomyCommand extends BaseCommand {
             OfflinePlayer offlineTarget = Bukkit.getOfflinePlayer(targetName);
             
             NationProfile nationProfile = NationProfile.get(offlineTarget.getUniqueId());
-            nationProfile.addBalance(Double.parseDouble(strAmount));
-            nationProfile.save();
+            nationProfile.addBalance(Money.parse(strAmount));
       
             MarketLang.BALANCE_ADDED_SENDER.send(player, "%COINS%;" + strAmount, "%PLAYER%;" + targetName);
             
@@ -54,8 +54,7 @@ public class EconomyCommand extends BaseCommand {
             OfflinePlayer offlineTarget = Bukkit.getOfflinePlayer(targetName);
             
             NationProfile nationProfile = NationProfile.get(offlineTarget.getUniqueId());
-            nationProfile.removeBalance(Double.parseDouble(strAmount));
-            nationProfile.save();
+            nationProfile.removeBalance(Money.parse(strAmount));
             
             MarketLang.BALANCE_REMOVED_SENDER.send(player, "%COINS%;" + strAmount, "%PLAYER%;" + targetName);
             
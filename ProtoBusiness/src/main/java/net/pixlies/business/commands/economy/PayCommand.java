@@ -5,6 +5,8 @@ import co.aikar.commands.annotation.*;
 import net.pixlies.business.locale.MarketLang;
 import net.pixlies.business.util.SoundUtil;
 import net.pixlies.business.util.preconditions.CommandPreconditions;
+import net.pixlies.core.economy.Money;
+import net.pixlies.nations.Nations;
 import net.pixlies.nations.nations.interfaces.NationProfile;
 import org.apache.commons.lang.StringUtils;
 import org.bukkit.Bukkit;
@@ -27,20 +29,19 @@ public class PayCommand extends BaseCommand {
             String strAmount = args[1];
             OfflinePlayer offlineTarget = Bukkit.getOfflinePlayer(targetName);
             
-            double amount = Double.parseDouble(strAmount);
+            long amount = Money.parse(strAmount);
       
             if (!CommandPreconditions.playerHasEnoughMoney(player, amount))
                   return;
       
-            // Add money to target
-            NationProfile targetProfile = NationProfile.get(offlineTarget.getUniqueId());
-            targetProfile.addBalance(amount);
-            targetProfile.save();
-            
-            // Remove money from target
+            // Move the money in one ledger entry, the balances are written in the background
             NationProfile playerProfile = NationProfile.get(player.getUniqueId());
-            playerProfile.removeBalance(amount);
-            playerProfile.save();
+            NationProfile targetProfile = NationProfile.get(offlineTarget.getUniqueId());
+            if (Nations.getInstance().getLedger().transfer(playerProfile, targetProfile, amount) == null) {
+                  MarketLang.GENERAL_NOT_ENOUGH_MONEY.send(player);
+                  SoundUtil.error(player);
+                  return;
+            }
       
             MarketLang.PAID_SENDER.send(player, "%COINS%;" + strAmount, "%PLAYER%;" + targetName);
       
@@ -9,13 +9,19 @@ import net.pixlies.business.listeners.impl.InventoryClickListener;
 import net.pixlies.business.locale.MarketLang;
 import net.pixlies.business.market.OrderBook;
 import net.pixlies.business.market.MarketProfile;
+import net.pixlies.business.market.MarketStats;
+import net.pixlies.business.market.MarketThrottle;
+import net.pixlies.business.market.OrderItem;
 import net.pixlies.business.util.MarketRestrictUtil;
 import net.pixlies.business.util.SoundUtil;
 import net.pixlies.business.util.preconditions.CommandPreconditions;
+import net.pixlies.core.economy.Money;
 import org.bukkit.Bukkit;
+import org.bukkit.Material;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -99,6 +105,62 @@ public class MarketCommand extends BaseCommand {
             SoundUtil.success(player);
       }
       
+      @Subcommand("stats")
+      @CommandPermission("pixlies.business.market.stats")
+      @Description("Shows the statistics of the whole market or of one item")
+      @Syntax("[item]")
+      public void onMarketStats(Player player, @Optional String itemName) {
+            OrderItem item = null;
+            if (itemName != null) {
+                  item = OrderItem.getFromMaterial(Material.matchMaterial(itemName));
+                  
+                  // If the item is not on the market
+                  if (!CommandPreconditions.doesMarketItemExist(player, item))
+                        return;
+            }
+            
+            MarketStats.Counters stats = MarketStats.get(item);
+            MarketLang.MARKET_GLOBAL_STATS.send(player, "%ITEM%;" + (item == null ? "the market" : item.getName()));
+            MarketLang.MARKET_BUYS.send(player, "%X%;" + stats.getBuyOrders());
+            MarketLang.MARKET_SELLS.send(player, "%X%;" + stats.getSellOrders());
+            MarketLang.MARKET_TRADES.send(player, "%X%;" + stats.getTrades());
+            MarketLang.MARKET_MONEY_TRADED.send(player, "%X%;" + Money.format(stats.getMoneyTraded()));
+            MarketLang.MARKET_ITEMS_TRADED.send(player, "%X%;" + stats.getItemsTraded());
+      }
+      
+      @Subcommand("throttle")
+      @CommandPermission("pixlies.business.market.throttle")
+      @Description("Shows how many orders were throttled, and who by")
+      public void onMarketThrottle(Player player) {
+            MarketLang.MARKET_THROTTLE_STATS.send(player);
+            MarketLang.MARKET_THROTTLE_IN_FLIGHT.send(
+                    player,
+                    "%X%;" + MarketThrottle.getInFlight(),
+                    "%MAX%;" + MarketThrottle.getMaxInFlight(),
+                    "%PEAK%;" + MarketThrottle.getPeakInFlight()
+            );
+            MarketLang.MARKET_THROTTLE_WAITING.send(
+                    player,
+                    "%X%;" + MarketThrottle.getWaiting(),
+                    "%MAX%;" + MarketThrottle.getMaxWaiting(),
+                    "%TOTAL%;" + MarketThrottle.getQueued()
+            );
+            MarketLang.MARKET_THROTTLE_COUNTS.send(
+                    player,
+                    "%ADMITTED%;" + MarketThrottle.getCount(MarketThrottle.Result.ADMITTED),
+                    "%PLAYER%;" + MarketThrottle.getCount(MarketThrottle.Result.PLAYER_THROTTLED),
+                    "%NATION%;" + MarketThrottle.getCount(MarketThrottle.Result.NATION_THROTTLED),
+                    "%OVERLOADED%;" + MarketThrottle.getCount(MarketThrottle.Result.OVERLOADED)
+            );
+            for (Map.Entry<UUID, Long> entry : MarketThrottle.getMostThrottled(5)) {
+                  MarketLang.MARKET_THROTTLE_PLAYER.send(
+                          player,
+                          "%PLAYER%;" + Bukkit.getOfflinePlayer(entry.getKey()).getName(),
+                          "%X%;" + entry.getValue()
+                  );
+            }
+      }
+      
       @Subcommand("restrict")
       @CommandPermission("pixlies.business.market.restrict")
       @Description("Restricts/unrestricts a player from accessing the market")
@@ -1,12 +1,18 @@
 package net.pixlies.business.commands.market;
 
 import co.aikar.commands.BaseCommand;
-import co.aikar.commands.annotation.CommandAlias;
-import co.aikar.commands.annotation.CommandPermission;
-import co.aikar.commands.annotation.Default;
-import co.aikar.commands.annotation.Description;
+import co.aikar.commands.annotation.*;
 import net.pixlies.business.locale.MarketLang;
 import net.pixlies.business.market.MarketProfile;
+import net.pixlies.business.util.SoundUtil;
+import net.pixlies.business.util.preconditions.CommandPreconditions;
+import net.pixlies.core.economy.Money;
+import net.pixlies.nations.Nations;
+import net.pixlies.nations.locale.NationsLang;
+import net.pixlies.nations.nations.Nation;
+import net.pixlies.nations.nations.interfaces.NationProfile;
+import net.pixlies.nations.nations.wealth.Revenue;
+import net.pixlies.nations.nations.wealth.Treasury;
 import org.bukkit.entity.Player;
 
 /**
@@ -25,9 +31,51 @@ public class MarketStatsCommand extends BaseCommand {
             MarketLang.MARKET_BUYS.send(player, "%X%;" + profile.getBuyOrdersMade());
             MarketLang.MARKET_SELLS.send(player, "%X%;" + profile.getSellOrdersMade());
             MarketLang.MARKET_TRADES.send(player, "%X%;" + profile.getTradesMade());
-            MarketLang.MARKET_MONEY_SPENT.send(player, "%X%;" + profile.getMoneySpent());
-            MarketLang.MARKET_MONEY_GAINED.send(player, "%X%;" + profile.getMoneyGained());
+            MarketLang.MARKET_MONEY_SPENT.send(player, "%X%;" + Money.format(profile.getMoneySpent()));
+            MarketLang.MARKET_MONEY_GAINED.send(player, "%X%;" + Money.format(profile.getMoneyGained()));
             MarketLang.MARKET_SOLD.send(player, "%X%;" + profile.getItemsSold());
             MarketLang.MARKET_BOUGHT.send(player, "%X%;" + profile.getItemsBought());
       }
+      
+      @Subcommand("nation")
+      @Description("Check the tax and tariff revenue of a nation")
+      @Syntax("[nation]")
+      public void onMarketStatsNation(Player player, @Optional String nationName) {
+            Nation nation;
+            if (nationName == null) {
+                  NationProfile profile = NationProfile.get(player.getUniqueId());
+                  
+                  // If the player is not in a nation
+                  if (!CommandPreconditions.isPlayerInNation(player, profile))
+                        return;
+                  
+                  nation = profile.getNation();
+            } else {
+                  nation = Nation.getFromName(nationName);
+                  
+                  // If the nation does not exist
+                  if (nation == null) {
+                        NationsLang.NATION_DOES_NOT_EXIST.send(player);
+                        SoundUtil.error(player);
+                        return;
+                  }
+            }
+            
+            Treasury treasury = Nations.getInstance().getTreasury();
+            MarketLang.MARKET_NATION_REVENUE.send(player, "%NATION%;" + nation.getName());
+            sendRevenue(player, "Today", treasury.getRevenue(nation.getNationId(), 1));
+            sendRevenue(player, "Last 7 days", treasury.getRevenue(nation.getNationId(), 7));
+            sendRevenue(player, "Last " + Treasury.HISTORY_DAYS + " days",
+                    treasury.getRevenue(nation.getNationId(), Treasury.HISTORY_DAYS));
+      }
+      
+      private static void sendRevenue(Player player, String period, Revenue revenue) {
+            MarketLang.MARKET_REVENUE_PERIOD.send(
+                    player,
+                    "%PERIOD%;" + period,
+                    "%TOTAL%;" + Money.format(revenue.total()),
+                    "%TAX%;" + Money.format(revenue.tax()),
+                    "%TARIFF%;" + Money.format(revenue.tariff())
+            );
+      }
 }
@@ -0,0 +1,109 @@
+package net.pixlies.business.commands.market;
+
+import co.aikar.commands.BaseCommand;
+import co.aikar.commands.annotation.*;
+import net.pixlies.business.locale.MarketLang;
+import net.pixlies.business.market.OrderBook;
+import net.pixlies.business.market.OrderItem;
+import net.pixlies.business.market.Trigger;
+import net.pixlies.business.util.SoundUtil;
+import net.pixlies.business.util.preconditions.CommandPreconditions;
+import net.pixlies.core.economy.Money;
+import net.pixlies.core.utils.TextUtils;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+/**
+ * Price alert command.
+ *
+ * @author vyketype
+ */
+@CommandAlias("pricealert|alert")
+@CommandPermission("pixlies.business.pricealert")
+@Description("Get notified when the held item trades at a price")
+public class PriceAlertCommand extends BaseCommand {
+      @Default
+      @Syntax("<price>")
+      public void onPriceAlert(Player player, String strPrice) {
+            Material mat = player.getInventory().getItemInMainHand().getType();
+            
+            // If the material is air
+            if (CommandPreconditions.isPlayerHoldingAir(player, mat))
+                  return;
+            
+            OrderItem item = OrderItem.getFromMaterial(mat);
+            
+            // If the item is not on the market
+            if (!CommandPreconditions.doesMarketItemExist(player, item))
+                  return;
+            
+            // If the price is not valid
+            if (!CommandPreconditions.isAmountValidMoney(player, strPrice))
+                  return;
+            
+            // If the player has too many alerts and stops
+            if (CommandPreconditions.isTriggerLimitReached(player))
+                  return;
+            
+            // Fires when the price moves from the last traded price to the alert
+            assert item != null;
+            long lastPrice = OrderBook.get(item).getLastPrice();
+            
+            // If there is no price to move from
+            if (lastPrice == 0) {
+                  MarketLang.TRIGGER_NEVER_TRADED.send(player);
+                  SoundUtil.error(player);
+                  return;
+            }
+            
+            long price = Money.parse(strPrice);
+            boolean above = price >= lastPrice;
+            
+            Trigger trigger = new Trigger(TextUtils.generateId(9), player.getUniqueId(), item, Trigger.Kind.ALERT,
+                    above, price, null, 0, 0, 0);
+            trigger.place();
+            
+            MarketLang.ALERT_CREATED.send(player, "%TRIGGER%;" + trigger);
+            SoundUtil.success(player);
+      }
+      
+      @Subcommand("list")
+      @Description("View your price alerts")
+      public void onPriceAlertList(Player player) {
+            List<Trigger> alerts = Trigger.getAll(player.getUniqueId());
+            alerts.removeIf(trigger -> trigger.kind() != Trigger.Kind.ALERT);
+            
+            // If there are no alerts
+            if (alerts.isEmpty()) {
+                  MarketLang.TRIGGER_LIST_EMPTY.send(player);
+                  return;
+            }
+            
+            for (Trigger trigger : alerts) {
+                  MarketLang.TRIGGER_LIST_FORMAT.send(player, "%TRIGGER%;" + trigger);
+            }
+      }
+      
+      @Subcommand("remove")
+      @Description("Remove a price alert")
+      @Syntax("<id>")
+      public void onPriceAlertRemove(Player player, String triggerId) {
+            Trigger trigger = Trigger.get(triggerId);
+            
+            // If the alert does not exist
+            if (!CommandPreconditions.doesTriggerExist(player, trigger, Trigger.Kind.ALERT))
+                  return;
+            
+            assert trigger != null;
+            if (!trigger.cancel(player)) {
+                  MarketLang.TRIGGER_DOES_NOT_EXIST.send(player);
+                  SoundUtil.error(player);
+                  return;
+            }
+            
+            MarketLang.ALERT_REMOVED.send(player, "%TRIGGER%;" + trigger);
+            SoundUtil.cancelledOrder(player);
+      }
+}
@@ -6,9 +6,13 @@ import co.aikar.commands.annotation.CommandPermission;
 import co.aikar.commands.annotation.Default;
 import co.aikar.commands.annotation.Description;
 import net.pixlies.business.locale.MarketLang;
+import net.pixlies.business.market.Candle;
+import net.pixlies.business.market.CandleStore;
+import net.pixlies.business.market.DepthSnapshot;
 import net.pixlies.business.market.OrderBook;
 import net.pixlies.business.market.OrderItem;
 import net.pixlies.business.util.preconditions.CommandPreconditions;
+import net.pixlies.core.economy.Money;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 
@@ -37,18 +41,42 @@ public class PriceCommand extends BaseCommand {
       
             assert item != null;
             OrderBook book = OrderBook.get(item);
+            DepthSnapshot depth = book.getDepth();
             
             // Send price summaries
             MarketLang.PRICE_SUMMARY.send(player, "%ITEM%;" + item.getName());
             MarketLang.PRICE_BEST_BUY.send(
                     player,
-                    "%PRICE%;" + book.getLowestBuyPrice(player.getUniqueId()),
-                    "%AMOUNT%;" + book.getBuyOrders().size()
+                    "%PRICE%;" + Money.format(book.getBestBuyPrice(player.getUniqueId())),
+                    "%AMOUNT%;" + depth.buyOrderCount()
             );
             MarketLang.PRICE_BEST_SELL.send(
                     player,
-                    "%PRICE%;" + book.getHighestSellPrice(player.getUniqueId()),
-                    "%AMOUNT%;" + book.getSellOrders().size()
+                    "%PRICE%;" + Money.format(book.getBestSellPrice(player.getUniqueId())),
+                    "%AMOUNT%;" + depth.sellOrderCount()
             );
+            if (depth.getBestBid() != null && depth.getBestAsk() != null) {
+                  MarketLang.PRICE_SPREAD.send(player, "%SPREAD%;" + Money.format(depth.getSpread()));
+            }
+            
+            // Trades of the last 24 hours
+            long since = System.currentTimeMillis() - 24 * 60 * 60 * 1000L;
+            double high = 0;
+            double low = Double.MAX_VALUE;
+            long volume = 0;
+            for (Candle candle : CandleStore.getLast(item, CandleStore.Resolution.HOUR, 24)) {
+                  if (candle.start() + CandleStore.Resolution.HOUR.getPeriod() <= since) continue;
+                  high = Math.max(high, candle.high());
+                  low = Math.min(low, candle.low());
+                  volume += candle.volume();
+            }
+            if (volume > 0) {
+                  MarketLang.PRICE_HISTORY.send(
+                          player,
+                          "%LOW%;" + Money.format(Money.of(low)),
+                          "%HIGH%;" + Money.format(Money.of(high)),
+                          "%VOLUME%;" + volume
+                  );
+            }
       }
 }
@@ -0,0 +1,157 @@
+package net.pixlies.business.commands.market;
+
+import co.aikar.commands.BaseCommand;
+import co.aikar.commands.annotation.*;
+import net.pixlies.business.locale.MarketLang;
+import net.pixlies.business.market.Order;
+import net.pixlies.business.market.OrderBook;
+import net.pixlies.business.market.OrderItem;
+import net.pixlies.business.market.Trigger;
+import net.pixlies.business.util.SoundUtil;
+import net.pixlies.business.util.preconditions.CommandPreconditions;
+import net.pixlies.core.economy.Money;
+import net.pixlies.core.utils.TextUtils;
+import net.pixlies.nations.nations.Nation;
+import net.pixlies.nations.nations.interfaces.NationProfile;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+
+/**
+ * Stop order command.
+ * A buy stop fires when the price rises to it, a sell stop when the price falls to it. Both then place a limit order,
+ * at the given limit price, or at the stop price if there is none.
+ *
+ * @author vyketype
+ */
+@CommandAlias("stoporder|stop")
+@CommandPermission("pixlies.business.stoporder")
+@Description("Place an order of the held item once its price reaches a level")
+public class StopOrderCommand extends BaseCommand {
+      @Default
+      @Syntax("<buy|sell> <amount> <stop price> [limit price]")
+      public void onStopOrder(Player player, Order.Type type, int amount, String strStop, @Optional String strLimit) {
+            // If the market is not open
+            if (!CommandPreconditions.isMarketOpen(player, MarketLang.MARKET_IS_CLOSED))
+                  return;
+            
+            // If the player is restricted from the market
+            if (CommandPreconditions.isPlayerMarketRestricted(player))
+                  return;
+            
+            Material mat = player.getInventory().getItemInMainHand().getType();
+            
+            // If the material is air
+            if (CommandPreconditions.isPlayerHoldingAir(player, mat))
+                  return;
+            
+            OrderItem item = OrderItem.getFromMaterial(mat);
+            
+            // If the item is not on the market
+            if (!CommandPreconditions.doesMarketItemExist(player, item))
+                  return;
+            
+            // If the amount or prices are not valid
+            if (amount <= 0) {
+                  MarketLang.AMOUNT_NOT_VALID.send(player);
+                  SoundUtil.error(player);
+                  return;
+            }
+            if (!CommandPreconditions.isAmountValidMoney(player, strStop))
+                  return;
+            if (strLimit != null && !CommandPreconditions.isAmountValidMoney(player, strLimit))
+                  return;
+            
+            // If the player has too many alerts and stops
+            if (CommandPreconditions.isTriggerLimitReached(player))
+                  return;
+            
+            assert item != null;
+            long stop = Money.parse(strStop);
+            long limit = strLimit == null ? stop : Money.parse(strLimit);
+            
+            // If there is no price to move from
+            long lastPrice = OrderBook.get(item).getLastPrice();
+            if (lastPrice == 0) {
+                  MarketLang.TRIGGER_NEVER_TRADED.send(player);
+                  SoundUtil.error(player);
+                  return;
+            }
+            
+            // If the price is already past the stop
+            boolean above = type == Order.Type.BUY;
+            if (above ? stop <= lastPrice : stop >= lastPrice) {
+                  MarketLang.STOP_ALREADY_CROSSED.send(player, "%PRICE%;" + Money.format(lastPrice));
+                  SoundUtil.error(player);
+                  return;
+            }
+            
+            // Take the money or items now, like any other order
+            long escrow = Money.ZERO;
+            switch (type) {
+                  case BUY -> {
+                        NationProfile profile = NationProfile.get(player.getUniqueId());
+                        Nation nation = profile.getNation();
+                        long taxedPrice = nation == null ? limit : Money.tax(limit, nation.getTaxRate());
+                        escrow = Money.multiply(taxedPrice, amount);
+                        if (!CommandPreconditions.playerHasEnoughMoney(player, escrow))
+                              return;
+                        profile.removeBalance(escrow);
+                  }
+                  case SELL -> {
+                        if (!CommandPreconditions.playerHasEnoughItems(player, item, amount))
+                              return;
+                        player.getInventory().removeItemAnySlot(new ItemStack(item.getMaterial(), amount));
+                        player.updateInventory();
+                  }
+            }
+            
+            Trigger trigger = new Trigger(TextUtils.generateId(9), player.getUniqueId(), item, Trigger.Kind.STOP,
+                    above, stop, type, amount, limit, escrow);
+            trigger.place();
+            
+            MarketLang.STOP_CREATED.send(player, "%TRIGGER%;" + trigger);
+            SoundUtil.placedOrder(player);
+      }
+      
+      @Subcommand("list")
+      @Description("View your stop orders")
+      public void onStopOrderList(Player player) {
+            List<Trigger> stops = Trigger.getAll(player.getUniqueId());
+            stops.removeIf(trigger -> trigger.kind() != Trigger.Kind.STOP);
+            
+            // If there are no stops
+            if (stops.isEmpty()) {
+                  MarketLang.TRIGGER_LIST_EMPTY.send(player);
+                  return;
+            }
+            
+            for (Trigger trigger : stops) {
+                  MarketLang.TRIGGER_LIST_FORMAT.send(player, "%TRIGGER%;" + trigger);
+            }
+      }
+      
+      @Subcommand("cancel")
+      @Description("Cancel a stop order, and get its money or items back")
+      @Syntax("<id>")
+      public void onStopOrderCancel(Player player, String triggerId) {
+            Trigger trigger = Trigger.get(triggerId);
+            
+            // If the stop does not exist
+            if (!CommandPreconditions.doesTriggerExist(player, trigger, Trigger.Kind.STOP))
+                  return;
+            
+            // It might have fired in the meantime
+            assert trigger != null;
+            if (!trigger.cancel(player)) {
+                  MarketLang.TRIGGER_DOES_NOT_EXIST.send(player);
+                  SoundUtil.error(player);
+                  return;
+            }
+            
+            MarketLang.STOP_CANCELLED.send(player, "%TRIGGER%;" + trigger);
+            SoundUtil.cancelledOrder(player);
+      }
+}
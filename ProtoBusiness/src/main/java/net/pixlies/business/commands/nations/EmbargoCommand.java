@@ -6,7 +6,6 @@ import co.aikar.commands.annotation.*;
 import net.pixlies.business.ProtoBusinesss;
 import net.pixlies.business.locale.MarketLang;
 import net.pixlies.business.market.Embargo;
-import net.pixlies.business.threads.EmbargoExpirationThread;
 import net.pixlies.business.util.preconditions.CommandPreconditions;
 import net.pixlies.core.utils.TextUtils;
 import net.pixlies.nations.nations.Nation;
@@ -52,8 +51,10 @@ public class EmbargoCommand extends BaseCommand {
             
             String targetId = Objects.requireNonNull(Nation.getFromName(args[0])).getNationId();
             int duration = args.length > 1 ? CommandPreconditions.getValidDuration(player, args[1]) : -1;
-            Embargo embargo = new Embargo(TextUtils.generateId(9), nationProfile.getNationId(), targetId, duration);
+            long expiresAt = duration == -1 ? -1 : System.currentTimeMillis() + duration * 3600000L;
+            Embargo embargo = new Embargo(TextUtils.generateId(9), nationProfile.getNationId(), targetId, expiresAt);
             embargo.save();
+            instance.getEmbargoExpirationThread().schedule(embargo);
             
             String strDuration = duration == -1 ? "(no expiration)" : duration + "h";
             
@@ -74,10 +75,6 @@ public class EmbargoCommand extends BaseCommand {
                           "%DURATION%;" + strDuration
                   );
             }
-            
-            if (duration != -1) {
-                  EmbargoExpirationThread.EMBARGO_EXPIRATIONS.put(embargo.embargoId(), embargo.duration() * 60);
-            }
       }
       
       @Subcommand("remove")
@@ -89,14 +86,13 @@ public class EmbargoCommand extends BaseCommand {
             if (!CommandPreconditions.embargoRemove(player, targetNation))
                   return;
             
-            String embargoId = Embargo.getEmbargoId(nationProfile.getNation().getName(), targetNation);
-            Embargo embargo = Embargo.get(embargoId);
+            String targetId = Objects.requireNonNull(Nation.getFromName(targetNation)).getNationId();
+            Embargo embargo = Objects.requireNonNull(Embargo.get(nationProfile.getNationId(), targetId));
             
             if (!CommandPreconditions.isEmbargoDeleteSuccessful(player, embargo))
                   return;
             
             embargo.sendDeletionMessages();
-            EmbargoExpirationThread.EMBARGO_EXPIRATIONS.remove(embargoId);
       }
       
       @Default
@@ -148,8 +148,7 @@ public class TariffCommand extends BaseCommand {
             String initId = nationProfile.getNationId();
             String targetId = Objects.requireNonNull(Nation.getFromName(targetNation)).getNationId();
             
-            String tariffId = Tariff.getTariffId(nationProfile.getNation().getName(), targetNation);
-            Tariff tariff = Tariff.get(tariffId);
+            Tariff tariff = Objects.requireNonNull(Tariff.get(initId, targetId));
             
             // If the program successfully removed the tariff
             if (!CommandPreconditions.isTariffDeleteSuccessful(player, tariff))
@@ -181,13 +180,14 @@ public class TariffCommand extends BaseCommand {
       
       private void showGlobalListPage(Player player, int page) {
             // Each page will have 7 entries
-            int size = Tariff.getAll().size();
+            List<Tariff> tariffs = Tariff.getAll();
+            int size = tariffs.size();
             int pages = (int) Math.ceil(size / 7.0);
             int limit = Math.min(7 * page, size);
       
             MarketLang.TARIFF_GLOBAL.send(player);
             for (int i = (page - 1) * 7 + 1; i <= limit; i++) {
-                  Tariff tariff = Tariff.getAll().get(i - 1);
+                  Tariff tariff = tariffs.get(i - 1);
                   String from = Objects.requireNonNull(Nation.getFromId(tariff.getInitId())).getName();
                   String to = Objects.requireNonNull(Nation.getFromId(tariff.getTargetId())).getName();
                   MarketLang.TARIFF_GLOBAL_FORMAT.send(
@@ -6,6 +6,7 @@ import net.pixlies.business.market.Order;
 import net.pixlies.business.market.OrderItem;
 import net.pixlies.business.util.MarketUtil;
 import net.pixlies.business.util.preconditions.ConversationPreconditions;
+import net.pixlies.core.economy.Money;
 import org.bukkit.Bukkit;
 import org.bukkit.conversations.ConversationContext;
 import org.bukkit.conversations.NumericPrompt;
@@ -30,14 +31,15 @@ public class CustomPricePrompt extends NumericPrompt {
             if (!ConversationPreconditions.isPositiveDouble(player, input))
                   return Prompt.END_OF_CONVERSATION;
             
-            double totalPrice = MarketUtil.getTaxedPrice(uuid, input.doubleValue()) * amount;
+            long price = Money.of(input.doubleValue());
+            long totalPrice = Money.multiply(MarketUtil.getTaxedPrice(uuid, price), amount);
             
             // If the player does not have enough money
             if (!ConversationPreconditions.playerHasEnoughMoney(player, totalPrice))
                   return Prompt.END_OF_CONVERSATION;
       
-            MarketLang.ENTERED_A_PRICE.send(player, "%PRICE%;" + input.doubleValue());
-            OrderConfirmGUI.open(uuid, type, item, amount, input.doubleValue());
+            MarketLang.ENTERED_A_PRICE.send(player, "%PRICE%;" + Money.format(price));
+            OrderConfirmGUI.open(uuid, type, item, amount, price);
             return Prompt.END_OF_CONVERSATION;
       }
       
@@ -9,12 +9,14 @@ import net.pixlies.business.locale.MarketLang;
 import net.pixlies.business.market.Order;
 import net.pixlies.business.market.OrderBook;
 import net.pixlies.business.market.MarketProfile;
+import net.pixlies.business.market.MarketThrottle;
 import net.pixlies.business.util.SoundUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.Objects;
 import java.util.UUID;
 
 public class OrderCancelGUI {
@@ -35,16 +37,33 @@ public class OrderCancelGUI {
       
             GuiItem cancel = new GuiItem(MarketGUIItems.getCancelOrderButton(order));
             cancel.setAction(event -> {
+                  // If the player or their nation is cancelling orders too fast
+                  MarketThrottle.Result result = MarketThrottle.admit(player, false);
+                  if (result != MarketThrottle.Result.ADMITTED) {
+                        player.closeInventory();
+                        Objects.requireNonNull(result.getMessage()).send(player);
+                        SoundUtil.error(player);
+                        return;
+                  }
+                  
                   OrderBook book = OrderBook.get(order.getBookItem());
-                  book.remove(order);
+                  int remaining = order.cancel();
+                  
+                  // Filled or expired since the GUI was opened, there is nothing left to cancel
+                  if (remaining == 0) {
+                        SoundUtil.error(player);
+                        MarketLang.ORDER_ALREADY_SETTLED.send(player, "%AMOUNT%;" + order.getAmount(),
+                                "%ITEM%;" + book.getItem().getName());
+                        OrdersListGUI.open(uuid);
+                        return;
+                  }
       
                   SoundUtil.cancelledOrder(player);
                   MarketLang.ORDER_CANCELLED.send(player, "%AMOUNT%;" + order.getAmount(),
                           "%ITEM%;" + book.getItem().getName());
       
-                  order.cancel();
                   player.closeInventory();
-                  MarketProfile.get(uuid).refundGoods(order);
+                  MarketProfile.get(uuid).refundGoods(order, remaining);
             });
             cancelPane.addItem(cancel, 0, 0);
       
@@ -6,6 +6,7 @@ import com.github.stefvanschie.inventoryframework.pane.Pane;
 import com.github.stefvanschie.inventoryframework.pane.StaticPane;
 import net.pixlies.business.guis.items.MarketGUIItems;
 import net.pixlies.business.locale.MarketLang;
+import net.pixlies.business.market.MarketThrottle;
 import net.pixlies.business.market.Order;
 import net.pixlies.business.market.OrderBook;
 import net.pixlies.business.market.OrderItem;
@@ -16,10 +17,12 @@ import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class OrderConfirmGUI {
-      public static void open(UUID uuid, Order.Type type, OrderItem item, int amount, double price) {
+      public static void open(UUID uuid, Order.Type type, OrderItem item, int amount, long price) {
             Player player = Bukkit.getPlayer(uuid);
             assert player != null;
       
@@ -47,27 +50,41 @@ public class OrderConfirmGUI {
       
             GuiItem confirm = new GuiItem(MarketGUIItems.getConfirmOrderButton(order, tax));
             confirm.setAction(event -> {
+                  player.closeInventory();
+                  
+                  // If the player, their nation or the whole market is placing orders too fast
+                  MarketThrottle.Result result = MarketThrottle.admit(player, true);
+                  if (result != MarketThrottle.Result.ADMITTED) {
+                        Objects.requireNonNull(result.getMessage()).send(player);
+                        SoundUtil.error(player);
+                        return;
+                  }
+                  
                   // Item and money actions
-                  switch (order.getType()) {
+                  CompletableFuture<Order> placed = switch (order.getType()) {
                         case BUY -> {
-                              profile.removeBalance(order.getTaxedPrice() * order.getAmount());
-                              profile.save();
-                              book.buy(order);
+                              profile.removeBalance(order.escrow());
+                              yield MarketThrottle.place(() -> book.buy(order));
                         }
                         case SELL -> {
                               player.getInventory().removeItemAnySlot(new ItemStack(item.getMaterial(), amount));
                               player.updateInventory();
-                              book.sell(order);
+                              yield MarketThrottle.place(() -> book.sell(order));
                         }
-                  }
-                  
-                  // Message and sound
-                  MarketLang.NEW_ORDER_CREATED.send(player, "%ORDER%;" + order.toString());
-                  SoundUtil.placedOrder(player);
+                  };
                   
-                  player.closeInventory();
+                  // Message and sound once the order is matched, back on the main thread
+                  placed.thenAccept(placedOrder -> {
+                        if (!player.isOnline()) return;
+                        MarketLang.NEW_ORDER_CREATED.send(player, "%ORDER%;" + placedOrder.toString());
+                        SoundUtil.placedOrder(player);
+                  });
             });
             confirmPane.addItem(confirm, 0, 0);
+            
+            // Time in force pane
+            StaticPane timePane = new StaticPane(6, 1, 1, 1);
+            addTimeInForceButton(gui, timePane, order);
       
             // Bottom pane
             StaticPane bottomPane = new StaticPane(4, 3, 1, 1);
@@ -82,10 +99,22 @@ public class OrderConfirmGUI {
             // Add panes
             gui.addPane(background);
             gui.addPane(confirmPane);
+            gui.addPane(timePane);
             gui.addPane(bottomPane);
       
             // Show GUI
             gui.show(player);
             gui.update();
       }
+      
+      // Each click moves to the next time in force
+      private static void addTimeInForceButton(ChestGui gui, StaticPane pane, Order order) {
+            GuiItem button = new GuiItem(MarketGUIItems.getTimeInForceButton(order));
+            button.setAction(event -> {
+                  order.setTimeInForce(order.getTimeInForce().next());
+                  addTimeInForceButton(gui, pane, order);
+                  gui.update();
+            });
+            pane.addItem(button, 0, 0);
+      }
 }
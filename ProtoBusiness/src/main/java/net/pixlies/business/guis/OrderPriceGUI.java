@@ -8,9 +8,11 @@ import net.pixlies.business.ProtoBusinesss;
 import net.pixlies.business.conversations.CustomPricePrompt;
 import net.pixlies.business.guis.items.MarketGUIItems;
 import net.pixlies.business.locale.MarketLang;
+import net.pixlies.business.market.DepthSnapshot;
 import net.pixlies.business.market.Order;
 import net.pixlies.business.market.OrderBook;
 import net.pixlies.business.market.OrderItem;
+import net.pixlies.business.util.MarketUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.conversations.Conversation;
@@ -44,8 +46,9 @@ public class OrderPriceGUI {
             // Prices pane
             StaticPane pricesPane = new StaticPane(2, 1, 5, 1);
       
-            boolean emptyBuyCondition = type == Order.Type.BUY && book.getBuyOrders().isEmpty();
-            boolean emptySellCondition = type == Order.Type.SELL && book.getSellOrders().isEmpty();
+            DepthSnapshot depth = book.getDepth();
+            boolean emptyBuyCondition = type == Order.Type.BUY && depth.buyOrderCount() == 0;
+            boolean emptySellCondition = type == Order.Type.SELL && depth.sellOrderCount() == 0;
       
             // Custom price item
             GuiItem customPrice = new GuiItem(MarketGUIItems.getCustomPriceButton());
@@ -74,10 +77,10 @@ public class OrderPriceGUI {
                   // Market price item
                   GuiItem marketPrice = new GuiItem(MarketGUIItems.getBestPriceButton(uuid, item, type, amount));
                   marketPrice.setAction(event -> {
-                        double price = 0;
+                        long price = 0;
                         switch (type) {
-                              case BUY -> price = book.getLowestBuyPrice(uuid);
-                              case SELL -> price = book.getHighestSellPrice(uuid);
+                              case BUY -> price = book.getBestBuyPrice(uuid);
+                              case SELL -> price = book.getBestSellPrice(uuid);
                         }
                         OrderConfirmGUI.open(uuid, type, item, amount, price);
                   });
@@ -86,10 +89,10 @@ public class OrderPriceGUI {
                   // Optimal price item
                   GuiItem changedPrice = new GuiItem(MarketGUIItems.getChangedPriceButton(uuid, item, type, amount));
                   changedPrice.setAction(event -> {
-                        double price = 0;
+                        long price = 0;
                         switch (type) {
-                              case BUY -> price = book.getLowestBuyPrice(uuid) + 0.1;
-                              case SELL -> price = book.getHighestSellPrice(uuid) - 0.1;
+                              case BUY -> price = book.getBestBuyPrice(uuid) + MarketUtil.PRICE_STEP;
+                              case SELL -> price = book.getBestSellPrice(uuid) - MarketUtil.PRICE_STEP;
                         }
                         OrderConfirmGUI.open(uuid, type, item, amount, price);
                   });
@@ -59,7 +59,7 @@ public class OrdersListGUI {
                   Material material = OrderBook.get(order.getBookItem()).getItem().getMaterial();
                   GuiItem item = new GuiItem(MarketGUIItems.getOrderItem(material, order));
                   item.setAction(event -> {
-                        if (order.isCancellable()) {
+                        if (order.getVolume() > 0 && order.isCancellable()) {
                               OrderCancelGUI.open(uuid, order);
                         } else {
                               MarketProfile.get(uuid).claimGoods(order);
@@ -6,7 +6,9 @@ import net.pixlies.business.market.Order;
 import net.pixlies.business.market.OrderBook;
 import net.pixlies.business.market.OrderItem;
 import net.pixlies.business.market.MarketProfile;
+import net.pixlies.business.market.MarketStats;
 import net.pixlies.business.util.MarketUtil;
+import net.pixlies.core.economy.Money;
 import net.pixlies.core.utils.ItemBuilder;
 import net.pixlies.core.utils.PlayerUtils;
 import org.bukkit.Material;
@@ -55,8 +57,8 @@ public final class MarketGUIItems {
                 .addLoreLine("§7Sell orders made: §b" + profile.getSellOrdersMade())
                 .addLoreLine("§7Trades made: §a" + profile.getTradesMade())
                 .addLoreLine(" ")
-                .addLoreLine("§7Money spent: §6" + profile.getMoneySpent() + " coins")
-                .addLoreLine("§7Money gained: §6" + profile.getMoneyGained() + " coins")
+                .addLoreLine("§7Money spent: §6" + Money.format(profile.getMoneySpent()) + " coins")
+                .addLoreLine("§7Money gained: §6" + Money.format(profile.getMoneyGained()) + " coins")
                 .addLoreLine("§7Items sold: §d" + profile.getMoneySpent() + " items")
                 .addLoreLine("§7Items bought: §d" + profile.getMoneyGained() + " items")
                 .addLoreLine(" ")
@@ -70,15 +72,16 @@ public final class MarketGUIItems {
     }
     
     public static ItemStack getMarketStats() {
+        MarketStats.Counters stats = MarketStats.get(null);
         return new ItemBuilder(new ItemStack(Material.EMERALD))
                 .setDisplayName("§aMarket Statistics")
                 .addLoreLine(" ")
-                .addLoreLine("§7Buy orders made: §b" + instance.getStats().get("market.buyOrders", 0))
-                .addLoreLine("§7Sell orders made: §b" + instance.getStats().get("market.sellOrders", 0))
-                .addLoreLine("§7Trades made: §a" + instance.getStats().get("market.trades", 0))
+                .addLoreLine("§7Buy orders made: §b" + stats.getBuyOrders())
+                .addLoreLine("§7Sell orders made: §b" + stats.getSellOrders())
+                .addLoreLine("§7Trades made: §a" + stats.getTrades())
                 .addLoreLine(" ")
-                .addLoreLine("§7Money traded: §6" + instance.getStats().get("market.moneyTraded", 0) + " coins")
-                .addLoreLine("§7Items traded: §d" + instance.getStats().get("market.itemsTraded", 0) + " items")
+                .addLoreLine("§7Money traded: §6" + Money.format(stats.getMoneyTraded()) + " coins")
+                .addLoreLine("§7Items traded: §d" + stats.getItemsTraded() + " items")
                 .addLoreLine(" ")
                 /*
                 .addLoreLine("§7Item most sold: §3" + a)
@@ -100,7 +103,7 @@ public final class MarketGUIItems {
         // Check if there are any goods to claim
         boolean goods = false;
         for (Order order : orders) {
-            if (!order.isCancellable()) {
+            if (order.hasGoodsToClaim()) {
                 goods = true;
                 break;
             }
@@ -152,7 +155,14 @@ public final class MarketGUIItems {
                 .setDisplayName((type == Order.Type.BUY ? "§a§lBUY" : "§6§lSELL") + "§r§7: §b" +
                                 order.getAmount() + "§8x §f" + name)
                 .addLoreLine(" ")
-                .addLoreLine("§7Price per unit: §8" + maxOrMin + " §6" + order.getPrice() + " coins");
+                .addLoreLine("§7Price per unit: §8" + maxOrMin + " §6" + Money.format(order.getPrice()) + " coins");
+        
+        // Expiration
+        if (order.isExpired()) {
+            builder.addLoreLine("§cExpired");
+        } else if (order.expires() && order.getVolume() > 0) {
+            builder.addLoreLine("§7Expires in: §f" + getHoursLeft(order) + "h");
+        }
         
         // Percentage of the order that is filled
         if (order.getVolume() != order.getAmount()) {
@@ -166,11 +176,11 @@ public final class MarketGUIItems {
         }
         
         // Price with sales taxes
-        builder.addLoreLine("§3Total price: §8" + maxOrMin + " §6" + order.getTaxedPrice() * order.getAmount() + " coins")
+        builder.addLoreLine("§3Total price: §8" + maxOrMin + " §6" + Money.format(Money.multiply(order.getTaxedPrice(), order.getAmount())) + " coins")
                 .addLoreLine(" ");
         
         // If there are no trades, build the ItemStack and return
-        if (order.getTrades().size() == 0) {
+        if (order.getTrades().size() == 0 && !order.hasGoodsToClaim()) {
             return builder.addLoreLine("§eClick to view more options!").build();
         }
     
@@ -180,10 +190,10 @@ public final class MarketGUIItems {
         
         // Refunds
         builder.addLoreLine(" ")
-                .addLoreLine("§8Refunded: §6" + order.getTotalRefunds() + " coins");
+                .addLoreLine("§8Refunded: §6" + Money.format(order.getTotalRefunds()) + " coins");
         
         // Cancel order
-        if (order.isCancellable()) {
+        if (order.getVolume() > 0 && order.isCancellable()) {
             return builder.addLoreLine(" ")
                     .addLoreLine("§cClick to cancel!")
                     .build();
@@ -193,10 +203,16 @@ public final class MarketGUIItems {
         if (type == Order.Type.BUY) {
             builder.addLoreLine(" ")
                     .addLoreLine("§aYou have §2" + order.getItemsToClaim() + " items §ato claim!");
+            if (order.isExpired() && order.getRefundableCoins() != 0) {
+                builder.addLoreLine("§eYou have §6" + Money.format(order.getRefundableCoins()) + " coins §eto claim!");
+            }
         } else {
-            double coinsToClaim = order.getCoinsToClaim();
+            long coinsToClaim = order.getCoinsToClaim();
             builder.addLoreLine(" ")
-                    .addLoreLine("§eYou have §6" + coinsToClaim + " coins §eto claim!");
+                    .addLoreLine("§eYou have §6" + Money.format(coinsToClaim) + " coins §eto claim!");
+            if (order.getExpiredVolume() != 0) {
+                builder.addLoreLine("§aYou have §2" + order.getExpiredVolume() + " items §ato claim back!");
+            }
         }
         
         return builder.addLoreLine(" ")
@@ -215,7 +231,7 @@ public final class MarketGUIItems {
         // Give back non-accounted-for items
         switch (order.getType()) {
             case BUY -> builder.addLoreLine("§7You will be refunded §6" +
-                    (order.getVolume() * order.getTaxedPrice()) + " coins§7.");
+                    Money.format(Money.multiply(order.getEscrowPrice(), order.getVolume())) + " coins§7.");
             case SELL -> builder.addLoreLine("§7You will be refunded §a" +
                     order.getVolume() + "§8x §f" + itemName + "§7.");
         }
@@ -233,14 +249,14 @@ public final class MarketGUIItems {
                         "§aConfirm order §8(§6§lSELL§r§8)")
                 .addLoreLine("§b" + order.getAmount() + "§8x §f" + item.getName())
                 .addLoreLine(" ")
-                .addLoreLine("§7Price per unit: §6" + order.getPrice() + " coins");
+                .addLoreLine("§7Price per unit: §6" + Money.format(order.getPrice()) + " coins");
         
         // Taxes
         if (order.getType() == Order.Type.BUY) {
             builder.addLoreLine("§7Tax: §c" + (tax * 100) + "%")
-                    .addLoreLine("§3Max. total price: §6" + order.getTaxedPrice() * order.getAmount() + " coins");
+                    .addLoreLine("§3Max. total price: §6" + Money.format(Money.multiply(order.getTaxedPrice(), order.getAmount())) + " coins");
         } else {
-            builder.addLoreLine("§3Max. total price: §6" + order.getPrice() * order.getAmount() + " coins");
+            builder.addLoreLine("§3Max. total price: §6" + Money.format(Money.multiply(order.getPrice(), order.getAmount())) + " coins");
         }
 
         return builder.addLoreLine(" ")
@@ -249,11 +265,26 @@ public final class MarketGUIItems {
                 .build();
     }
     
+    public static ItemStack getTimeInForceButton(Order order) {
+        ItemBuilder builder = new ItemBuilder(new ItemStack(Material.CLOCK))
+                .setDisplayName("§bTime in force")
+                .addLoreLine(" ")
+                .addLoreLine("§7Stays in the book: §f" + order.getTimeInForce().getName());
+        
+        if (order.expires()) {
+            builder.addLoreLine("§7Expires in: §f" + getHoursLeft(order) + "h");
+        }
+        
+        return builder.addLoreLine(" ")
+                .addLoreLine("§eClick to change!")
+                .build();
+    }
+    
     public static ItemStack getBuyButton(UUID playerUUID, OrderItem item) {
         OrderBook book = OrderBook.get(item);
         ItemBuilder builder = new ItemBuilder(new ItemStack(Material.EMERALD))
                 .setDisplayName("§aBuy Order")
-                .addLoreLine("§7Best price per unit: §6" + book.getLowestBuyPrice(playerUUID) + " coins")
+                .addLoreLine("§7Best price per unit: §6" + Money.format(book.getBestBuyPrice(playerUUID)) + " coins")
                 .addLoreLine(" ");
         
         // Get 8 most recent orders
@@ -272,9 +303,9 @@ public final class MarketGUIItems {
         OrderBook book = OrderBook.get(item);
         ItemBuilder builder = new ItemBuilder(new ItemStack(Material.GOLD_INGOT))
                 .setDisplayName("§6Sell Order")
-                .addLoreLine("§7Best price per unit: §6" + book.getHighestSellPrice(playerUUID) + " coins")
+                .addLoreLine("§7Best price per unit: §6" + Money.format(book.getBestSellPrice(playerUUID)) + " coins")
                 .addLoreLine("§7Inventory: §a" + num + " items")
-                .addLoreLine("§7Best total price: §d" + (book.getHighestSellPrice(playerUUID) * num) + " coins")
+                .addLoreLine("§7Best total price: §d" + Money.format(Money.multiply(book.getBestSellPrice(playerUUID), num)) + " coins")
                 .addLoreLine(" ");
     
         // Get 8 most recent orders
@@ -291,16 +322,13 @@ public final class MarketGUIItems {
     
     public static ItemStack getBestPriceButton(UUID playerUUID, OrderItem item, Order.Type type, int amount) {
         OrderBook book = OrderBook.get(item);
+        long price = type == Order.Type.BUY ? book.getBestBuyPrice(playerUUID) : book.getBestSellPrice(playerUUID);
         return new ItemBuilder(new ItemStack(item.getMaterial()))
                 .setDisplayName("§eBest current price")
-                .addLoreLine(type == Order.Type.BUY ?
-                        "§7Price: §6" + book.getLowestBuyPrice(playerUUID) + " coins" :
-                        "§7Price: §6" + book.getHighestSellPrice(playerUUID) + " coins")
+                .addLoreLine("§7Price: §6" + Money.format(price) + " coins")
                 .addLoreLine(" ")
                 .addLoreLine(type == Order.Type.BUY ? "§7Buying: §a" + amount + "§8x" : "§7Selling: §a" + amount + "§8x")
-                .addLoreLine(type == Order.Type.BUY ?
-                        "§3Total price: §6" + (book.getLowestBuyPrice(playerUUID) * amount) + " coins" :
-                        "§3Total price: §6" + (book.getHighestSellPrice(playerUUID) * amount) + " coins")
+                .addLoreLine("§3Total price: §6" + Money.format(Money.multiply(price, amount)) + " coins")
                 .addLoreLine(" ")
                 .addLoreLine("§eClick to set!")
                 .build();
@@ -308,18 +336,18 @@ public final class MarketGUIItems {
     
     public static ItemStack getChangedPriceButton(UUID playerUUID, OrderItem item, Order.Type type, int amount) {
         OrderBook book = OrderBook.get(item);
+        long price = type == Order.Type.BUY ?
+                book.getBestBuyPrice(playerUUID) + MarketUtil.PRICE_STEP :
+                book.getBestSellPrice(playerUUID) - MarketUtil.PRICE_STEP;
+        String step = Money.format(MarketUtil.PRICE_STEP);
         return new ItemBuilder(new ItemStack(Material.GOLD_NUGGET))
                 .setDisplayName(type == Order.Type.BUY ?
-                        "§eBest current price +0.1" :
-                        "§eBest current price -0.1")
-                .addLoreLine(type == Order.Type.BUY ?
-                        "§7Price: §6" + (book.getLowestBuyPrice(playerUUID) + 0.1) + " coins" :
-                        "§7Price: §6" + (book.getHighestSellPrice(playerUUID) - 0.1) + " coins")
+                        "§eBest current price +" + step :
+                        "§eBest current price -" + step)
+                .addLoreLine("§7Price: §6" + Money.format(price) + " coins")
                 .addLoreLine(" ")
                 .addLoreLine(type == Order.Type.BUY ? "§7Buying: §a" + amount + "§8x" : "§7Selling: §a" + amount + "§8x")
-                .addLoreLine(type == Order.Type.BUY ?
-                        "§3Total price: §6" + ((book.getLowestBuyPrice(playerUUID) + 0.1) * amount) + " coins" :
-                        "§3Total price: §6" + ((book.getHighestSellPrice(playerUUID) - 0.1) * amount) + " coins")
+                .addLoreLine("§3Total price: §6" + Money.format(Money.multiply(price, amount)) + " coins")
                 .addLoreLine(" ")
                 .addLoreLine("§eClick to set!")
                 .build();
@@ -334,4 +362,9 @@ public final class MarketGUIItems {
                 .addLoreLine("§eClick to set!")
                 .build();
     }
+    
+    private static long getHoursLeft(Order order) {
+        long millis = order.getExpiresAt() - System.currentTimeMillis();
+        return Math.max(1, (millis + 3599999) / 3600000);
+    }
 }
@@ -7,6 +7,7 @@ import net.pixlies.business.guis.OrderItemGUI;
 import net.pixlies.business.guis.items.MarketGUIItems;
 import net.pixlies.business.market.OrderBook;
 import net.pixlies.business.market.OrderItem;
+import net.pixlies.core.economy.Money;
 import net.pixlies.core.utils.ItemBuilder;
 import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
@@ -46,8 +47,8 @@ public class MarketPane extends StaticPane {
             assert book != null;
             ItemBuilder builder = new ItemBuilder(item.getMaterial())
                     .setDisplayName(page.getColor() + item.getName())
-                    .addLoreLine("§7Lowest buy offer: §6" + book.getLowestBuyPrice(uuid) + " coins")
-                    .addLoreLine("§7Highest sell offer: §6" + book.getHighestSellPrice(uuid) + " coins")
+                    .addLoreLine("§7Best buy offer: §6" + Money.format(book.getBestBuyPrice(uuid)) + " coins")
+                    .addLoreLine("§7Best sell offer: §6" + Money.format(book.getBestSellPrice(uuid)) + " coins")
                     .addLoreLine(" ")
                     .addLoreLine("§eClick to buy or sell!");
             GuiItem guiItem = new GuiItem(builder.build());
@@ -5,6 +5,7 @@ import lombok.Getter;
 import net.pixlies.business.listeners.impl.InventoryClickListener;
 import net.pixlies.business.listeners.impl.InventoryCloseListener;
 import net.pixlies.business.listeners.impl.JoinNotifyListener;
+import net.pixlies.business.listeners.impl.NationChangeListener;
 import net.pixlies.core.Main;
 import org.bukkit.event.Listener;
 
@@ -15,7 +16,8 @@ public class ListenerManager {
     private final ImmutableList<Listener> listeners = ImmutableList.of(
             new JoinNotifyListener(),
             new InventoryClickListener(),
-            new InventoryCloseListener()
+            new InventoryCloseListener(),
+            new NationChangeListener()
     );
     
     public void registerAllListeners() {
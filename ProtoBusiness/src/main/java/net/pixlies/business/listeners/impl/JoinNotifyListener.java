@@ -2,21 +2,33 @@ package net.pixlies.business.listeners.impl;
 
 import net.pixlies.business.ProtoBusinesss;
 import net.pixlies.business.locale.MarketLang;
+import net.pixlies.business.market.MarketNotifier;
 import net.pixlies.business.market.MarketProfile;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 
 public class JoinNotifyListener implements Listener {
     private static final ProtoBusinesss instance = ProtoBusinesss.getInstance();
     
+    // Read from the database before the player joins, instead of on the main thread
+    @EventHandler
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+        MarketProfile.get(event.getUniqueId());
+    }
+    
     @EventHandler
     public void onJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
         instance.getServer().getScheduler().runTaskLater(
                 instance,
-                () -> MarketLang.MARKET_LOGON.send(player),
+                () -> {
+                    MarketLang.MARKET_LOGON.send(player);
+                    if (player.isOnline()) MarketNotifier.sendInbox(player);
+                },
                 3 * 20L
         );
         MarketProfile profile = MarketProfile.get(player.getUniqueId());
@@ -0,0 +1,14 @@
+package net.pixlies.business.listeners.impl;
+
+import net.pixlies.business.market.TradeFilter;
+import net.pixlies.nations.events.impl.PlayerNationChangeEvent;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+
+public class NationChangeListener implements Listener {
+      // Might be called off the main thread
+      @EventHandler
+      public void onNationChange(PlayerNationChangeEvent event) {
+            TradeFilter.setNation(event.getUuid(), event.getNationId());
+      }
+}
@@ -26,11 +26,15 @@ public enum MarketLang {
     MARKET_PLAYER_STATISTICS_RESET(MarketLang.MARKET),
     NEW_ORDER_CREATED(MarketLang.MARKET),
     ORDER_CANCELLED(MarketLang.MARKET),
+    ORDER_ALREADY_SETTLED(MarketLang.MARKET),
     ORDER_ITEMS_REFUNDED(MarketLang.MARKET),
     ORDER_COINS_REFUNDED(MarketLang.MARKET),
+    ORDER_FILLED_BUY(MarketLang.MARKET),
+    ORDER_FILLED_SELL(MarketLang.MARKET),
     ORDER_ITEMS_CLAIMED(MarketLang.MARKET),
     ORDER_COINS_CLAIMED(MarketLang.MARKET),
     ORDER_UNUSED_COINS_REFUNDED(MarketLang.MARKET),
+    ORDER_EXPIRED(MarketLang.MARKET),
     MARKET_NOT_A_VALID_PRICE(MarketLang.MARKET),
     MARKET_NOT_A_VALID_AMOUNT(MarketLang.MARKET),
     MARKET_NOT_ENOUGH_ITEMS(MarketLang.MARKET),
@@ -41,11 +45,35 @@ public enum MarketLang {
     MARKET_PLAYER_IS_RESTRICTED(MarketLang.MARKET),
     ITEM_NOT_ON_MARKET(MarketLang.MARKET),
     MARKET_NOTIFICATION(MarketLang.MARKET),
+    MARKET_THROTTLED_PLAYER(MarketLang.MARKET),
+    MARKET_THROTTLED_NATION(MarketLang.MARKET),
+    MARKET_OVERLOADED(MarketLang.MARKET),
+    MARKET_THROTTLE_STATS(MarketLang.MARKET),
+    MARKET_THROTTLE_IN_FLIGHT(""),
+    MARKET_THROTTLE_WAITING(""),
+    MARKET_THROTTLE_COUNTS(""),
+    MARKET_THROTTLE_PLAYER(""),
+    MARKET_INBOX(MarketLang.MARKET),
     MARKET_LOGON(MarketLang.MARKET),
     PRICE_SUMMARY(MarketLang.MARKET),
     PRICE_BEST_BUY(""),
     PRICE_BEST_SELL(""),
+    PRICE_HISTORY(""),
+    PRICE_SPREAD(""),
     PRICE_NOT_HOLDING_AN_ITEM(MarketLang.MARKET),
+    ALERT_CREATED(MarketLang.MARKET),
+    ALERT_TRIGGERED(MarketLang.MARKET),
+    ALERT_REMOVED(MarketLang.MARKET),
+    STOP_CREATED(MarketLang.MARKET),
+    STOP_TRIGGERED(MarketLang.MARKET),
+    STOP_CANCELLED(MarketLang.MARKET),
+    STOP_ALREADY_CROSSED(MarketLang.MARKET),
+    STOP_DROPPED(MarketLang.MARKET),
+    TRIGGER_NEVER_TRADED(MarketLang.MARKET),
+    TRIGGER_LIST_EMPTY(MarketLang.MARKET),
+    TRIGGER_LIST_FORMAT(""),
+    TRIGGER_DOES_NOT_EXIST(MarketLang.MARKET),
+    TRIGGER_LIMIT_REACHED(MarketLang.MARKET),
     
     ENTER_AN_AMOUNT(MarketLang.MARKET),
     ENTER_A_CUSTOM_PRICE(MarketLang.MARKET),
@@ -112,6 +140,11 @@ public enum MarketLang {
     MARKET_MONEY_GAINED(MarketLang.MARKET),
     MARKET_SOLD(MarketLang.MARKET),
     MARKET_BOUGHT(MarketLang.MARKET),
+    MARKET_GLOBAL_STATS(MarketLang.MARKET),
+    MARKET_MONEY_TRADED(MarketLang.MARKET),
+    MARKET_ITEMS_TRADED(MarketLang.MARKET),
+    MARKET_NATION_REVENUE(NationsLang.NATION),
+    MARKET_REVENUE_PERIOD(""),
    
     PAGE_INDEX(Lang.PIXLIES),
     PAGE_DOES_NOT_EXIST(Lang.PIXLIES),
@@ -120,7 +153,7 @@ public enum MarketLang {
     BALANCE(Lang.PIXLIES),
     BALTOP_HEADER(Lang.PIXLIES),
     BALTOP_NATIONS_HEADER(Lang.PIXLIES),
-    BALTOP_LAST_UPDATED(Lang.PIXLIES),
+    BALTOP_YOUR_RANK(Lang.PIXLIES),
     BALTOP_FORMAT(""),
     BALANCE_ADDED_SENDER(Lang.PIXLIES),
     BALANCE_ADDED_TARGET(Lang.PIXLIES),
@@ -130,6 +163,7 @@ public enum MarketLang {
     BALANCE_REMOVED_TARGET(Lang.PIXLIES),
     
     GENERAL_NOT_ENOUGH_MONEY(Lang.PIXLIES),
+    AMOUNT_NOT_VALID(Lang.PIXLIES),
     MARKET_NOT_ENOUGH_MONEY(MarketLang.MARKET),
     
     GOLD_STANDARD(MarketLang.MARKET),
@@ -0,0 +1,13 @@
+package net.pixlies.business.market;
+
+/**
+ * Open, high, low and close prices, and volume of the trades of one item during one period.
+ *
+ * @param start the start of the period in milliseconds
+ * @param volume the amount of items traded
+ * @author vyketype
+ */
+public record Candle(long start, double open, double high, double low, double close, long volume) {
+    // Size of a candle on disk
+    public static final int BYTES = Long.BYTES * 2 + Double.BYTES * 4;
+}
@@ -0,0 +1,108 @@
+package net.pixlies.business.market;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The latest candles of one item at one resolution, in a fixed-size ring buffer.
+ * Fields are kept in parallel arrays, so that adding a trade never allocates.
+ *
+ * @author vyketype
+ */
+public class CandleSeries {
+    private final long period;
+    
+    private final long[] starts;
+    private final double[] opens;
+    private final double[] highs;
+    private final double[] lows;
+    private final double[] closes;
+    private final long[] volumes;
+    
+    // Index of the newest candle, which is the one still open
+    private int head = -1;
+    private int count = 0;
+    
+    public CandleSeries(long period, int capacity) {
+        this.period = period;
+        starts = new long[capacity];
+        opens = new double[capacity];
+        highs = new double[capacity];
+        lows = new double[capacity];
+        closes = new double[capacity];
+        volumes = new long[capacity];
+    }
+    
+    /**
+     * Adds a trade to the candle of its period, opening a new candle if needed.
+     * Trades are expected in time order.
+     *
+     * @return the candle which was closed by this trade, or null
+     */
+    public synchronized @Nullable Candle add(long timestamp, double price, int amount) {
+        long start = timestamp - Math.floorMod(timestamp, period);
+        if (count > 0 && starts[head] == start) {
+            highs[head] = Math.max(highs[head], price);
+            lows[head] = Math.min(lows[head], price);
+            closes[head] = price;
+            volumes[head] += amount;
+            return null;
+        }
+        
+        Candle closed = count > 0 ? get(head) : null;
+        push(start, price, price, price, price, amount);
+        return closed;
+    }
+    
+    /**
+     * Puts back a candle read from the disk. Candles must be restored oldest first.
+     * A candle of the same period as the newest one replaces it.
+     */
+    public synchronized void restore(Candle candle) {
+        if (count > 0 && starts[head] == candle.start()) {
+            set(head, candle.start(), candle.open(), candle.high(), candle.low(), candle.close(), candle.volume());
+            return;
+        }
+        push(candle.start(), candle.open(), candle.high(), candle.low(), candle.close(), candle.volume());
+    }
+    
+    /**
+     * @return the newest candles, oldest first, including the one still open
+     */
+    public synchronized List<Candle> getLast(int amount) {
+        int size = Math.min(amount, count);
+        List<Candle> candles = new ArrayList<>(size);
+        for (int i = size - 1; i >= 0; i--) {
+            candles.add(get(Math.floorMod(head - i, starts.length)));
+        }
+        return candles;
+    }
+    
+    /**
+     * @return the candle still open, or null if there are none
+     */
+    public synchronized @Nullable Candle getCurrent() {
+        return count > 0 ? get(head) : null;
+    }
+    
+    private void push(long start, double open, double high, double low, double close, long volume) {
+        head = (head + 1) % starts.length;
+        count = Math.min(count + 1, starts.length);
+        set(head, start, open, high, low, close, volume);
+    }
+    
+    private void set(int index, long start, double open, double high, double low, double close, long volume) {
+        starts[index] = start;
+        opens[index] = open;
+        highs[index] = high;
+        lows[index] = low;
+        closes[index] = close;
+        volumes[index] = volume;
+    }
+    
+    private Candle get(int index) {
+        return new Candle(starts[index], opens[index], highs[index], lows[index], closes[index], volumes[index]);
+    }
+}
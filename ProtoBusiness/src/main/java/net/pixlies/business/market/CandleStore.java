@@ -0,0 +1,142 @@
+package net.pixlies.business.market;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.pixlies.business.ProtoBusinesss;
+
+import java.io.*;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Price history of every item, as candles at several resolutions.
+ * Every trade updates the open candles in memory. Closed candles are appended to one file per item and resolution,
+ * and the latest ones are read back into memory on startup.
+ *
+ * @author vyketype
+ */
+public class CandleStore {
+    private static final ProtoBusinesss instance = ProtoBusinesss.getInstance();
+    private static final String CANDLES_PATH = instance.getDataFolder().getAbsolutePath() + "/candles/";
+    
+    private static final Map<OrderItem, Map<Resolution, CandleSeries>> SERIES = new EnumMap<>(OrderItem.class);
+    
+    // Closed candles are written one after another, away from the matching threads
+    private static ExecutorService writer;
+    
+    static {
+        for (OrderItem item : OrderItem.values()) {
+            Map<Resolution, CandleSeries> series = new EnumMap<>(Resolution.class);
+            for (Resolution resolution : Resolution.values()) {
+                series.put(resolution, new CandleSeries(resolution.getPeriod(), resolution.getCapacity()));
+            }
+            SERIES.put(item, series);
+        }
+    }
+    
+    /**
+     * Adds an executed trade to the candles of its item.
+     * Called from the matching thread of the item's book.
+     */
+    public static void addTrade(OrderItem item, long timestamp, double price, int amount) {
+        for (Map.Entry<Resolution, CandleSeries> entry : SERIES.get(item).entrySet()) {
+            Candle closed = entry.getValue().add(timestamp, price, amount);
+            if (closed != null) write(item, entry.getKey(), closed);
+        }
+    }
+    
+    /**
+     * @return the newest candles, oldest first, including the one still open
+     */
+    public static List<Candle> getLast(OrderItem item, Resolution resolution, int amount) {
+        return SERIES.get(item).get(resolution).getLast(amount);
+    }
+    
+    public static void loadAll() {
+        new File(CANDLES_PATH).mkdirs();
+        writer = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "ProtoBusiness-Candles"));
+        
+        int loaded = 0;
+        for (OrderItem item : OrderItem.values()) {
+            for (Resolution resolution : Resolution.values()) {
+                File file = getFile(item, resolution);
+                if (!file.exists()) continue;
+                
+                // Only the last candles fit in memory
+                long skip = Math.max(0, file.length() / Candle.BYTES - resolution.getCapacity()) * Candle.BYTES;
+                CandleSeries series = SERIES.get(item).get(resolution);
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                    in.skipNBytes(skip);
+                    for (long i = skip; i + Candle.BYTES <= file.length(); i += Candle.BYTES) {
+                        series.restore(new Candle(in.readLong(), in.readDouble(), in.readDouble(), in.readDouble(),
+                                in.readDouble(), in.readLong()));
+                        loaded++;
+                    }
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                    instance.getLogger().log(Level.SEVERE, "Unable to load the " + resolution.name() + " candles of " + item.name() + ".");
+                }
+            }
+        }
+        
+        instance.logInfo("All candles (" + loaded + ") have been loaded.");
+    }
+    
+    /**
+     * Writes the candles still open, and waits for every write to finish.
+     * They are read back as the open candles if the server restarts within the same period.
+     */
+    public static void closeAll() {
+        SERIES.forEach((item, series) -> series.forEach((resolution, candles) -> {
+            Candle current = candles.getCurrent();
+            if (current != null) write(item, resolution, current);
+        }));
+        
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+            // Shutting down anyway
+        }
+    }
+    
+    private static void write(OrderItem item, Resolution resolution, Candle candle) {
+        writer.execute(() -> {
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(getFile(item, resolution), true))) {
+                out.writeLong(candle.start());
+                out.writeDouble(candle.open());
+                out.writeDouble(candle.high());
+                out.writeDouble(candle.low());
+                out.writeDouble(candle.close());
+                out.writeLong(candle.volume());
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                instance.getLogger().log(Level.SEVERE, "Unable to save a " + resolution.name() + " candle of " + item.name() + ".");
+            }
+        });
+    }
+    
+    private static File getFile(OrderItem item, Resolution resolution) {
+        return new File(CANDLES_PATH + item.name() + "." + resolution.name().toLowerCase() + ".dat");
+    }
+    
+    // --------------------------------------------------------------------------------------------
+    
+    @Getter
+    @AllArgsConstructor
+    public enum Resolution {
+        MINUTE(60_000L, 24 * 60),
+        HOUR(60 * 60_000L, 24 * 30),
+        DAY(24 * 60 * 60_000L, 365);
+        
+        private final long period;
+        
+        // Number of candles kept in memory
+        private final int capacity;
+    }
+}
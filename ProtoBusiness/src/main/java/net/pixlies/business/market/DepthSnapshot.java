@@ -0,0 +1,63 @@
+package net.pixlies.business.market;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable view of the top of an order book, published after every change to it.
+ * Orders are copied into quotes, so that the view never changes with the live orders of the book.
+ *
+ * @param bids the best buy levels, best first
+ * @param asks the best sell levels, best first
+ * @param topBuyOrders the first buy orders in price-time priority
+ * @param topSellOrders the first sell orders in price-time priority
+ * @author vyketype
+ */
+public record DepthSnapshot(List<Level> bids, List<Level> asks, int buyOrderCount, int sellOrderCount,
+                            List<Quote> topBuyOrders, List<Quote> topSellOrders) {
+    public static final DepthSnapshot EMPTY = new DepthSnapshot(List.of(), List.of(), 0, 0, List.of(), List.of());
+    
+    public @Nullable Level getBestBid() {
+        return bids.isEmpty() ? null : bids.get(0);
+    }
+    
+    public @Nullable Level getBestAsk() {
+        return asks.isEmpty() ? null : asks.get(0);
+    }
+    
+    /**
+     * @return the difference between the best sell and buy prices, or 0 if a side is empty
+     */
+    public long getSpread() {
+        if (bids.isEmpty() || asks.isEmpty()) return 0;
+        return asks.get(0).price() - bids.get(0).price();
+    }
+    
+    /**
+     * @param first the oldest order of the level, which is the next one to be matched
+     */
+    public record Level(long price, int volume, int orders, Quote first) {}
+    
+    /**
+     * An order as it was when the snapshot was published.
+     *
+     * @param price the limit price per item, in micro-coins
+     */
+    public record Quote(String orderId, Order.Type type, UUID playerUUID, long price, int amount) {
+        
+        public static Quote of(Order order) {
+            return new Quote(order.getOrderId(), order.getType(), order.getPlayerUUID(), order.getPrice(), order.getAmount());
+        }
+        
+        public long getTaxedTariffedPrice(UUID matchingUUID) {
+            return Order.getTaxedTariffedPrice(playerUUID, price, matchingUUID);
+        }
+        
+        public String toString(UUID initialUUID) {
+            return Order.toString(type, playerUUID, amount, Order.getTariffedPrice(playerUUID, price, initialUUID));
+        }
+        
+    }
+}
@@ -9,22 +9,34 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 /**
  * Represents a trade embargo.
  *
+ * @param expiresAt the time at which the embargo expires in milliseconds, or -1 if it never does
  * @author vyketype
  */
-public record Embargo(String embargoId, String initId, String targetId, int duration) {
+public record Embargo(String embargoId, String initId, String targetId, long expiresAt) {
     private static final ProtoBusinesss instance = ProtoBusinesss.getInstance();
     private static final String EMBARGOES_PATH = instance.getDataFolder().getAbsolutePath() + "/embargoes/";
     
+    // Initial nation ID -> target nation ID -> embargo
+    private static final Map<String, Map<String, Embargo>> CACHE = new ConcurrentHashMap<>();
+    
+    public boolean expires() {
+        return expiresAt != -1;
+    }
+    
+    /**
+     * Caches the embargo and writes it to the files.
+     */
     public void save() {
+        CACHE.computeIfAbsent(initId, k -> new ConcurrentHashMap<>()).put(targetId, this);
+        TradeFilter.updateEmbargo(initId, targetId);
+        
         String filename = embargoId + ".yml";
         
         File file = new File(EMBARGOES_PATH + filename);
@@ -32,7 +44,7 @@ public record Embargo(String embargoId, String initId, String targetId, int dura
         
         yaml.set("initId", initId);
         yaml.set("targetId", targetId);
-        yaml.set("duration", duration);
+        yaml.set("expiresAt", expiresAt);
         
         try {
             yaml.save(file);
@@ -45,6 +57,13 @@ public record Embargo(String embargoId, String initId, String targetId, int dura
     }
     
     public boolean delete() {
+        Map<String, Embargo> targets = CACHE.get(initId);
+        if (targets != null && Objects.equals(targets.get(targetId), this)) {
+            targets.remove(targetId);
+            if (targets.isEmpty()) CACHE.remove(initId);
+        }
+        TradeFilter.updateEmbargo(initId, targetId);
+        
         File file = new File(EMBARGOES_PATH + embargoId + ".yml");
         return file.delete();
     }
@@ -52,16 +71,18 @@ public record Embargo(String embargoId, String initId, String targetId, int dura
     public void sendDeletionMessages() {
         Nation initNation = Nation.getFromId(initId);
         Nation targetNation = Nation.getFromId(targetId);
+        if (initNation == null || targetNation == null)
+            return;
         
         // Send message to the players of the initial nation
-        for (UUID uuid : Objects.requireNonNull(initNation.getMembers())) {
+        for (UUID uuid : initNation.getMembers()) {
             if (Bukkit.getPlayer(uuid) == null || !Bukkit.getPlayer(uuid).isOnline())
                 continue;
             MarketLang.INCOMING_EMBARGO_REMOVED.send(Bukkit.getPlayer(uuid), "%NATION%;" + targetNation.getName());
         }
-    
+        
         // Send message to the players of the target nation
-        for (UUID uuid : Objects.requireNonNull(targetNation.getMembers())) {
+        for (UUID uuid : targetNation.getMembers()) {
             if (Bukkit.getPlayer(uuid) == null || !Bukkit.getPlayer(uuid).isOnline())
                 continue;
             MarketLang.OUTGOING_EMBARGO_REMOVED.send(Bukkit.getPlayer(uuid), "%NATION%;" + initNation.getName());
@@ -70,35 +91,67 @@ public record Embargo(String embargoId, String initId, String targetId, int dura
     
     // --------------------------------------------------------------------------------------------
     
-    public static List<Embargo> getAll() {
+    public static void loadAll() {
+        CACHE.clear();
+        
         File directory = new File(EMBARGOES_PATH);
         if (directory.list() == null) {
             directory.mkdirs();
         }
         
-        List<Embargo> embargoes = new ArrayList<>();
-        List<String> pathnames = List.of(Objects.requireNonNull(new File(EMBARGOES_PATH).list()));
+        List<String> pathnames = List.of(Objects.requireNonNull(directory.list()));
         for (String pathname : pathnames) {
-            embargoes.add(Embargo.get(pathname.substring(0, pathname.length() - 4)));
+            Embargo embargo = getFromFile(pathname.substring(0, pathname.length() - 4));
+            CACHE.computeIfAbsent(embargo.initId(), k -> new ConcurrentHashMap<>()).put(embargo.targetId(), embargo);
+            TradeFilter.updateEmbargo(embargo.initId(), embargo.targetId());
         }
+        
+        instance.logInfo("All embargoes (" + pathnames.size() + ") have been loaded.");
+    }
+    
+    public static List<Embargo> getAll() {
+        List<Embargo> embargoes = new ArrayList<>();
+        CACHE.values().forEach(targets -> embargoes.addAll(targets.values()));
         return embargoes;
     }
     
-    public static Embargo get(String embargoId) {
+    public static @Nullable Embargo get(String initId, String targetId) {
+        Map<String, Embargo> targets = CACHE.get(initId);
+        if (targets == null) return null;
+        return targets.get(targetId);
+    }
+    
+    /**
+     * Checks if any of the two nations has put the other under an embargo.
+     *
+     * @param nationId the first nation ID, can be null
+     * @param otherId the second nation ID, can be null
+     * @return true if trading between both nations is forbidden
+     */
+    public static boolean isEmbargoed(@Nullable String nationId, @Nullable String otherId) {
+        if (nationId == null || otherId == null)
+            return false;
+        return get(nationId, otherId) != null || get(otherId, nationId) != null;
+    }
+    
+    private static Embargo getFromFile(String embargoId) {
         String filename = embargoId + ".yml";
         File file = new File(EMBARGOES_PATH + filename);
         YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
-        return new Embargo(embargoId, yaml.getString("initId"), yaml.getString("targetId"), yaml.getInt("duration"));
+        
+        // Embargoes saved before expiration times were stored only had a duration in hours
+        long expiresAt = yaml.getLong("expiresAt", -1);
+        if (!yaml.contains("expiresAt") && yaml.getInt("duration", -1) != -1) {
+            expiresAt = System.currentTimeMillis() + yaml.getInt("duration") * 3600000L;
+        }
+        
+        return new Embargo(embargoId, yaml.getString("initId"), yaml.getString("targetId"), expiresAt);
     }
     
     public static @Nullable String getEmbargoId(String initNation, String targetNation) {
-        for (Embargo embargo : Embargo.getAll()) {
-            boolean fromCond = Objects.equals(embargo.initId(),
-                    Objects.requireNonNull(Nation.getFromName(initNation)).getNationId());
-            boolean toCond = Objects.equals(embargo.targetId(),
-                    Objects.requireNonNull(Nation.getFromName(targetNation)).getNationId());
-            if (fromCond && toCond) return embargo.embargoId();
-        }
-        return null;
+        String initId = Objects.requireNonNull(Nation.getFromName(initNation)).getNationId();
+        String targetId = Objects.requireNonNull(Nation.getFromName(targetNation)).getNationId();
+        Embargo embargo = get(initId, targetId);
+        return embargo == null ? null : embargo.embargoId();
     }
 }
@@ -0,0 +1,72 @@
+package net.pixlies.business.market;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Orders which left their book, either filled or cancelled, but still have goods or refunds to be claimed.
+ * Kept by player for the orders menu, and by item for the snapshots of the journal.
+ * Changed under the lock of the order's book, and read from any thread.
+ *
+ * @author vyketype
+ */
+public class Mailbox {
+    private static final Map<UUID, Set<Order>> PLAYERS = new ConcurrentHashMap<>();
+    private static final Map<OrderItem, Set<Order>> ITEMS = new EnumMap<>(OrderItem.class);
+    
+    static {
+        for (OrderItem item : OrderItem.values()) {
+            ITEMS.put(item, ConcurrentHashMap.newKeySet());
+        }
+    }
+    
+    public static void deposit(Order order) {
+        ITEMS.get(OrderItem.valueOf(order.getBookItem())).add(order);
+        PLAYERS.compute(order.getPlayerUUID(), (uuid, orders) -> {
+            if (orders == null) orders = ConcurrentHashMap.newKeySet();
+            orders.add(order);
+            return orders;
+        });
+    }
+    
+    /**
+     * @return whether the order was in the mailbox
+     */
+    public static boolean withdraw(Order order) {
+        boolean removed = ITEMS.get(OrderItem.valueOf(order.getBookItem())).remove(order);
+        PLAYERS.computeIfPresent(order.getPlayerUUID(), (uuid, orders) -> {
+            orders.remove(order);
+            return orders.isEmpty() ? null : orders;
+        });
+        return removed;
+    }
+    
+    /**
+     * @return the settled orders of a player, oldest first
+     */
+    public static List<Order> getOrders(UUID uuid) {
+        Set<Order> orders = PLAYERS.get(uuid);
+        if (orders == null) return new ArrayList<>();
+        List<Order> list = new ArrayList<>(orders);
+        list.sort(Comparator.comparingLong(Order::getTimestamp));
+        return list;
+    }
+    
+    /**
+     * @return the settled orders of a book
+     */
+    public static List<Order> getOrders(OrderItem item) {
+        return new ArrayList<>(ITEMS.get(item));
+    }
+    
+    /**
+     * Empties the mailbox of a book.
+     *
+     * @return the orders which were in it
+     */
+    public static List<Order> clear(OrderItem item) {
+        List<Order> orders = getOrders(item);
+        orders.forEach(Mailbox::withdraw);
+        return orders;
+    }
+}
@@ -0,0 +1,335 @@
+package net.pixlies.business.market;
+
+import net.pixlies.business.ProtoBusinesss;
+import net.pixlies.business.threads.JournalThread;
+
+import java.io.*;
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Durable storage of the order books.
+ * Every change to an order is appended to a journal, and each book is regularly compacted into a binary snapshot.
+ * On startup, the snapshots are loaded and the part of the journal written after them is replayed on top.
+ * The actual file writing is done by the {@link JournalThread}.
+ * Records are appended from the matching threads, so everything touching the journal state is synchronized.
+ *
+ * @author vyketype
+ */
+public class MarketJournal {
+    private static final ProtoBusinesss instance = ProtoBusinesss.getInstance();
+    
+    public static final String JOURNAL_PATH = instance.getDataFolder().getAbsolutePath() + "/orderbooks/journal.dat";
+    public static final String OLD_JOURNAL_PATH = instance.getDataFolder().getAbsolutePath() + "/orderbooks/journal.old.dat";
+    public static final String SNAPSHOTS_PATH = instance.getDataFolder().getAbsolutePath() + "/orderbooks/snapshots/";
+    
+    // Books changed since their last snapshot
+    private static final Set<OrderItem> DIRTY = EnumSet.noneOf(OrderItem.class);
+    
+    // Sequence number of the last record appended to the journal
+    private static long sequence = 0;
+    
+    // Version of what is written, first in every snapshot and journal record. Raise it whenever that changes
+    private static final byte FORMAT = 2;
+    
+    /**
+     * Appends the current state of an order to the journal.
+     *
+     * @param event ORDER, TRADE or CLAIM
+     */
+    public static void append(Event event, Order order) {
+        OrderItem item = OrderItem.valueOf(order.getBookItem());
+        append(item, event, out -> writeOrder(out, order));
+    }
+    
+    /**
+     * Appends the removal of an order from its book to the journal.
+     */
+    public static void appendCancel(Order order) {
+        OrderItem item = OrderItem.valueOf(order.getBookItem());
+        append(item, Event.CANCEL, out -> out.writeUTF(order.getOrderId()));
+    }
+    
+    private static synchronized void append(OrderItem item, Event event, RecordBody body) {
+        JournalThread thread = instance.getJournalThread();
+        if (thread == null)
+            return;
+        
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(FORMAT);
+            out.writeLong(++sequence);
+            out.writeByte(event.ordinal());
+            out.writeUTF(item.name());
+            body.write(out);
+            thread.append(bytes.toByteArray());
+            DIRTY.add(item);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            instance.getLogger().log(Level.SEVERE, "Unable to journal " + event.name() + " of " + item.name() + ".");
+        }
+    }
+    
+    /**
+     * Marks a book as needing a snapshot, even if nothing was journaled for it.
+     */
+    public static synchronized void markDirty(OrderItem item) {
+        DIRTY.add(item);
+    }
+    
+    /**
+     * Takes a snapshot of every book changed since the last checkpoint.
+     * The journal is first rotated, so that the books can keep being matched while they are serialized: every record
+     * of the old journal is covered by the snapshots, and records of the new one are skipped on replay if they are.
+     * The snapshots are written and the old journal deleted by the {@link JournalThread}.
+     * Runs on an async task, except on startup and shutdown, since serializing waits for the locks of the books.
+     */
+    public static void checkpoint() {
+        JournalThread thread = instance.getJournalThread();
+        if (thread == null)
+            return;
+        
+        Set<OrderItem> items;
+        synchronized (MarketJournal.class) {
+            if (DIRTY.isEmpty())
+                return;
+            items = EnumSet.copyOf(DIRTY);
+            DIRTY.clear();
+            thread.rotate();
+        }
+        
+        Map<String, byte[]> snapshots = new HashMap<>();
+        for (OrderItem item : items) {
+            OrderBook book = OrderBook.get(item);
+            try {
+                synchronized (book) {
+                    snapshots.put(item.name(), writeSnapshot(book));
+                }
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                instance.getLogger().log(Level.SEVERE, "Unable to take a snapshot of OrderBook of " + item.name() + ".");
+                
+                // Keeps the old journal until every book is snapshotted
+                items.forEach(MarketJournal::markDirty);
+                return;
+            }
+        }
+        
+        thread.checkpoint(snapshots);
+    }
+    
+    /**
+     * Loads the latest snapshot of every book and replays the journal on top of them.
+     *
+     * @return every book which has a snapshot or journaled changes, by item name
+     */
+    public static Map<String, JournaledBook> load() {
+        Map<String, Map<String, Order>> books = new HashMap<>();
+        Map<String, Long> lastPrices = new HashMap<>();
+        Map<String, Long> snapshotSequences = new HashMap<>();
+        
+        // Snapshots
+        File directory = new File(SNAPSHOTS_PATH);
+        if (directory.list() == null) {
+            directory.mkdirs();
+        }
+        
+        for (String pathname : Objects.requireNonNull(directory.list())) {
+            if (!pathname.endsWith(".dat")) continue;
+            String item = pathname.substring(0, pathname.length() - 4);
+            
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(directory, pathname))))) {
+                readFormat(in);
+                long snapshotSequence = in.readLong();
+                long lastPrice = in.readLong();
+                
+                int count = in.readInt();
+                Map<String, Order> orders = new LinkedHashMap<>();
+                for (int i = 0; i < count; i++) {
+                    Order order = readOrder(in, item);
+                    orders.put(order.getOrderId(), order);
+                }
+                books.put(item, orders);
+                lastPrices.put(item, lastPrice);
+                snapshotSequences.put(item, snapshotSequence);
+                sequence = Math.max(sequence, snapshotSequence);
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                instance.getLogger().log(Level.SEVERE, "Unable to load the snapshot of OrderBook of " + item + ".");
+            }
+        }
+        
+        // Journal tail, oldest records first
+        int replayed = 0;
+        for (File journal : List.of(new File(OLD_JOURNAL_PATH), new File(JOURNAL_PATH))) {
+            if (!journal.exists()) continue;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)))) {
+                while (true) {
+                    byte[] record;
+                    try {
+                        record = new byte[in.readInt()];
+                        in.readFully(record);
+                    } catch (EOFException ex) {
+                        // End of the journal, or a record cut off by a crash
+                        break;
+                    }
+                    
+                    DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(record));
+                    readFormat(recordIn);
+                    long recordSequence = recordIn.readLong();
+                    Event event = Event.values()[recordIn.readByte()];
+                    String item = recordIn.readUTF();
+                    sequence = Math.max(sequence, recordSequence);
+                    
+                    // Already part of the snapshot
+                    if (recordSequence <= snapshotSequences.getOrDefault(item, 0L))
+                        continue;
+                    
+                    // Not part of any snapshot yet, so it must be in the next one
+                    DIRTY.add(OrderItem.valueOf(item));
+                    
+                    Map<String, Order> orders = books.computeIfAbsent(item, k -> new LinkedHashMap<>());
+                    if (event == Event.CANCEL) {
+                        orders.remove(recordIn.readUTF());
+                    } else {
+                        Order order = readOrder(recordIn, item);
+                        orders.put(order.getOrderId(), order);
+                        
+                        // The matched orders of a trade are journaled in order, the last one traded last
+                        if (event == Event.TRADE) lastPrices.put(item, order.getPrice());
+                    }
+                    replayed++;
+                }
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                instance.getLogger().log(Level.SEVERE, "Unable to replay the market journal.");
+            }
+        }
+        
+        instance.logInfo("Loaded " + snapshotSequences.size() + " OrderBook snapshots and replayed " + replayed + " journal records.");
+        
+        Map<String, JournaledBook> result = new HashMap<>();
+        books.forEach((item, orders) -> result.put(item, new JournaledBook(orders.values(), lastPrices.getOrDefault(item, 0L))));
+        return result;
+    }
+    
+    // --------------------------------------------------------------------------------------------
+    
+    private static synchronized long getSequence() {
+        return sequence;
+    }
+    
+    private static byte[] writeSnapshot(OrderBook book) throws IOException {
+        List<Order> orders = book.getBuyOrders();
+        orders.addAll(book.getSellOrders());
+        orders.addAll(Mailbox.getOrders(book.getItem()));
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(FORMAT);
+        out.writeLong(getSequence());
+        out.writeLong(book.getLastPrice());
+        out.writeInt(orders.size());
+        for (Order order : orders) {
+            writeOrder(out, order);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private static void writeOrder(DataOutputStream out, Order order) throws IOException {
+        out.writeUTF(order.getOrderId());
+        out.writeLong(order.getTimestamp());
+        out.writeByte(order.getType().ordinal());
+        writeUUID(out, order.getPlayerUUID());
+        out.writeLong(order.getPrice());
+        out.writeLong(order.getEscrowPrice());
+        out.writeInt(order.getAmount());
+        out.writeInt(order.getVolume());
+        
+        out.writeInt(order.getTrades().size());
+        for (Trade trade : order.getTrades()) {
+            out.writeLong(trade.getTimestamp());
+            out.writeLong(trade.getPrice());
+            out.writeInt(trade.getAmount());
+            writeUUID(out, trade.getGiver());
+            writeUUID(out, trade.getTaker());
+            out.writeBoolean(trade.isClaimed());
+        }
+        
+        out.writeLong(order.getTotalRefunds());
+        out.writeLong(order.getRefundableCoins());
+        
+        out.writeByte(order.getTimeInForce().ordinal());
+        out.writeLong(order.getExpiresAt());
+        out.writeBoolean(order.isExpired());
+        out.writeInt(order.getExpiredVolume());
+    }
+    
+    private static void readFormat(DataInputStream in) throws IOException {
+        byte format = in.readByte();
+        if (format != FORMAT)
+            throw new IOException("Written in format " + format + ", only format " + FORMAT + " can be read.");
+    }
+    
+    private static Order readOrder(DataInputStream in, String bookItem) throws IOException {
+        String orderId = in.readUTF();
+        long timestamp = in.readLong();
+        Order.Type type = Order.Type.values()[in.readByte()];
+        UUID playerUUID = readUUID(in);
+        long price = in.readLong();
+        long escrowPrice = in.readLong();
+        int amount = in.readInt();
+        int volume = in.readInt();
+        
+        int tradeCount = in.readInt();
+        List<Trade> trades = new LinkedList<>();
+        for (int i = 0; i < tradeCount; i++) {
+            trades.add(new Trade(orderId, in.readLong(), in.readLong(), in.readInt(), readUUID(in), readUUID(in),
+                    in.readBoolean()));
+        }
+        
+        long totalRefunds = in.readLong();
+        long refundableCoins = in.readLong();
+        
+        Order.TimeInForce timeInForce = Order.TimeInForce.values()[in.readByte()];
+        long expiresAt = in.readLong();
+        boolean expired = in.readBoolean();
+        int expiredVolume = in.readInt();
+        
+        return new Order(bookItem, orderId, timestamp, type, playerUUID, price, escrowPrice, amount, volume, trades,
+                totalRefunds, refundableCoins, timeInForce, expiresAt, expired, expiredVolume);
+    }
+    
+    private static void writeUUID(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+    
+    private static UUID readUUID(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+    
+    // --------------------------------------------------------------------------------------------
+    
+    /**
+     * Every event but CANCEL stores the whole state of the order after the change.
+     * Never reorder these, the ordinals are written to the files.
+     */
+    public enum Event {
+        ORDER,  // An order was placed
+        TRADE,  // A resting order was matched
+        CLAIM,  // Goods or refunds of an order were claimed
+        CANCEL  // An order left its book
+    }
+    
+    /**
+     * @param lastPrice the book price of the latest trade, in micro-coins, or 0 if there was none
+     */
+    public record JournaledBook(Collection<Order> orders, long lastPrice) {}
+    
+    @FunctionalInterface
+    private interface RecordBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,114 @@
+package net.pixlies.business.market;
+
+import net.pixlies.business.locale.MarketLang;
+import net.pixlies.core.economy.Money;
+import org.bson.Document;
+import org.bukkit.Bukkit;
+import org.bukkit.Sound;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+/**
+ * Fills of a tick, summed up per player, item and side, and told once at the end of the tick.
+ * An order sweeping fifty others sends one line and one sound instead of fifty. Fills of offline players go to the
+ * inbox of their profile, and are told when they join.
+ * Only used on the main thread.
+ *
+ * @author vyketype
+ */
+public class MarketNotifier {
+    private static final Map<UUID, Map<Key, Fill>> PENDING = new HashMap<>();
+    
+    public static void addFill(UUID uuid, OrderItem item, Order.Type type, int amount, long total) {
+        PENDING.computeIfAbsent(uuid, key -> new LinkedHashMap<>())
+                .merge(new Key(item, type), new Fill(item, type, amount, 1, total), Fill::merge);
+    }
+    
+    /**
+     * Tells every player the fills of the tick. Called once per tick.
+     */
+    public static void flush() {
+        if (PENDING.isEmpty())
+            return;
+        
+        for (Map.Entry<UUID, Map<Key, Fill>> entry : PENDING.entrySet()) {
+            Player player = Bukkit.getPlayer(entry.getKey());
+            if (player != null && player.isOnline()) {
+                send(player, entry.getValue().values());
+                continue;
+            }
+            
+            MarketProfile profile = MarketProfile.get(entry.getKey());
+            entry.getValue().values().forEach(profile::addToInbox);
+            profile.save();
+        }
+        PENDING.clear();
+    }
+    
+    /**
+     * Tells a player who just joined the fills of their orders while they were away.
+     */
+    public static void sendInbox(Player player) {
+        MarketProfile profile = MarketProfile.get(player.getUniqueId());
+        if (profile.getInbox().isEmpty())
+            return;
+        
+        MarketLang.MARKET_INBOX.send(player);
+        send(player, profile.getInbox());
+        profile.getInbox().clear();
+        profile.save();
+    }
+    
+    private static void send(Player player, Collection<Fill> fills) {
+        for (Fill fill : fills) {
+            MarketLang lang = fill.type() == Order.Type.BUY ? MarketLang.ORDER_FILLED_BUY : MarketLang.ORDER_FILLED_SELL;
+            lang.send(
+                    player,
+                    "%AMOUNT%;" + fill.amount(),
+                    "%ITEM%;" + fill.item().getName(),
+                    "%TRADES%;" + fill.trades(),
+                    "%AVERAGE%;" + Money.format(fill.total() / fill.amount())
+            );
+        }
+        MarketLang.MARKET_NOTIFICATION.send(player);
+        player.playSound(player.getLocation(), Sound.ENTITY_EXPERIENCE_ORB_PICKUP, 100F, 1F);
+    }
+    
+    // --------------------------------------------------------------------------------------------
+    
+    private record Key(OrderItem item, Order.Type type) {}
+    
+    /**
+     * Items bought or sold by a player.
+     *
+     * @param total the money paid for all of them, in micro-coins
+     */
+    public record Fill(OrderItem item, Order.Type type, int amount, int trades, long total) {
+        public boolean isSameAs(Fill other) {
+            return item == other.item && type == other.type;
+        }
+        
+        public Fill merge(Fill other) {
+            return new Fill(item, type, amount + other.amount, trades + other.trades, Money.add(total, other.total));
+        }
+        
+        public Document toDocument() {
+            return new Document("item", item.name())
+                    .append("type", type.name())
+                    .append("amount", amount)
+                    .append("trades", trades)
+                    .append("total", total);
+        }
+        
+        public static Fill fromDocument(Document document) {
+            return new Fill(
+                    OrderItem.valueOf(document.getString("item")),
+                    Order.Type.valueOf(document.getString("type")),
+                    document.getInteger("amount", 0),
+                    document.getInteger("trades", 0),
+                    Money.read(document.get("total"))
+            );
+        }
+    }
+}
@@ -1,26 +1,39 @@
 package net.pixlies.business.market;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.*;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import net.pixlies.business.ProtoBusinesss;
 import net.pixlies.business.locale.MarketLang;
 import net.pixlies.business.util.InventoryUtil;
+import net.pixlies.core.economy.Money;
+import net.pixlies.nations.Nations;
 import net.pixlies.nations.nations.interfaces.NationProfile;
+import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
-import org.bukkit.Sound;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 /**
  * Market profile.
+ * Profiles of online players and of players with orders or stops are kept in the cache, so that the matching threads
+ * and the main thread never wait for the database to get them.
  *
  * @author vyketype
  */
@@ -29,7 +42,21 @@ import java.util.logging.Level;
 public class MarketProfile {
       private static final ProtoBusinesss instance = ProtoBusinesss.getInstance();
       private static final String PROFILES_PATH = instance.getDataFolder().getAbsolutePath() + "/profiles/";
-      private static final Map<UUID, MarketProfile> CACHE = new HashMap<>();
+      private static final Nations nations = Nations.getInstance();
+      private static final Map<UUID, MarketProfile> CACHE = new ConcurrentHashMap<>();
+      
+      // Profiles changed since the last flush, and profiles which exist in the database
+      private static final Set<UUID> DIRTY = ConcurrentHashMap.newKeySet();
+      private static final Set<UUID> KNOWN = ConcurrentHashMap.newKeySet();
+      
+      // Profiles of offline players are dropped from the CACHE after 10 minutes without being used
+      private static final long EVICT_AFTER = 10 * 60 * 1000L;
+      
+      // Writes the flushed profiles one batch after another, so that an older batch never lands after a newer one
+      private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(
+              runnable -> new Thread(runnable, "ProtoBusiness-Profiles"));
+      
+      private static MongoCollection<Document> collection;
       
       private final UUID uuid;
       
@@ -44,11 +71,22 @@ public class MarketProfile {
       private int buyOrdersMade;
       private int sellOrdersMade;
       private int tradesMade;
-      private double moneySpent;
-      private double moneyGained;
+      
+      // In micro-coins
+      private long moneySpent;
+      private long moneyGained;
+      
       private int itemsSold;
       private int itemsBought;
       
+      // Fills which happened while the player was offline, see MarketNotifier
+      @Setter(AccessLevel.PRIVATE)
+      private List<MarketNotifier.Fill> inbox;
+      
+      @Getter(AccessLevel.NONE)
+      @Setter(AccessLevel.NONE)
+      private volatile long lastUsed = System.currentTimeMillis();
+      
       public MarketProfile(UUID uuid) {
             this.uuid = uuid;
             blockedPlayers = new ArrayList<>();
@@ -61,6 +99,7 @@ public class MarketProfile {
             moneyGained = 0;
             itemsSold = 0;
             itemsBought = 0;
+            inbox = new ArrayList<>();
       }
       
       public boolean hasJoinedBefore() {
@@ -69,10 +108,17 @@ public class MarketProfile {
       
       public void tradeBlockPlayer(UUID uuid) {
             blockedPlayers.add(uuid);
+            TradeFilter.block(this.uuid, uuid);
       }
       
       public void unTradeBlockPlayer(UUID uuid) {
             blockedPlayers.remove(uuid);
+            TradeFilter.unblock(this.uuid, uuid);
+      }
+      
+      public void setRestricted(boolean restricted) {
+            this.restricted = restricted;
+            TradeFilter.setRestricted(uuid, restricted);
       }
       
       public void addBuy() {
@@ -87,12 +133,12 @@ public class MarketProfile {
             tradesMade += 1;
       }
       
-      public void addMoneySpent(double money) {
-            moneySpent += money;
+      public void addMoneySpent(long money) {
+            moneySpent = Money.add(moneySpent, money);
       }
       
-      public void addMoneyGained(double money) {
-            moneyGained += money;
+      public void addMoneyGained(long money) {
+            moneyGained = Money.add(moneyGained, money);
       }
       
       public void addItemsSold(int items) {
@@ -103,14 +149,17 @@ public class MarketProfile {
             itemsBought += items;
       }
       
-      public void sendNotification() {
-            Player player = Bukkit.getPlayer(uuid);
-            assert player != null;
-            
-            if (player.isOnline()) {
-                  MarketLang.MARKET_NOTIFICATION.send(player);
-                  player.playSound(player.getLocation(), Sound.ENTITY_EXPERIENCE_ORB_PICKUP, 100F, 1F);
+      /**
+       * Adds a fill to the inbox, summed up with the fills of the same item and side already in it.
+       */
+      public void addToInbox(MarketNotifier.Fill fill) {
+            for (int i = 0; i < inbox.size(); i++) {
+                  if (inbox.get(i).isSameAs(fill)) {
+                        inbox.set(i, inbox.get(i).merge(fill));
+                        return;
+                  }
             }
+            inbox.add(fill);
       }
       
       // Will give all non-claimed goods and refund excess money on order claim
@@ -124,100 +173,306 @@ public class MarketProfile {
             
             if (order.getType() == Order.Type.BUY) {
                   int amount = 0;
-                  for (Trade trade : order.getTrades()) {
-                        if (trade.isClaimed()) continue;
-                        amount += trade.getAmount();
-                        trade.claim();
-                        trade.save();
+                  long refunded;
+                  
+                  // The order might be matched on the matching thread at the same time
+                  synchronized (book) {
+                        for (Trade trade : order.getTrades()) {
+                              if (trade.isClaimed()) continue;
+                              amount += trade.getAmount();
+                              trade.claim();
+                        }
+                        order.save();
+                        refunded = order.getRefundableCoins();
+                        order.refundPlayer();
+                        book.release(order);
                   }
                   
                   InventoryUtil.addItemsToInventory(player, new ItemStack(material, amount));
-                  order.refundPlayer();
                   
                   MarketLang.ORDER_ITEMS_CLAIMED.send(player, "%AMOUNT%;" + amount, "%ITEM%;" + book.getItem().getName());
-                  MarketLang.ORDER_UNUSED_COINS_REFUNDED.send(player, "%COINS%;" + order.getRefundableCoins());
+                  MarketLang.ORDER_UNUSED_COINS_REFUNDED.send(player, "%COINS%;" + Money.format(refunded));
             } else {
-                  int coins = 0;
-                  for (Trade trade : order.getTrades()) {
-                        if (trade.isClaimed()) continue;
-                        coins += trade.getAmount() * trade.getPrice();
-                        trade.claim();
-                        trade.save();
+                  long coins = Money.ZERO;
+                  int expired;
+                  synchronized (book) {
+                        for (Trade trade : order.getTrades()) {
+                              if (trade.isClaimed()) continue;
+                              coins = Money.add(coins, Money.multiply(trade.getPrice(), trade.getAmount()));
+                              trade.claim();
+                        }
+                        expired = order.claimExpiredVolume();
+                        order.save();
+                        book.release(order);
                   }
 
                   profile.addBalance(coins);
-                  profile.save();
                   
-                  MarketLang.ORDER_ITEMS_CLAIMED.send(player, "%COINS%;" + coins);
+                  MarketLang.ORDER_COINS_CLAIMED.send(player, "%COINS%;" + Money.format(coins));
+                  
+                  // Items which were never sold before the order expired
+                  if (expired > 0) {
+                        InventoryUtil.addItemsToInventory(player, new ItemStack(material, expired));
+                        MarketLang.ORDER_ITEMS_REFUNDED.send(
+                                player,
+                                "%AMOUNT%;" + expired,
+                                "%ITEM%;" + book.getItem().getName()
+                        );
+                  }
             }
       }
       
       // Will refund all non-sold / non-bought goods on cancellation
-      public void refundGoods(Order order) {
+      public void refundGoods(Order order, int volume) {
             NationProfile profile = NationProfile.get(uuid);
             Player player = Bukkit.getPlayer(uuid);
             assert player != null;
             
             if (order.getType() == Order.Type.BUY) {
-                  double amount = order.getVolume() * order.getTaxedPrice();
-                  MarketLang.ORDER_COINS_REFUNDED.send(player, "%COINS%;" + amount);
+                  long amount = Money.multiply(order.getEscrowPrice(), volume);
+                  MarketLang.ORDER_COINS_REFUNDED.send(player, "%COINS%;" + Money.format(amount));
                   profile.addBalance(amount);
-                  profile.save();
             } else {
                   OrderBook book = OrderBook.get(order.getBookItem());
                   Material material = book.getItem().getMaterial();
-                  InventoryUtil.addItemsToInventory(player, new ItemStack(material, order.getVolume()));
+                  InventoryUtil.addItemsToInventory(player, new ItemStack(material, volume));
                   MarketLang.ORDER_ITEMS_REFUNDED.send(
                           player,
-                          "%AMOUNT%;" + order.getVolume(),
+                          "%AMOUNT%;" + volume,
                           "%ITEM%;" + book.getItem().getName()
                   );
             }
       }
       
+      /**
+       * Marks the profile as changed. It is written to the database by the next flush.
+       * Profiles must be changed and saved on the same tick as they were got, since a flush can evict them in between.
+       */
       public void save() {
-            CACHE.put(uuid, this);
-            String playerName = Objects.requireNonNull(Bukkit.getPlayer(uuid)).getName();
-            instance.logInfo("The MarketProfile of " + playerName + " has been saved to the CACHE.");
+            lastUsed = System.currentTimeMillis();
+            MarketProfile cached = CACHE.putIfAbsent(uuid, this);
+            if (cached != null && cached != this) {
+                  instance.getLogger().warning("MarketProfile of " + uuid + " was changed after it was evicted.");
+                  return;
+            }
+            DIRTY.add(uuid);
       }
       
-      public void backup() {
-            String filename = uuid.toString() + ".yml";
-      
-            File file = new File(PROFILES_PATH + filename);
-            YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
-            
+      public Document toDocument() {
             List<String> blockedList = new ArrayList<>();
             for (UUID uuid : blockedPlayers) {
                   blockedList.add(uuid.toString());
             }
+            
+            List<Document> inboxList = new ArrayList<>();
+            for (MarketNotifier.Fill fill : inbox) {
+                  inboxList.add(fill.toDocument());
+            }
+            
+            return new Document("uuid", uuid.toString())
+                    .append("blockedPlayers", blockedList)
+                    .append("restricted", restricted)
+                    .append("hasJoinedBefore", hasJoinedBefore)
+                    .append("buyOrdersMade", buyOrdersMade)
+                    .append("sellOrdersMade", sellOrdersMade)
+                    .append("tradesMade", tradesMade)
+                    .append("moneySpent", moneySpent)
+                    .append("moneyGained", moneyGained)
+                    .append("itemsSold", itemsSold)
+                    .append("itemsBought", itemsBought)
+                    .append("inbox", inboxList);
+      }
+      
+      // --------------------------------------------------------------------------------------------
+      
+      /**
+       * Loads the UUIDs, trade blocks and restrictions of every stored profile, and moves the profiles still in YAML
+       * files to the database.
+       */
+      public static void loadAll() {
+            collection = nations.getMongoManager().getDatabase().getCollection("marketProfiles");
+            collection.createIndex(Indexes.ascending("uuid"), new IndexOptions().unique(true));
+            
+            Bson projection = Projections.include("uuid", "blockedPlayers", "restricted");
+            for (Document document : collection.find().projection(projection)) {
+                  UUID uuid = UUID.fromString(document.getString("uuid"));
+                  KNOWN.add(uuid);
+                  
+                  List<UUID> blocked = new ArrayList<>();
+                  for (String string : document.getList("blockedPlayers", String.class, new ArrayList<>())) {
+                        blocked.add(UUID.fromString(string));
+                  }
+                  TradeFilter.setBlocks(uuid, blocked);
+                  TradeFilter.setRestricted(uuid, document.getBoolean("restricted", false));
+            }
+            
+            // Profiles used to be stored in one YAML file each
+            File directory = new File(PROFILES_PATH);
+            String[] pathnames = directory.list();
+            if (pathnames != null) {
+                  for (String pathname : pathnames) {
+                        if (!pathname.endsWith(".yml")) continue;
+                        UUID uuid = UUID.fromString(pathname.substring(0, pathname.length() - 4));
+                        if (KNOWN.contains(uuid)) continue;
+                        MarketProfile profile = getFromFiles(uuid);
+                        TradeFilter.setBlocks(uuid, profile.getBlockedPlayers());
+                        profile.save();
+                  }
+                  flush();
+                  if (!directory.renameTo(new File(PROFILES_PATH.substring(0, PROFILES_PATH.length() - 1) + "-migrated"))) {
+                        instance.getLogger().warning("Unable to rename the old MarketProfile folder.");
+                  }
+                  instance.logInfo("Migrated " + pathnames.length + " MarketProfiles to the database.");
+            }
+            
+            instance.logInfo("All MarketProfiles (" + KNOWN.size() + ") have been indexed.");
+      }
       
-            yaml.set("blockedPlayers", blockedList);
-            yaml.set("restricted", restricted);
-            yaml.set("hasJoinedBefore", hasJoinedBefore);
-            yaml.set("buyOrdersMade", buyOrdersMade);
-            yaml.set("sellOrdersMade", sellOrdersMade);
-            yaml.set("tradesMade", tradesMade);
-            yaml.set("moneySpent", moneySpent);
-            yaml.set("moneyGained", moneyGained);
-            yaml.set("itemsSold", itemsSold);
-            yaml.set("itemsBought", itemsBought);
+      /**
+       * Writes every changed profile to the database in one batch, and evicts the profiles of inactive players which
+       * were not changed recently.
+       * The documents are built on the calling thread, which must be the main thread, and written on the writer thread.
+       * Profiles which could not be written are changed again, so that the next flush retries them.
+       *
+       * @param async false to wait for the write, for shutdown
+       */
+      public static void flush(boolean async) {
+            List<MarketProfile> profiles = new ArrayList<>();
+            List<WriteModel<Document>> writes = new ArrayList<>();
+            Iterator<UUID> iterator = DIRTY.iterator();
+            while (iterator.hasNext()) {
+                  UUID uuid = iterator.next();
+                  iterator.remove();
+                  
+                  MarketProfile profile = CACHE.get(uuid);
+                  if (profile == null) continue;
+                  profiles.add(profile);
+                  writes.add(new ReplaceOneModel<>(
+                          Filters.eq("uuid", uuid.toString()),
+                          profile.toDocument(),
+                          new ReplaceOptions().upsert(true)
+                  ));
+                  KNOWN.add(uuid);
+            }
             
+            long expiry = System.currentTimeMillis() - EVICT_AFTER;
+            Set<UUID> active = getActivePlayers();
+            CACHE.values().removeIf(profile -> profile.lastUsed < expiry
+                    && !DIRTY.contains(profile.uuid)
+                    && !active.contains(profile.uuid));
+            
+            if (writes.isEmpty())
+                  return;
+            
+            Runnable write = () -> {
+                  try {
+                        collection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+                  } catch (MongoBulkWriteException ex) {
+                        for (BulkWriteError error : ex.getWriteErrors()) {
+                              retry(profiles.get(error.getIndex()));
+                        }
+                        instance.getLogger().log(Level.SEVERE, "Unable to save " + ex.getWriteErrors().size()
+                                + " MarketProfiles, retrying later.", ex);
+                  } catch (Exception ex) {
+                        profiles.forEach(MarketProfile::retry);
+                        instance.getLogger().log(Level.SEVERE, "Unable to save " + writes.size()
+                                + " MarketProfiles, retrying later.", ex);
+                  }
+            };
+            
+            if (async) {
+                  WRITER.execute(write);
+                  return;
+            }
             try {
-                  yaml.save(file);
-            } catch (IOException ex) {
-                  ex.printStackTrace();
-                  instance.getLogger().log(Level.SEVERE, "Unable to save MarketProfile of " + uuid + ".");
+                  // Also waits for the batches still being written
+                  WRITER.submit(write).get();
+            } catch (InterruptedException ex) {
+                  Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                  instance.getLogger().log(Level.SEVERE, "Unable to save " + writes.size() + " MarketProfiles.", ex);
             }
+      }
       
-            String playerName = Bukkit.getOfflinePlayer(uuid).getName();
-            instance.logInfo("The MarketProfile of " + playerName + " has been backed up to the files.");
+      // The profile might have been evicted while it was written
+      private static void retry(MarketProfile profile) {
+            CACHE.putIfAbsent(profile.uuid, profile);
+            DIRTY.add(profile.uuid);
       }
       
-      // --------------------------------------------------------------------------------------------
+      public static void flush() {
+            flush(false);
+      }
+      
+      /**
+       * Writes every changed profile, and stops the writer thread.
+       * Called once on shutdown.
+       */
+      public static void close() {
+            flush(false);
+            WRITER.shutdown();
+            try {
+                  if (!WRITER.awaitTermination(30, TimeUnit.SECONDS))
+                        instance.getLogger().severe("MarketProfiles were still being written on shutdown.");
+            } catch (InterruptedException ex) {
+                  Thread.currentThread().interrupt();
+            }
+      }
       
-      public static void backupAll() {
-            CACHE.values().forEach(MarketProfile::backup);
+      /**
+       * Loads the profiles of players with orders or stops in one query, so that matching them never waits for the
+       * database.
+       * Called once on startup, after the orders and triggers are loaded.
+       */
+      public static void preload() {
+            List<String> uuids = new ArrayList<>();
+            for (UUID uuid : getActivePlayers()) {
+                  if (KNOWN.contains(uuid) && !CACHE.containsKey(uuid)) uuids.add(uuid.toString());
+            }
+            if (uuids.isEmpty())
+                  return;
+            
+            for (Document document : collection.find(Filters.in("uuid", uuids))) {
+                  MarketProfile profile = getFromDocument(document);
+                  CACHE.putIfAbsent(profile.uuid, profile);
+            }
+            instance.logInfo("Preloaded the MarketProfiles (" + uuids.size() + ") of players with orders.");
+      }
+      
+      // Players whose profiles are used by the matching threads or the main thread at any time
+      private static Set<UUID> getActivePlayers() {
+            Set<UUID> players = new HashSet<>(OrderBook.getPlayersWithOrders());
+            players.addAll(Trigger.getPlayersWithStops());
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                  players.add(player.getUniqueId());
+            }
+            return players;
+      }
+      
+      private static MarketProfile getFromDocument(Document document) {
+            List<UUID> blockedPlayers = new ArrayList<>();
+            for (String string : document.getList("blockedPlayers", String.class, new ArrayList<>())) {
+                  blockedPlayers.add(UUID.fromString(string));
+            }
+            
+            MarketProfile profile = new MarketProfile(UUID.fromString(document.getString("uuid")));
+            profile.setRestricted(document.getBoolean("restricted", false));
+            profile.setHasJoinedBefore(document.getBoolean("hasJoinedBefore", false));
+            profile.setBlockedPlayers(blockedPlayers);
+            profile.setBuyOrdersMade(document.getInteger("buyOrdersMade", 0));
+            profile.setSellOrdersMade(document.getInteger("sellOrdersMade", 0));
+            profile.setTradesMade(document.getInteger("tradesMade", 0));
+            profile.setMoneySpent(Money.read(document.get("moneySpent")));
+            profile.setMoneyGained(Money.read(document.get("moneyGained")));
+            profile.setItemsSold(document.getInteger("itemsSold", 0));
+            profile.setItemsBought(document.getInteger("itemsBought", 0));
+            
+            List<MarketNotifier.Fill> inbox = new ArrayList<>();
+            for (Document fill : document.getList("inbox", Document.class, new ArrayList<>())) {
+                  inbox.add(MarketNotifier.Fill.fromDocument(fill));
+            }
+            profile.setInbox(inbox);
+            return profile;
       }
       
       private static MarketProfile getFromFiles(UUID uuid) {
@@ -238,32 +493,36 @@ public class MarketProfile {
             profile.setBuyOrdersMade(yaml.getInt("buyOrdersMade"));
             profile.setSellOrdersMade(yaml.getInt("sellOrdersMade"));
             profile.setTradesMade(yaml.getInt("tradesMade"));
-            profile.setMoneySpent(yaml.getDouble("moneySpent"));
-            profile.setMoneyGained(yaml.getDouble("moneyGained"));
+            profile.setMoneySpent(Money.of(yaml.getDouble("moneySpent")));
+            profile.setMoneyGained(Money.of(yaml.getDouble("moneyGained")));
             profile.setItemsSold(yaml.getInt("itemsSold"));
             profile.setItemsBought(yaml.getInt("itemsBought"));
-            
-            profile.save();
             return profile;
       }
       
+      /**
+       * Gets a profile from the cache, or reads it from the database on the calling thread.
+       * Profiles of online players and of players with orders or stops are always in the cache.
+       */
       public static MarketProfile get(UUID uuid) {
             // Get from CACHE
-            if (CACHE.containsKey(uuid)) {
-                  return CACHE.get(uuid);
+            MarketProfile cached = CACHE.get(uuid);
+            if (cached != null) {
+                  cached.lastUsed = System.currentTimeMillis();
+                  return cached;
             }
             
-            // If the MarketProfile does not exist
-            String filename = uuid.toString() + ".yml";
-            if (!new File(PROFILES_PATH + filename).exists()) {
-                  MarketProfile profile = new MarketProfile(uuid);
-                  profile.save();
-                  return profile;
+            // If the MarketProfile does not exist, there is no need to ask the database
+            MarketProfile profile;
+            if (!KNOWN.contains(uuid)) {
+                  profile = new MarketProfile(uuid);
+            } else {
+                  Document document = collection.find(Filters.eq("uuid", uuid.toString())).first();
+                  profile = document == null ? new MarketProfile(uuid) : getFromDocument(document);
             }
-      
-            // Get from files
-            MarketProfile profile = getFromFiles(uuid);
-            profile.save();
-            return profile;
+            
+            // Another thread might have loaded it in the meantime
+            MarketProfile previous = CACHE.putIfAbsent(uuid, profile);
+            return previous == null ? profile : previous;
       }
 }
@@ -0,0 +1,168 @@
+package net.pixlies.business.market;
+
+import net.pixlies.business.ProtoBusinesss;
+import net.pixlies.core.economy.Money;
+import net.pixlies.core.modules.configuration.ModuleConfig;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Market statistics, globally and per item.
+ * Counted with adders so that the matching threads never contend on them, and written to stats.yml on a timer.
+ * stats.yml is only read and changed on the main thread, and only the text of a snapshot of it is written to the
+ * disk asynchronously.
+ * Money is counted in micro-coins, and written in coins.
+ *
+ * @author vyketype
+ */
+public class MarketStats {
+    private static final ProtoBusinesss instance = ProtoBusinesss.getInstance();
+    
+    private static final Counters GLOBAL = new Counters();
+    private static final Map<OrderItem, Counters> ITEMS = new EnumMap<>(OrderItem.class);
+    
+    // Snapshots taken and written, so that an older snapshot never overwrites a newer one
+    private static long taken = 0;
+    private static long written = 0;
+    
+    static {
+        for (OrderItem item : OrderItem.values()) {
+            ITEMS.put(item, new Counters());
+        }
+    }
+    
+    public static void addBuyOrder(OrderItem item) {
+        GLOBAL.buyOrders.increment();
+        ITEMS.get(item).buyOrders.increment();
+    }
+    
+    public static void addSellOrder(OrderItem item) {
+        GLOBAL.sellOrders.increment();
+        ITEMS.get(item).sellOrders.increment();
+    }
+    
+    public static void addTrade(OrderItem item, int items, long money) {
+        GLOBAL.addTrade(items, money);
+        ITEMS.get(item).addTrade(items, money);
+    }
+    
+    /**
+     * @param item the item, or null for the whole market
+     */
+    public static Counters get(@Nullable OrderItem item) {
+        return item == null ? GLOBAL : ITEMS.get(item);
+    }
+    
+    public static void reset() {
+        GLOBAL.reset();
+        ITEMS.values().forEach(Counters::reset);
+    }
+    
+    public static void load() {
+        ModuleConfig stats = instance.getStats();
+        GLOBAL.load(stats, "market.");
+        ITEMS.forEach((item, counters) -> counters.load(stats, "items." + item.name() + "."));
+    }
+    
+    /**
+     * Writes every counter to stats.yml, asynchronously unless the plugin is disabling.
+     * Only called on the main thread.
+     */
+    public static void flush() {
+        ModuleConfig stats = instance.getStats();
+        GLOBAL.write(stats, "market.");
+        ITEMS.forEach((item, counters) -> counters.write(stats, "items." + item.name() + "."));
+        
+        String text = stats.saveToString();
+        long snapshot = ++taken;
+        if (instance.isEnabled()) {
+            instance.getServer().getScheduler().runTaskAsynchronously(instance, () -> write(snapshot, text));
+        } else {
+            write(snapshot, text);
+        }
+    }
+    
+    private static synchronized void write(long snapshot, String text) {
+        if (snapshot <= written) return;
+        
+        File file = new File(instance.getDataFolder(), "stats.yml");
+        File temp = new File(instance.getDataFolder(), "stats.yml.tmp");
+        try {
+            Files.writeString(temp.toPath(), text, StandardCharsets.UTF_8);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            written = snapshot;
+        } catch (IOException ex) {
+            instance.getLogger().log(Level.WARNING, "Unable to write the market statistics.", ex);
+        }
+    }
+    
+    // --------------------------------------------------------------------------------------------
+    
+    public static class Counters {
+        private final LongAdder buyOrders = new LongAdder();
+        private final LongAdder sellOrders = new LongAdder();
+        private final LongAdder trades = new LongAdder();
+        private final LongAdder itemsTraded = new LongAdder();
+        private final LongAdder moneyTraded = new LongAdder();
+        
+        private void addTrade(int items, long money) {
+            trades.increment();
+            itemsTraded.add(items);
+            moneyTraded.add(money);
+        }
+        
+        public long getBuyOrders() {
+            return buyOrders.sum();
+        }
+        
+        public long getSellOrders() {
+            return sellOrders.sum();
+        }
+        
+        public long getTrades() {
+            return trades.sum();
+        }
+        
+        public long getItemsTraded() {
+            return itemsTraded.sum();
+        }
+        
+        public long getMoneyTraded() {
+            return moneyTraded.sum();
+        }
+        
+        private void reset() {
+            buyOrders.reset();
+            sellOrders.reset();
+            trades.reset();
+            itemsTraded.reset();
+            moneyTraded.reset();
+        }
+        
+        private void load(ModuleConfig stats, String path) {
+            reset();
+            buyOrders.add(stats.getLong(path + "buyOrders"));
+            sellOrders.add(stats.getLong(path + "sellOrders"));
+            trades.add(stats.getLong(path + "trades"));
+            itemsTraded.add(stats.getLong(path + "itemsTraded"));
+            moneyTraded.add(Money.of(stats.getDouble(path + "moneyTraded")));
+        }
+        
+        private void write(ModuleConfig stats, String path) {
+            stats.set(path + "buyOrders", getBuyOrders());
+            stats.set(path + "sellOrders", getSellOrders());
+            stats.set(path + "trades", getTrades());
+            stats.set(path + "itemsTraded", getItemsTraded());
+            stats.set(path + "moneyTraded", Money.toDouble(getMoneyTraded()));
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package net.pixlies.business.market;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.pixlies.business.ProtoBusinesss;
+import net.pixlies.business.locale.MarketLang;
+import net.pixlies.nations.nations.interfaces.NationProfile;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of the order books.
+ * Every player and every nation gets a token bucket of orders and cancellations, so that nobody can place them
+ * faster than the configured rate. Orders being matched are capped, and the ones over the cap wait in a bounded
+ * queue, which rejects new orders once it is full.
+ * Only used on the main thread.
+ *
+ * @author vyketype
+ */
+public class MarketThrottle {
+    private static final ProtoBusinesss instance = ProtoBusinesss.getInstance();
+    
+    private static final Map<UUID, TokenBucket> PLAYERS = new HashMap<>();
+    private static final Map<String, TokenBucket> NATIONS = new HashMap<>();
+    
+    // Orders waiting for one of the orders being matched to finish
+    private static final Queue<Runnable> WAITING = new ArrayDeque<>();
+    private static int inFlight = 0;
+    // Set on shutdown, from then on orders are placed whatever the cap
+    private static boolean closing = false;
+    
+    // For staff, since the server started
+    private static final long[] COUNTERS = new long[Result.values().length];
+    private static long queued = 0;
+    private static int peakInFlight = 0;
+    
+    /**
+     * Takes a token from the buckets of a player and their nation.
+     *
+     * @param placement true for a new order, which also needs room in the books
+     * @return ADMITTED, or why the player has to wait
+     */
+    public static Result admit(Player player, boolean placement) {
+        Result result = check(player, placement);
+        COUNTERS[result.ordinal()]++;
+        return result;
+    }
+    
+    /**
+     * Places an order which was admitted, now if there is room in the books, or once there is.
+     *
+     * @param placement places the order and returns its future, like OrderBook.buy
+     * @return a future completed once the order is matched
+     */
+    public static CompletableFuture<Order> place(Supplier<CompletableFuture<Order>> placement) {
+        CompletableFuture<Order> future = new CompletableFuture<>();
+        Runnable run = () -> {
+            inFlight++;
+            peakInFlight = Math.max(peakInFlight, inFlight);
+            placement.get().whenComplete((order, throwable) -> {
+                inFlight--;
+                Runnable next = WAITING.poll();
+                if (next != null) next.run();
+                
+                if (throwable != null) future.completeExceptionally(throwable);
+                else future.complete(order);
+            });
+        };
+        
+        if (closing || inFlight < getMaxInFlight()) {
+            run.run();
+        } else {
+            WAITING.add(run);
+            queued++;
+        }
+        return future;
+    }
+    
+    /**
+     * Places every waiting order, whatever the cap, so that none is lost on shutdown.
+     * Orders placed afterwards, like stops fired while the matching engine is drained, never wait either. Called
+     * before the matching engine is shut down, which keeps running until they are all matched.
+     */
+    public static void placeAllWaiting() {
+        closing = true;
+        Runnable next;
+        while ((next = WAITING.poll()) != null) {
+            next.run();
+        }
+    }
+    
+    /**
+     * Drops the buckets which are full again, they would be created the same way.
+     */
+    public static void evictIdle() {
+        long now = System.nanoTime();
+        PLAYERS.values().removeIf(bucket -> bucket.isFull(now));
+        NATIONS.values().removeIf(bucket -> bucket.isFull(now));
+    }
+    
+    public static long getCount(Result result) {
+        return COUNTERS[result.ordinal()];
+    }
+    
+    public static int getInFlight() {
+        return inFlight;
+    }
+    
+    public static int getWaiting() {
+        return WAITING.size();
+    }
+    
+    public static long getQueued() {
+        return queued;
+    }
+    
+    public static int getPeakInFlight() {
+        return peakInFlight;
+    }
+    
+    public static int getMaxInFlight() {
+        return instance.getConfig().getInt("maxOrdersInFlight", 64);
+    }
+    
+    public static int getMaxWaiting() {
+        return instance.getConfig().getInt("maxOrdersQueued", 256);
+    }
+    
+    /**
+     * @return the players who were throttled the most, with how many times, highest first
+     */
+    public static List<Map.Entry<UUID, Long>> getMostThrottled(int amount) {
+        List<Map.Entry<UUID, Long>> list = new ArrayList<>();
+        PLAYERS.forEach((uuid, bucket) -> {
+            if (bucket.rejected > 0) list.add(Map.entry(uuid, bucket.rejected));
+        });
+        list.sort(Map.Entry.<UUID, Long>comparingByValue().reversed());
+        return list.subList(0, Math.min(amount, list.size()));
+    }
+    
+    private static Result check(Player player, boolean placement) {
+        // Checked first, so that no token is spent on an order which cannot be placed
+        if (placement && inFlight >= getMaxInFlight() && WAITING.size() >= getMaxWaiting())
+            return Result.OVERLOADED;
+        
+        long now = System.nanoTime();
+        TokenBucket playerBucket = PLAYERS.computeIfAbsent(player.getUniqueId(), uuid -> new TokenBucket(
+                instance.getConfig().getInt("playerOrderBurst", 10),
+                instance.getConfig().getDouble("playerOrdersPerSecond", 1.0)
+        ));
+        
+        @Nullable String nationId = NationProfile.get(player.getUniqueId()).getNationId();
+        TokenBucket nationBucket = nationId == null ? null : NATIONS.computeIfAbsent(nationId, id -> new TokenBucket(
+                instance.getConfig().getInt("nationOrderBurst", 40),
+                instance.getConfig().getDouble("nationOrdersPerSecond", 4.0)
+        ));
+        
+        if (!playerBucket.hasToken(now)) {
+            playerBucket.rejected++;
+            return Result.PLAYER_THROTTLED;
+        }
+        if (nationBucket != null && !nationBucket.hasToken(now)) {
+            playerBucket.rejected++;
+            return Result.NATION_THROTTLED;
+        }
+        
+        playerBucket.tokens--;
+        if (nationBucket != null) nationBucket.tokens--;
+        return Result.ADMITTED;
+    }
+    
+    // --------------------------------------------------------------------------------------------
+    
+    @Getter
+    @AllArgsConstructor
+    public enum Result {
+        ADMITTED(null),
+        PLAYER_THROTTLED(MarketLang.MARKET_THROTTLED_PLAYER),
+        NATION_THROTTLED(MarketLang.MARKET_THROTTLED_NATION),
+        OVERLOADED(MarketLang.MARKET_OVERLOADED);
+        
+        private final @Nullable MarketLang message;
+    }
+    
+    private static final class TokenBucket {
+        private final int capacity;
+        private final double perNano;
+        
+        private double tokens;
+        private long refilledAt;
+        
+        // Times the player was throttled, only for the buckets of players
+        private long rejected;
+        
+        private TokenBucket(int capacity, double perSecond) {
+            this.capacity = capacity;
+            perNano = perSecond / 1_000_000_000d;
+            tokens = capacity;
+            refilledAt = System.nanoTime();
+        }
+        
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * perNano);
+            refilledAt = now;
+        }
+        
+        private boolean hasToken(long now) {
+            refill(now);
+            return tokens >= 1;
+        }
+        
+        private boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity && rejected == 0;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package net.pixlies.business.market;
+
+import net.pixlies.business.ProtoBusinesss;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the matching of the order books off the main thread.
+ * Every book is owned by one single-threaded executor, so the orders of a book are matched one after another while
+ * different books can be matched in parallel.
+ * Results are handed back to the main thread in one batch per tick.
+ *
+ * @author vyketype
+ */
+public class MatchingEngine {
+    private static final ProtoBusinesss instance = ProtoBusinesss.getInstance();
+    
+    private final ExecutorService[] executors;
+    private final BlockingQueue<Runnable> completions = new LinkedBlockingQueue<>();
+    // Tasks submitted whose result did not run on the main thread yet
+    private final AtomicInteger pending = new AtomicInteger();
+    private final BukkitTask drainTask;
+    
+    public MatchingEngine(int threads) {
+        executors = new ExecutorService[Math.max(1, threads)];
+        for (int i = 0; i < executors.length; i++) {
+            String name = "ProtoBusiness-Matching-" + i;
+            executors[i] = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, name));
+        }
+        drainTask = instance.getServer().getScheduler().runTaskTimer(instance, this::drain, 1, 1);
+    }
+    
+    /**
+     * Runs a task on the executor owning a book.
+     *
+     * @param item the item of the book
+     * @param task the task, which must only touch that book
+     * @return a future completed on the main thread
+     */
+    public <T> CompletableFuture<T> submit(OrderItem item, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        pending.incrementAndGet();
+        executors[item.ordinal() % executors.length].execute(() -> {
+            try {
+                T result = task.get();
+                completions.add(() -> {
+                    pending.decrementAndGet();
+                    future.complete(result);
+                });
+            } catch (Throwable t) {
+                t.printStackTrace();
+                completions.add(() -> {
+                    pending.decrementAndGet();
+                    future.completeExceptionally(t);
+                });
+            }
+        });
+        return future;
+    }
+    
+    private void drain() {
+        Runnable completion;
+        while ((completion = completions.poll()) != null) {
+            completion.run();
+        }
+    }
+    
+    /**
+     * Finishes every submitted task and runs their results on the calling thread, which must be the main thread.
+     * Results can submit more tasks, like stops placing their orders, so the executors are only shut down once no
+     * task is left.
+     */
+    public void shutdown() {
+        drainTask.cancel();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        try {
+            while (pending.get() > 0) {
+                Runnable completion = completions.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (completion == null) {
+                    instance.getLogger().severe("Matching of the order books did not finish in time.");
+                    break;
+                }
+                completion.run();
+            }
+        } catch (InterruptedException ignored) {
+            // Shutting down anyway
+        }
+        
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+        for (ExecutorService executor : executors) {
+            try {
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS))
+                    instance.getLogger().severe("Matching of the order books did not finish in time.");
+            } catch (InterruptedException ignored) {
+                // Shutting down anyway
+            }
+        }
+        drain();
+    }
+}
@@ -5,11 +5,15 @@ import lombok.Getter;
 import lombok.Setter;
 import net.pixlies.business.ProtoBusinesss;
 import net.pixlies.business.handlers.impl.MarketHandler;
+import net.pixlies.core.economy.Money;
 import net.pixlies.core.utils.TextUtils;
 import net.pixlies.nations.nations.Nation;
 import net.pixlies.nations.nations.interfaces.NationProfile;
 import org.bukkit.Bukkit;
+import org.jetbrains.annotations.Nullable;
 
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.*;
 
 /**
@@ -32,8 +36,12 @@ public class Order {
     private final Type type;
     private final UUID playerUUID;
     
+    // Limit price per item, in micro-coins
     @Setter
-    private double price;
+    private long price;
+    
+    // Price per item taken from the player when a buy order was placed, with taxes, in micro-coins
+    private long escrowPrice;
     
     @Setter
     private int amount;
@@ -41,78 +49,101 @@ public class Order {
     private int volume;
     
     private final List<Trade> trades;
-    private final Map<Double, Boolean> refunds;
     
-    public Order(Type type, String bookItem, long timestamp, UUID playerUUID, double price, int amount) {
+    // Every refund of the order, and the part of it which was not claimed yet
+    private long totalRefunds;
+    private long refundableCoins;
+    
+    private TimeInForce timeInForce;
+    
+    // When the order leaves its book if it was not filled, in milliseconds, or -1 if it never does
+    private long expiresAt;
+    private boolean expired;
+    
+    // Items given back by a sell order which expired, not claimed yet
+    private int expiredVolume;
+    
+    public Order(Type type, String bookItem, long timestamp, UUID playerUUID, long price, int amount) {
         orderId = TextUtils.generateId(9);
         this.bookItem = bookItem;
         this.type = type;
         this.timestamp = timestamp;
         this.playerUUID = playerUUID;
         this.price = price;
+        escrowPrice = Money.ZERO;
         this.amount = amount;
         volume = amount;
         trades = new LinkedList<>();
-        refunds = new HashMap<>();
+        totalRefunds = Money.ZERO;
+        refundableCoins = Money.ZERO;
+        timeInForce = TimeInForce.GTC;
+        expiresAt = -1;
+        expired = false;
+        expiredVolume = 0;
     }
     
     // Used to display price for order items
-    public double getTaxedPrice() {
+    public long getTaxedPrice() {
         NationProfile profile = NationProfile.get(playerUUID);
         Nation nation = Nation.getFromId(profile.getNationId());
         if (nation == null)
             return price;
-        return price * (1 + nation.getTaxRate());
+        return Money.tax(price, nation.getTaxRate());
+    }
+    
+    /**
+     * Fixes the price per item taken from the player for a buy order, with the taxes as they are now.
+     * Refunds of the order give back that price, whatever the taxes are by then.
+     *
+     * @return the money to take for the whole order
+     */
+    public long escrow() {
+        escrowPrice = getTaxedPrice();
+        return Money.multiply(escrowPrice, amount);
     }
     
     // Used to display price for recent orders and refunds
-    public double getTariffedPrice(UUID matchingUUID) {
-        String initId = NationProfile.get(playerUUID).getNationId();
-        String matchId = NationProfile.get(matchingUUID).getNationId();
+    public long getTariffedPrice(UUID matchingUUID) {
+        return getTariffedPrice(playerUUID, price, matchingUUID);
+    }
     
-        if (playerUUID == matchingUUID)
+    public static long getTariffedPrice(UUID playerUUID, long price, UUID matchingUUID) {
+        if (playerUUID.equals(matchingUUID))
             return price;
-    
-        for (Tariff tariff : Tariff.getAll()) {
-            if (Objects.equals(tariff.getInitId(), initId) && Objects.equals(tariff.getTargetId(), matchId)) {
-                return price * (1 + tariff.getRate());
-            }
-        }
-    
-        return price;
+        
+        String initId = NationProfile.get(playerUUID).getNationId();
+        String matchId = NationProfile.get(matchingUUID).getNationId();
+        return Money.tax(price, Tariff.getRate(initId, matchId));
     }
     
     /**
      * Զըխխը՛մ։
      */
     // Used to display price for trades
-    public double getTaxedTariffedPrice(UUID matchingUUID) {
+    public long getTaxedTariffedPrice(UUID matchingUUID) {
+        return getTaxedTariffedPrice(playerUUID, price, matchingUUID);
+    }
+    
+    public static long getTaxedTariffedPrice(UUID playerUUID, long price, UUID matchingUUID) {
         String initId = NationProfile.get(playerUUID).getNationId();
-        String matchId = NationProfile.get(matchingUUID).getNationId();
         
-        if (Nation.getFromId(initId) == null)
+        Nation nation = Nation.getFromId(initId);
+        if (nation == null || playerUUID.equals(matchingUUID))
             return price;
-        double taxRate = Nation.getFromId(initId).getTaxRate();
-    
-        if (playerUUID == matchingUUID)
+        
+        String matchId = NationProfile.get(matchingUUID).getNationId();
+        Tariff tariff = Tariff.get(initId, matchId);
+        if (tariff == null)
             return price;
-    
-        for (Tariff tariff : Tariff.getAll()) {
-            if (Objects.equals(tariff.getInitId(), initId) && Objects.equals(tariff.getTargetId(), matchId)) {
-                return price * (1 + taxRate + tariff.getRate());
-            }
-        }
         
-        return price;
+        return Money.tax(price, nation.getTaxRate() + tariff.getRate());
     }
     
-    public void cancel() {
-        OrderBook book = OrderBook.get(bookItem);
-        switch (type) {
-            case BUY -> book.getBuyOrders().remove(this);
-            case SELL -> book.getSellOrders().remove(this);
-        }
-        book.save();
+    /**
+     * @return the volume which was left in the order, to be refunded
+     */
+    public int cancel() {
+        return OrderBook.get(bookItem).cancel(this);
     }
     
     public boolean isCancellable() {
@@ -122,6 +153,42 @@ public class Order {
         return true;
     }
     
+    public boolean hasGoodsToClaim() {
+        return !isCancellable() || refundableCoins != 0 || expiredVolume != 0;
+    }
+    
+    public boolean expires() {
+        return expiresAt != -1;
+    }
+    
+    /**
+     * Sets when the order leaves its book, counted from the time it was placed.
+     */
+    public void setTimeInForce(TimeInForce timeInForce) {
+        this.timeInForce = timeInForce;
+        expiresAt = timeInForce.getExpiry(timestamp);
+    }
+    
+    /**
+     * Gives back the volume left in an expired order through its refunds: the money of a buy order is added to the
+     * refundable coins, the items of a sell order to the expired volume.
+     * Called under the lock of the order's book, once the order left it.
+     */
+    void expire(int remaining) {
+        expired = true;
+        if (type == Type.BUY) addRefund(Money.multiply(escrowPrice, remaining));
+        else expiredVolume += remaining;
+    }
+    
+    /**
+     * @return the items given back by the expired order, which are then claimed
+     */
+    public int claimExpiredVolume() {
+        int volume = expiredVolume;
+        expiredVolume = 0;
+        return volume;
+    }
+    
     public int getItemsToClaim() {
         int items = 0;
         for (Trade trade : trades) {
@@ -131,40 +198,24 @@ public class Order {
         return items;
     }
     
-    public double getCoinsToClaim() {
-        double coins = 0;
+    public long getCoinsToClaim() {
+        long coins = Money.ZERO;
         for (Trade trade : trades) {
             if (trade.isClaimed()) continue;
-            coins += trade.getPrice() * trade.getAmount();
+            coins = Money.add(coins, Money.multiply(trade.getPrice(), trade.getAmount()));
         }
         return coins;
     }
     
-    public double getTotalRefunds() {
-        double totalRefunds = 0;
-        for (Double value : refunds.keySet()) {
-            totalRefunds += value;
-        }
-        return totalRefunds;
-    }
-    
-    public double getRefundableCoins() {
-        double claimableRefunds = 0;
-        for (Map.Entry<Double, Boolean> entry : refunds.entrySet()) {
-            if (entry.getValue()) continue;
-            claimableRefunds += entry.getKey();
-        }
-        return claimableRefunds;
+    public void addRefund(long refund) {
+        totalRefunds = Money.add(totalRefunds, refund);
+        refundableCoins = Money.add(refundableCoins, refund);
     }
     
     public void refundPlayer() {
         NationProfile profile = NationProfile.get(playerUUID);
-        for (Map.Entry<Double, Boolean> entry : refunds.entrySet()) {
-            if (entry.getValue()) continue;
-            profile.addBalance(entry.getKey());
-            refunds.put(entry.getKey(), true);
-        }
-        profile.save();
+        profile.addBalance(refundableCoins);
+        refundableCoins = Money.ZERO;
         save();
     }
     
@@ -173,56 +224,33 @@ public class Order {
     }
     
     public void save() {
-        OrderBook book = OrderBook.get(bookItem);
-        if (type == Order.Type.BUY) {
-            for (Order order : book.getBuyOrders()) {
-                if (!Objects.equals(order.getOrderId(), orderId)) continue;
-                book.getBuyOrders().set(book.getBuyOrders().indexOf(order), this);
-                book.save();
-                return;
-            }
-            book.getBuyOrders().add(this);
-        } else {
-            for (Order order : book.getSellOrders()) {
-                if (!Objects.equals(order.getOrderId(), orderId)) continue;
-                book.getSellOrders().set(book.getBuyOrders().indexOf(order), this);
-                book.save();
-                return;
-            }
-            book.getSellOrders().add(this);
-        }
-        book.save();
-    
+        OrderBook.get(bookItem).save();
+        MarketJournal.append(MarketJournal.Event.CLAIM, this);
         instance.logInfo("Saved order " + orderId + " to the CACHE.");
     }
     
     // Աստուծոյ սիրոյն, աշխատի՛ր։
     // Վա՜յ անասուն, վա՜յ։
     public String toString(UUID initialUUID) {
-        String playerName = Objects.requireNonNull(Bukkit.getPlayer(playerUUID)).getName();
+        return toString(type, playerUUID, amount, getTariffedPrice(initialUUID));
+    }
+    
+    public static String toString(Type type, UUID playerUUID, int amount, long price) {
+        String playerName = Objects.requireNonNullElse(Bukkit.getOfflinePlayer(playerUUID).getName(), "Unknown");
         String prefix = type == Order.Type.BUY ? "§a§lBUY §r§a" : "§6§lSELL §r§6";
-        double price = getTariffedPrice(initialUUID);
-        return " §8» " + prefix + amount + "§8x §7@ §6" + price + "§7 each from §b" + playerName;
+        return " §8» " + prefix + amount + "§8x §7@ §6" + Money.format(price) + "§7 each from §b" + playerName;
     }
     
     @Override
     public String toString() {
         String prefix = type == Order.Type.BUY ? "§a§lBUY §r§a" : "§6§lSELL §r§6";
-        return " §8» " + prefix + amount + "§8x §7@ §6" + getTaxedPrice() + "§7 each §8(with tax)";
+        return " §8» " + prefix + amount + "§8x §7@ §6" + Money.format(getTaxedPrice()) + "§7 each §8(with tax)";
     }
     
     // --------------------------------------------------------------------------------------------
     
-    public static Order get(String orderId) {
-        for (OrderBook book : OrderBook.getAll()) {
-            for (Order order : book.getBuyOrders()) {
-                if (Objects.equals(order.getOrderId(), orderId)) return order;
-            }
-            for (Order order : book.getSellOrders()) {
-                if (Objects.equals(order.getOrderId(), orderId)) return order;
-            }
-        }
-        return null;
+    public static @Nullable Order get(String orderId) {
+        return OrderBook.getOrder(orderId);
     }
     
     // --------------------------------------------------------------------------------------------
@@ -231,4 +259,35 @@ public class Order {
         BUY,
         SELL
     }
+    
+    /**
+     * How long an order stays in its book if it is not filled.
+     * Never reorder these, the ordinals are written to the journal.
+     */
+    @Getter
+    @AllArgsConstructor
+    public enum TimeInForce {
+        GTC("Until cancelled"),
+        GTT("For a limited time"),
+        DAY("Until the end of the day");
+        
+        private final String name;
+        
+        /**
+         * @param placedAt when the order was placed, in milliseconds
+         * @return when the order expires, in milliseconds, or -1 if it never does
+         */
+        public long getExpiry(long placedAt) {
+            return switch (this) {
+                case GTC -> -1;
+                case GTT -> placedAt + instance.getConfig().getLong("orderExpiryHours", 72) * 3600000L;
+                case DAY -> Instant.ofEpochMilli(placedAt).atZone(ZoneId.systemDefault()).toLocalDate().plusDays(1)
+                        .atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            };
+        }
+        
+        public TimeInForce next() {
+            return values()[(ordinal() + 1) % values().length];
+        }
+    }
 }
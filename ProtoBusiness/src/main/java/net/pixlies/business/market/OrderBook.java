@@ -1,15 +1,19 @@
 package net.pixlies.business.market;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import net.pixlies.business.ProtoBusinesss;
+import net.pixlies.business.util.MarketUtil;
+import net.pixlies.core.economy.Money;
+import net.pixlies.nations.Nations;
+import net.pixlies.nations.nations.Nation;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.*;
-import java.util.logging.Level;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Represents the order book for one item.
@@ -17,305 +21,444 @@ import java.util.logging.Level;
  * @author vyketype
  */
 @Getter
-@AllArgsConstructor
 public class OrderBook {
     private static final ProtoBusinesss instance = ProtoBusinesss.getInstance();
     private static final String BOOKS_PATH = instance.getDataFolder().getAbsolutePath() + "/orderbooks/";
     private static final Map<String, OrderBook> CACHE = new HashMap<>();
     
+    // Number of price levels of each side in the depth snapshots
+    private static final int DEPTH_LEVELS = 10;
+    
+    // Every order of every book by order ID, including the settled ones, and the live orders by player
+    private static final Map<String, Order> ORDERS = new HashMap<>();
+    private static final Map<UUID, Set<Order>> PLAYER_ORDERS = new HashMap<>();
+    
     private final OrderItem item;
     
-    private final List<Order> buyOrders;
-    private final List<Order> sellOrders;
+    private final OrderBookSide buySide;
+    private final OrderBookSide sellSide;
+    
+    // Latest view of the book for readers, replaced after every change
+    private volatile DepthSnapshot depth = DepthSnapshot.EMPTY;
+    
+    // Book price of the latest trade, in micro-coins, or 0 if the item was never traded
+    private volatile long lastPrice;
+    
+    // Price alerts and stop orders, fired by the trades of this book
+    private final TriggerBook triggers = new TriggerBook();
+    
+    // Work of the current match which has to be done on the main thread
+    @Getter(AccessLevel.NONE)
+    private final List<Runnable> effects = new ArrayList<>();
     
     public OrderBook(OrderItem item) {
         this.item = item;
-        buyOrders = new ArrayList<>();
-        sellOrders = new ArrayList<>();
+        buySide = new OrderBookSide(Order.Type.BUY);
+        sellSide = new OrderBookSide(Order.Type.SELL);
+    }
+    
+    /**
+     * @param lastPrice the book price of the latest trade, kept by the journal
+     */
+    public OrderBook(OrderItem item, Collection<Order> orders, long lastPrice) {
+        this(item);
+        this.lastPrice = lastPrice;
+        
+        // Oldest first, so that time priority inside each price level is kept
+        List<Order> sorted = new ArrayList<>(orders);
+        sorted.sort(Comparator.comparingLong(Order::getTimestamp));
+        
+        for (Order order : sorted) {
+            boolean live = order.getVolume() > 0;
+            if (live) {
+                getSide(order.getType()).add(order);
+            } else {
+                // Settled orders with nothing left to claim are dropped
+                if (!order.hasGoodsToClaim()) continue;
+                Mailbox.deposit(order);
+            }
+            index(order, live);
+        }
+        publishDepth();
     }
     
     public String getItemName() {
         return item.getName();
     }
     
+    /**
+     * @return every buy order of this book with volume left
+     */
+    public synchronized List<Order> getBuyOrders() {
+        return buySide.getOrders();
+    }
+    
+    /**
+     * @return every sell order of this book with volume left
+     */
+    public synchronized List<Order> getSellOrders() {
+        return sellSide.getOrders();
+    }
+    
     public List<String> getRecentOrders(UUID initialUUID) {
+        DepthSnapshot depth = this.depth;
         List<String> list = new ArrayList<>();
-        
-        int buyIndex = 0;
-        for (Order order : buyOrders) {
-            if (buyIndex == 4) break;
-            list.add(order.toString(initialUUID));
-            buyIndex++;
-        }
-        
-        int sellIndex = 0;
-        for (Order order : sellOrders) {
-            if (sellIndex == 4) break;
-            list.add(order.toString(initialUUID));
-            sellIndex++;
-        }
-        
+        depth.topBuyOrders().forEach(order -> list.add(order.toString(initialUUID)));
+        depth.topSellOrders().forEach(order -> list.add(order.toString(initialUUID)));
         return list;
     }
     
-    public double getLowestBuyPrice(UUID matching) {
-        List<Double> prices = new ArrayList<>();
-        buyOrders.forEach(order -> prices.add(order.getTaxedTariffedPrice(matching)));
-        if (prices.isEmpty()) return 0;
-        else return Collections.min(prices);
+    /**
+     * Gets the price of the best (highest) buy order, as seen by another player.
+     *
+     * @param matching the player looking at the price
+     * @return the price with taxes and tariffs in micro-coins, or 0 if there are no buy orders
+     */
+    public long getBestBuyPrice(UUID matching) {
+        return getBestPrice(depth.getBestBid(), matching);
     }
     
-    public double getHighestSellPrice(UUID matching) {
-        List<Double> prices = new ArrayList<>();
-        sellOrders.forEach(order -> prices.add(order.getTaxedTariffedPrice(matching)));
-        if (prices.isEmpty()) return 0;
-        else return Collections.max(prices);
+    /**
+     * Gets the price of the best (lowest) sell order, as seen by another player.
+     *
+     * @param matching the player looking at the price
+     * @return the price with taxes and tariffs in micro-coins, or 0 if there are no sell orders
+     */
+    public long getBestSellPrice(UUID matching) {
+        return getBestPrice(depth.getBestAsk(), matching);
     }
     
-    public void buy(Order order) {
+    /**
+     * Places a buy order, which is then matched on the matching thread of this book.
+     *
+     * @return a future completed on the main thread once the order is matched
+     */
+    public CompletableFuture<Order> buy(Order order) {
         MarketProfile profile = MarketProfile.get(order.getPlayerUUID());
         profile.addBuy();
         profile.save();
         
-        instance.getStats().set("market.buyOrders", instance.getStats().getInt("market.buyOrders") + 1);
+        MarketStats.addBuyOrder(item);
         
-        buyOrders.add(order);
-        save();
-        processOrder(order, sellOrders);
+        return submit(order);
     }
     
-    public void sell(Order order) {
+    /**
+     * Places a sell order, which is then matched on the matching thread of this book.
+     *
+     * @return a future completed on the main thread once the order is matched
+     */
+    public CompletableFuture<Order> sell(Order order) {
         MarketProfile profile = MarketProfile.get(order.getPlayerUUID());
         profile.addSell();
         profile.save();
         
-        instance.getStats().set("market.sellOrders", instance.getStats().getInt("market.sellOrders") + 1);
+        MarketStats.addSellOrder(item);
         
-        sellOrders.add(order);
-        processOrder(order, buyOrders);
+        return submit(order);
+    }
+    
+    private CompletableFuture<Order> submit(Order order) {
+        return instance.getMatchingEngine().submit(item, () -> {
+            synchronized (this) {
+                processOrder(order);
+                List<Runnable> batch = new ArrayList<>(effects);
+                effects.clear();
+                return batch;
+            }
+        }).thenApply(batch -> {
+            batch.forEach(Runnable::run);
+            save();
+            return order;
+        });
     }
     
     /**
      * What we've come to be, what we were before.
      * Ի՞նչ եղանք հիմա, ի՞նչ էինք առաջ։
      */
-    private void processOrder(Order initialOrder, List<Order> orders) {
-        Order.Type type = initialOrder.getType();
-        for (Order matchingOrder : orders) {
-            if (initialOrder.getPlayerUUID() == matchingOrder.getPlayerUUID())
-                continue;
-            
-            // Get relative prices
-            double initialPrice = initialOrder.getTaxedTariffedPrice(matchingOrder.getPlayerUUID());
-            double matchingPrice = matchingOrder.getTaxedTariffedPrice(initialOrder.getPlayerUUID());
-            
-            boolean buyCondition = type == Order.Type.BUY && matchingPrice <= initialPrice;
-            boolean sellCondition = type == Order.Type.SELL && matchingPrice >= initialPrice;
+    private void processOrder(Order initialOrder) {
+        OrderBookSide opposite = getSide(initialOrder.getType() == Order.Type.BUY ? Order.Type.SELL : Order.Type.BUY);
+        UUID initialUUID = initialOrder.getPlayerUUID();
+        
+        // Best price first, then oldest first inside each price level
+        List<PriceLevel> touched = new ArrayList<>();
+        List<Order> matched = new ArrayList<>();
+        long low = Long.MAX_VALUE;
+        long high = Long.MIN_VALUE;
+        for (PriceLevel level : opposite.getLevels()) {
+            if (initialOrder.getVolume() == 0)
+                break;
             
-            MarketProfile initProfile = MarketProfile.get(initialOrder.getPlayerUUID());
-            MarketProfile matchProfile = MarketProfile.get(matchingOrder.getPlayerUUID());
-            if (initProfile.getBlockedPlayers().contains(matchingOrder.getPlayerUUID()))
-                continue;
-            if (matchProfile.getBlockedPlayers().contains(initialOrder.getPlayerUUID()))
-                continue;
+            // Levels are sorted, so none of the next ones can match either
+            if (!opposite.crosses(level, initialOrder.getPrice()))
+                break;
             
-            // Check if the price matches
-            if (buyCondition || sellCondition) {
-                int traded = Math.min(initialOrder.getVolume(), matchingOrder.getVolume());
-                if (traded == 0)
+            touched.add(level);
+            for (Order matchingOrder : level.getOrders()) {
+                if (initialOrder.getVolume() == 0)
+                    break;
+                
+                if (matchingOrder.getVolume() == 0 || !TradeFilter.canTrade(initialUUID, matchingOrder.getPlayerUUID()))
                     continue;
                 
+                int traded = Math.min(initialOrder.getVolume(), matchingOrder.getVolume());
                 initialOrder.decreaseVolume(traded);
                 matchingOrder.decreaseVolume(traded);
+                level.fill(traded);
                 addTrade(initialOrder, matchingOrder, traded);
-                
-                initProfile.sendNotification();
-                matchProfile.sendNotification();
+                matched.add(matchingOrder);
+                low = Math.min(low, matchingOrder.getPrice());
+                high = Math.max(high, matchingOrder.getPrice());
             }
         }
         
-        cleanUp();
+        // Filled orders leave the book and wait in the mailbox until their goods are claimed
+        List<Order> filled = opposite.prune(touched);
+        filled.forEach(Mailbox::deposit);
+        effects.add(() -> filled.forEach(OrderBook::delist));
+        
+        // Whatever is left of the order rests in the book
+        boolean live = initialOrder.getVolume() > 0;
+        if (live) getSide(initialOrder.getType()).add(initialOrder);
+        else Mailbox.deposit(initialOrder);
+        effects.add(() -> index(initialOrder, live));
+        if (live && initialOrder.expires())
+            effects.add(() -> instance.getOrderExpirationThread().schedule(initialOrder));
+        
+        matched.forEach(order -> MarketJournal.append(MarketJournal.Event.TRADE, order));
+        MarketJournal.append(MarketJournal.Event.ORDER, initialOrder);
+        
+        // Only the triggers between the lowest and highest traded prices can have been crossed
+        if (!matched.isEmpty()) {
+            lastPrice = matched.get(matched.size() - 1).getPrice();
+            List<Trigger> fired = triggers.pop(low, high);
+            if (!fired.isEmpty()) effects.add(() -> fired.forEach(Trigger::fire));
+        }
+        
+        publishDepth();
     }
     
     private void addTrade(Order initialOrder, Order matchingOrder, int traded) {
         Order.Type type = initialOrder.getType();
-        double price = matchingOrder.getTaxedTariffedPrice(initialOrder.getPlayerUUID());
-        double total = price * traded;
+        // The buyer pays the taxes and tariff of the resting order on top of its price, the seller gets its price
+        long price = matchingOrder.getTaxedTariffedPrice(initialOrder.getPlayerUUID());
+        long total = Money.multiply(price, traded);
+        long proceeds = Money.multiply(matchingOrder.getPrice(), traded);
         
         // Refunds
         // TODO: make sure this includes the price diff without the tariff (limit orders, buying cheap option)
-        double refund;
+        long refund;
         if (type == Order.Type.BUY) {
             refund = initialOrder.getPrice() - initialOrder.getTariffedPrice(matchingOrder.getPlayerUUID());
-            if (refund != 0) {
-                initialOrder.getRefunds().put(refund, false);
-                initialOrder.save();
-            }
+            if (refund != 0) initialOrder.addRefund(refund);
         } else {
             refund = matchingOrder.getPrice() - matchingOrder.getTariffedPrice(initialOrder.getPlayerUUID());
-            if (refund != 0) {
-                matchingOrder.getRefunds().put(refund, false);
-                matchingOrder.save();
-            }
+            if (refund != 0) matchingOrder.addRefund(refund);
         }
         
-        instance.getStats().set("market.trades", instance.getStats().getInt("market.trades") + 1);
-        
-        MarketProfile initial = MarketProfile.get(initialOrder.getPlayerUUID());
-        MarketProfile match = MarketProfile.get(matchingOrder.getPlayerUUID());
-        initial.addTrade();
-        match.addTrade();
-        
         // todo: store buyorder id and sellorder id
-        Trade trade = new Trade(initialOrder.getOrderId(), System.currentTimeMillis(), price, traded,
+        Trade trade = new Trade(initialOrder.getOrderId(), System.currentTimeMillis(), matchingOrder.getPrice(), traded,
                 initialOrder.getPlayerUUID(), matchingOrder.getPlayerUUID(), false);
         
-        switch (type) {
-            case BUY -> {
-                match.addMoneyGained(total);
-                match.addItemsSold(traded);
-                initial.addMoneySpent(total);
-                initial.addItemsBought(traded);
-            }
-            case SELL -> {
-                initial.addMoneyGained(total);
-                initial.addItemsSold(traded);
-                match.addMoneySpent(total);
-                match.addItemsBought(traded);
-            }
-        }
-        
-        instance.getStats().set("market.moneyTraded", instance.getStats().getInt("market.moneyTraded") + total);
-        instance.getStats().set("market.itemsTraded", instance.getStats().getInt("market.itemsTraded") + traded);
-        
         initialOrder.getTrades().add(trade);
         matchingOrder.getTrades().add(trade);
+        MarketStats.addTrade(item, traded, total);
+        CandleStore.addTrade(item, trade.getTimestamp(), Money.toDouble(price), traded);
+        creditTreasury(matchingOrder, total, proceeds);
+        
+        // Profiles are only ever got and changed on the main thread
+        effects.add(() -> {
+            MarketProfile initial = MarketProfile.get(initialOrder.getPlayerUUID());
+            MarketProfile match = MarketProfile.get(matchingOrder.getPlayerUUID());
+            initial.addTrade();
+            match.addTrade();
+            
+            switch (type) {
+                case BUY -> {
+                    match.addMoneyGained(proceeds);
+                    match.addItemsSold(traded);
+                    initial.addMoneySpent(total);
+                    initial.addItemsBought(traded);
+                }
+                case SELL -> {
+                    initial.addMoneyGained(proceeds);
+                    initial.addItemsSold(traded);
+                    match.addMoneySpent(total);
+                    match.addItemsBought(traded);
+                }
+            }
+            
+            initial.save();
+            match.save();
+            
+            MarketNotifier.addFill(initial.getUuid(), item, type, traded, type == Order.Type.BUY ? total : proceeds);
+            MarketNotifier.addFill(match.getUuid(), item, type == Order.Type.BUY ? Order.Type.SELL : Order.Type.BUY,
+                    traded, type == Order.Type.BUY ? proceeds : total);
+        });
+    }
+    
+    /**
+     * The tax and tariff the buyer paid on top of what the seller gets go to the nation of the player of the resting
+     * order. Only added to the counters of the treasury, which writes them in batches.
+     */
+    private static void creditTreasury(Order matchingOrder, long total, long proceeds) {
+        long revenue = Money.subtract(total, proceeds);
+        if (revenue <= 0)
+            return;
+        
+        // Never loads a NationProfile on the matching thread
+        String nationId = TradeFilter.getNationId(matchingOrder.getPlayerUUID());
+        Nation nation = Nation.getFromId(nationId);
+        if (nation == null)
+            return;
         
-        initial.save();
-        match.save();
+        long tax = Math.min(revenue, Money.percent(proceeds, nation.getTaxRate()));
+        Nations.getInstance().getTreasury().credit(nationId, tax, Money.subtract(revenue, tax));
     }
     
-    private void cleanUp() {
-        buyOrders.removeIf(order -> order.getVolume() == 0 && order.isCancellable());
-        sellOrders.removeIf(order -> order.getVolume() == 0 && order.isCancellable());
+    /**
+     * Takes an order out of the book. If it still has goods or refunds to claim, it is kept in the mailbox.
+     *
+     * @return the volume which was left in the order, to be refunded
+     */
+    public synchronized int cancel(Order order) {
+        if (!getSide(order.getType()).remove(order))
+            return 0;
+        
+        int remaining = order.getVolume();
+        order.decreaseVolume(remaining);
+        if (order.hasGoodsToClaim()) {
+            Mailbox.deposit(order);
+            delist(order);
+            MarketJournal.append(MarketJournal.Event.ORDER, order);
+        } else {
+            unindex(order);
+            MarketJournal.appendCancel(order);
+        }
+        
+        publishDepth();
+        save();
+        return remaining;
     }
     
-    public void remove(Order order) {
-        if (order.getType() == Order.Type.BUY) buyOrders.remove(order);
-        else sellOrders.remove(order);
+    /**
+     * Takes an order which expired out of the book. What was left of it waits in the mailbox with its other refunds,
+     * so that it does not matter whether the player is online.
+     *
+     * @return false if the order was not in the book anymore
+     */
+    public synchronized boolean expire(Order order) {
+        if (!getSide(order.getType()).remove(order))
+            return false;
+        
+        int remaining = order.getVolume();
+        order.decreaseVolume(remaining);
+        order.expire(remaining);
+        Mailbox.deposit(order);
+        delist(order);
+        MarketJournal.append(MarketJournal.Event.ORDER, order);
+        
+        publishDepth();
         save();
+        return true;
     }
     
-    public void save() {
-        CACHE.put(item.name(), this);
-        instance.logInfo("Saved OrderBook of item " + getItemName() + " to the CACHE.");
+    /**
+     * Takes a settled order out of the mailbox once all of its goods and refunds have been claimed.
+     */
+    public synchronized void release(Order order) {
+        if (order.getVolume() > 0 || order.hasGoodsToClaim())
+            return;
+        if (!Mailbox.withdraw(order))
+            return;
+        unindex(order);
+        MarketJournal.appendCancel(order);
     }
     
-    public void backup() {
-        String filename = item.name() + ".yml";
-        File file = new File(BOOKS_PATH + filename);
-        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
-        
-        for (String key : yaml.getKeys(false)) {
-            yaml.set(key, null);
-        }
-        
-        try {
-            yaml.save(file);
-        } catch (IOException ex) {
-            ex.printStackTrace();
-            instance.getLogger().log(Level.SEVERE, "This is an issue.");
-        }
-        
-        for (Order order : buyOrders) {
-            writeInFile(filename, order, "buys");
-        }
-        for (Order order : sellOrders) {
-            writeInFile(filename, order, "sells");
+    public synchronized void clear() {
+        List<Order> orders = getBuyOrders();
+        orders.addAll(getSellOrders());
+        orders.addAll(Mailbox.clear(item));
+        for (Order order : orders) {
+            unindex(order);
+            MarketJournal.appendCancel(order);
         }
+        buySide.clear();
+        sellSide.clear();
+        publishDepth();
+    }
     
-        instance.logInfo("Backed up OrderBook of item " + getItemName() + " to the files.");
+    private void publishDepth() {
+        depth = new DepthSnapshot(
+                List.copyOf(buySide.getDepth(DEPTH_LEVELS)),
+                List.copyOf(sellSide.getDepth(DEPTH_LEVELS)),
+                buySide.size(),
+                sellSide.size(),
+                buySide.getTopOrders(4).stream().map(DepthSnapshot.Quote::of).toList(),
+                sellSide.getTopOrders(4).stream().map(DepthSnapshot.Quote::of).toList()
+        );
     }
     
-    private void writeInFile(String filename, Order order, String type) {
-        File file = new File(BOOKS_PATH + filename);
-        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
-        
-        String initPath = type + "." + order.getOrderId() + ".";
-    
-        yaml.set(initPath + "timestamp", order.getTimestamp());
-        yaml.set(initPath + "type", order.getType().name());
-        yaml.set(initPath + "playerUUID", order.getPlayerUUID().toString());
-        yaml.set(initPath + "price", order.getPrice());
-        yaml.set(initPath + "amount", order.getAmount());
-        yaml.set(initPath + "volume", order.getVolume());
-        
-        List<String> trades = new ArrayList<>() {{
-            order.getTrades().forEach(trade -> add(trade.getSerializedString()));
-        }};
-        yaml.set(initPath + "trades", trades);
-        
-        for (Map.Entry<Double, Boolean> entry : order.getRefunds().entrySet()) {
-            yaml.set(initPath + "refunds." + entry.getKey().toString(), entry.getValue());
-        }
+    private OrderBookSide getSide(Order.Type type) {
+        return type == Order.Type.BUY ? buySide : sellSide;
+    }
     
-        try {
-            yaml.save(file);
-        } catch (IOException ex) {
-            ex.printStackTrace();
-            instance.getLogger().log(Level.SEVERE, "Unable to save OrderBook of " + getItemName() + ".");
-        }
+    private static long getBestPrice(@Nullable DepthSnapshot.Level level, UUID matching) {
+        if (level == null) return 0;
+        return level.first().getTaxedTariffedPrice(matching);
+    }
+    
+    public void save() {
+        CACHE.put(item.name(), this);
+        instance.logInfo("Saved OrderBook of item " + getItemName() + " to the CACHE.");
     }
     
     // --------------------------------------------------------------------------------------------
     
     public static void loadAll() {
+        Map<String, MarketJournal.JournaledBook> journaled = MarketJournal.load();
+        
         for (OrderItem item : OrderItem.values()) {
-            String filename = item.name() + ".yml";
+            MarketJournal.JournaledBook book = journaled.get(item.name());
             
-            File file = new File(BOOKS_PATH + filename);
-            YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
-            
-            List<Order> buyOrders = new ArrayList<>();
-            ConfigurationSection buys = yaml.getConfigurationSection("buys");
-            if (buys != null) {
-                for (String key : buys.getKeys(false)) {
-                    buyOrders.add(getFromFile(filename, key, "buys", item.name()));
-                }
-            }
-    
-            List<Order> sellOrders = new ArrayList<>();
-            ConfigurationSection sells = yaml.getConfigurationSection("sells");
-            if (sells != null) {
-                for (String key : sells.getKeys(false)) {
-                    sellOrders.add(getFromFile(filename, key, "sells", item.name()));
-                }
+            // Books which were never journaled are still in the old YAML files, which have no last price
+            if (book == null) {
+                List<Order> orders = getFromFile(item);
+                if (!orders.isEmpty()) MarketJournal.markDirty(item);
+                book = new MarketJournal.JournaledBook(orders, 0);
             }
             
-            OrderBook book = new OrderBook(item, buyOrders, sellOrders);
-            CACHE.put(item.name(), book);
-    
-            try {
-                yaml.save(file);
-            } catch (IOException ex) {
-                ex.printStackTrace();
-                instance.getLogger().log(Level.SEVERE, "Unable to save OrderBook of " + book.getItemName() + ".");
-            }
+            CACHE.put(item.name(), new OrderBook(item, book.orders(), book.lastPrice()));
         }
     
         instance.logInfo("All OrderBooks (" + CACHE.values().size() + ") have been loaded.");
     }
     
-    private static Order getFromFile(String filename, String orderId, String type, String bookItem) {
-        File file = new File(BOOKS_PATH + filename);
-        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+    private static List<Order> getFromFile(OrderItem item) {
+        File file = new File(BOOKS_PATH + item.name() + ".yml");
+        List<Order> orders = new ArrayList<>();
+        if (!file.exists())
+            return orders;
         
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        for (String type : List.of("buys", "sells")) {
+            ConfigurationSection section = yaml.getConfigurationSection(type);
+            if (section == null) continue;
+            for (String orderId : section.getKeys(false)) {
+                orders.add(getFromFile(yaml, orderId, type, item.name()));
+            }
+        }
+        return orders;
+    }
+    
+    private static Order getFromFile(YamlConfiguration yaml, String orderId, String type, String bookItem) {
         String initPath = type + "." + orderId + ".";
         
         long timestamp = yaml.getLong(initPath + "timestamp");
         Order.Type orderType = Order.Type.valueOf(yaml.getString(initPath + "type"));
         UUID playerUUID = UUID.fromString(Objects.requireNonNull(yaml.getString(initPath + "playerUUID")));
-        double price = yaml.getDouble(initPath + "price");
+        long price = Money.of(yaml.getDouble(initPath + "price"));
         int amount = yaml.getInt(initPath + "amount");
         int volume = yaml.getInt(initPath + "volume");
     
@@ -325,18 +468,21 @@ public class OrderBook {
         }
         
         ConfigurationSection refundsSection = yaml.getConfigurationSection(initPath + "refunds");
-        Map<Double, Boolean> refunds = new HashMap<>();
+        long totalRefunds = Money.ZERO;
+        long refundableCoins = Money.ZERO;
         if (refundsSection != null) {
             for (String key : refundsSection.getKeys(false)) {
-                refunds.put(Double.parseDouble(key), yaml.getBoolean(initPath + "refunds." + key));
+                long refund = Money.of(Double.parseDouble(key));
+                totalRefunds = Money.add(totalRefunds, refund);
+                if (!yaml.getBoolean(initPath + "refunds." + key))
+                    refundableCoins = Money.add(refundableCoins, refund);
             }
         }
     
-        return new Order(bookItem, orderId, timestamp, orderType, playerUUID, price, amount, volume, trades, refunds);
-    }
-    
-    public static void backupAll() {
-        CACHE.values().forEach(OrderBook::backup);
+        // The taxes the order was placed with were not stored
+        long escrowPrice = orderType == Order.Type.BUY ? MarketUtil.getTaxedPrice(playerUUID, price) : Money.ZERO;
+        return new Order(bookItem, orderId, timestamp, orderType, playerUUID, price, escrowPrice, amount, volume, trades,
+                totalRefunds, refundableCoins, Order.TimeInForce.GTC, -1, false, 0);
     }
     
     public static OrderBook get(String itemName) {
@@ -351,20 +497,53 @@ public class OrderBook {
         return CACHE.values().stream().toList();
     }
     
+    public static @Nullable Order getOrder(String orderId) {
+        return ORDERS.get(orderId);
+    }
+    
+    /**
+     * @return all the orders placed by a player which still have volume left, oldest first
+     */
+    public static List<Order> getPlayerOrders(UUID uuid) {
+        Set<Order> orders = PLAYER_ORDERS.get(uuid);
+        if (orders == null) return new ArrayList<>();
+        return new ArrayList<>(orders);
+    }
+    
+    /**
+     * @return the players who placed orders which still have volume left
+     */
+    public static Set<UUID> getPlayersWithOrders() {
+        return new HashSet<>(PLAYER_ORDERS.keySet());
+    }
+    
+    private static void index(Order order, boolean live) {
+        ORDERS.put(order.getOrderId(), order);
+        if (live) PLAYER_ORDERS.computeIfAbsent(order.getPlayerUUID(), k -> new LinkedHashSet<>()).add(order);
+    }
+    
+    private static void unindex(Order order) {
+        ORDERS.remove(order.getOrderId());
+        delist(order);
+    }
+    
+    private static void delist(Order order) {
+        Set<Order> orders = PLAYER_ORDERS.get(order.getPlayerUUID());
+        if (orders == null) return;
+        orders.remove(order);
+        if (orders.isEmpty()) PLAYER_ORDERS.remove(order.getPlayerUUID());
+    }
+    
     public static void resetAll() {
-        // Reset stats.yml
-        instance.getStats().set("market.buyOrders", 0);
-        instance.getStats().set("market.sellOrders", 0);
-        instance.getStats().set("market.trades", 0);
-        instance.getStats().set("market.moneyTraded", 0);
-        instance.getStats().set("market.itemsTraded", 0);
+        MarketStats.reset();
+        MarketStats.flush();
         
         // Clear all orders
         for (OrderBook book : getAll()) {
-            book.getBuyOrders().clear();
-            book.getSellOrders().clear();
+            book.clear();
             book.save();
         }
+        instance.getServer().getScheduler().runTaskAsynchronously(instance, MarketJournal::checkpoint);
     
         instance.logInfo("All OrderBooks (" + CACHE.values().size() + ") have been reset.");
     }
@@ -0,0 +1,145 @@
+package net.pixlies.business.market;
+
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * One side (buys or sells) of an order book.
+ * Price levels are sorted best first: highest price for buys, lowest price for sells.
+ *
+ * @author vyketype
+ */
+public class OrderBookSide {
+    @Getter
+    private final Order.Type type;
+    
+    private final NavigableMap<Long, PriceLevel> levels;
+    private @Nullable PriceLevel bestLevel;
+    private int size;
+    
+    public OrderBookSide(Order.Type type) {
+        this.type = type;
+        levels = type == Order.Type.BUY ? new TreeMap<>(Comparator.reverseOrder()) : new TreeMap<>();
+        bestLevel = null;
+        size = 0;
+    }
+    
+    public void add(Order order) {
+        PriceLevel level = levels.computeIfAbsent(order.getPrice(), PriceLevel::new);
+        level.add(order);
+        size++;
+        
+        if (bestLevel == null || isBetter(level.getPrice(), bestLevel.getPrice()))
+            bestLevel = level;
+    }
+    
+    public boolean remove(Order order) {
+        PriceLevel level = levels.get(order.getPrice());
+        if (level == null || !level.remove(order))
+            return false;
+        
+        size--;
+        if (level.isEmpty())
+            removeLevel(level);
+        return true;
+    }
+    
+    /**
+     * Removes the filled orders of the given levels, and the levels that end up empty.
+     *
+     * @param touched the levels that were matched against
+     * @return the orders that were removed
+     */
+    public List<Order> prune(Collection<PriceLevel> touched) {
+        List<Order> filled = new ArrayList<>();
+        for (PriceLevel level : touched) {
+            Iterator<Order> iterator = level.getOrders().iterator();
+            while (iterator.hasNext()) {
+                Order order = iterator.next();
+                if (order.getVolume() != 0) continue;
+                iterator.remove();
+                filled.add(order);
+                size--;
+            }
+            if (level.isEmpty())
+                removeLevel(level);
+        }
+        return filled;
+    }
+    
+    /**
+     * Checks whether an incoming order of the opposite type at a limit price would trade against a level.
+     *
+     * @param level the level of this side
+     * @param limitPrice the limit price of the incoming order
+     * @return true if the prices cross
+     */
+    public boolean crosses(PriceLevel level, long limitPrice) {
+        if (type == Order.Type.BUY) return level.getPrice() >= limitPrice;
+        else return level.getPrice() <= limitPrice;
+    }
+    
+    public @Nullable PriceLevel getBestLevel() {
+        return bestLevel;
+    }
+    
+    public Collection<PriceLevel> getLevels() {
+        return levels.values();
+    }
+    
+    /**
+     * @return every order of this side, in price-time priority
+     */
+    public List<Order> getOrders() {
+        return getTopOrders(size);
+    }
+    
+    public List<Order> getTopOrders(int limit) {
+        List<Order> list = new ArrayList<>(Math.min(limit, size));
+        for (PriceLevel level : levels.values()) {
+            for (Order order : level.getOrders()) {
+                if (list.size() == limit) return list;
+                list.add(order);
+            }
+        }
+        return list;
+    }
+    
+    public List<DepthSnapshot.Level> getDepth(int limit) {
+        List<DepthSnapshot.Level> depth = new ArrayList<>(Math.min(limit, levels.size()));
+        for (PriceLevel level : levels.values()) {
+            if (depth.size() == limit) break;
+            depth.add(new DepthSnapshot.Level(level.getPrice(), level.getVolume(), level.size(), DepthSnapshot.Quote.of(level.getOrders().getFirst())));
+        }
+        return depth;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public void clear() {
+        levels.clear();
+        bestLevel = null;
+        size = 0;
+    }
+    
+    private boolean isBetter(long price, long than) {
+        if (type == Order.Type.BUY) return price > than;
+        else return price < than;
+    }
+    
+    private void removeLevel(PriceLevel level) {
+        levels.remove(level.getPrice());
+        if (bestLevel == level) {
+            Map.Entry<Long, PriceLevel> first = levels.firstEntry();
+            bestLevel = first == null ? null : first.getValue();
+        }
+    }
+}
@@ -212,10 +212,7 @@ public enum OrderItem {
      * @return OrderBook
      */
     public OrderBook getBook() {
-        for (OrderBook book : OrderBook.getAll()) {
-            if (book.getItem() == this) return book;
-        }
-        return null;
+        return OrderBook.get(this);
     }
     
     /**
@@ -0,0 +1,53 @@
+package net.pixlies.business.market;
+
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * All resting orders of one side of an order book at a single price, in arrival order.
+ *
+ * @author vyketype
+ */
+@Getter
+public class PriceLevel {
+    private final long price;
+    private final Deque<Order> orders;
+    
+    // Sum of the remaining volume of every order in this level
+    private int volume;
+    
+    public PriceLevel(long price) {
+        this.price = price;
+        orders = new ArrayDeque<>();
+        volume = 0;
+    }
+    
+    public void add(Order order) {
+        orders.addLast(order);
+        volume += order.getVolume();
+    }
+    
+    public boolean remove(Order order) {
+        if (!orders.remove(order))
+            return false;
+        volume -= order.getVolume();
+        return true;
+    }
+    
+    /**
+     * Must be called whenever an order of this level is (partially) filled.
+     */
+    public void fill(int traded) {
+        volume -= traded;
+    }
+    
+    public boolean isEmpty() {
+        return orders.isEmpty();
+    }
+    
+    public int size() {
+        return orders.size();
+    }
+}
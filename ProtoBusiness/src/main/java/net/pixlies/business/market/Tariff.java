@@ -10,9 +10,8 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 /**
@@ -27,6 +26,9 @@ public class Tariff {
     private static final ProtoBusinesss instance = ProtoBusinesss.getInstance();
     private static final String TARIFFS_PATH = instance.getDataFolder().getAbsolutePath() + "/tariffs/";
     
+    // Initial nation ID -> target nation ID -> tariff
+    private static final Map<String, Map<String, Tariff>> CACHE = new ConcurrentHashMap<>();
+    
     private final String tariffId;
     private final String initId;
     private final String targetId;
@@ -43,7 +45,12 @@ public class Tariff {
         return (rate * 100) + "%";
     }
     
+    /**
+     * Caches the tariff and writes it to the files.
+     */
     public void save() {
+        CACHE.computeIfAbsent(initId, k -> new ConcurrentHashMap<>()).put(targetId, this);
+        
         String filename = tariffId + ".yml";
         
         File file = new File(TARIFFS_PATH + filename);
@@ -64,27 +71,60 @@ public class Tariff {
     }
     
     public boolean delete() {
+        Map<String, Tariff> targets = CACHE.get(initId);
+        if (targets != null && targets.get(targetId) == this) {
+            targets.remove(targetId);
+            if (targets.isEmpty()) CACHE.remove(initId);
+        }
+        
         File file = new File(TARIFFS_PATH + tariffId + ".yml");
         return file.delete();
     }
     
     // --------------------------------------------------------------------------------------------
     
-    public static List<Tariff> getAll() {
+    public static void loadAll() {
+        CACHE.clear();
+        
         File directory = new File(TARIFFS_PATH);
         if (directory.list() == null) {
             directory.mkdirs();
         }
         
-        List<Tariff> tariffs = new ArrayList<>();
-        List<String> pathnames = List.of(Objects.requireNonNull(new File(TARIFFS_PATH).list()));
+        List<String> pathnames = List.of(Objects.requireNonNull(directory.list()));
         for (String pathname : pathnames) {
-            tariffs.add(Tariff.get(pathname.substring(0, pathname.length() - 4)));
+            Tariff tariff = getFromFile(pathname.substring(0, pathname.length() - 4));
+            CACHE.computeIfAbsent(tariff.getInitId(), k -> new ConcurrentHashMap<>()).put(tariff.getTargetId(), tariff);
         }
+        
+        instance.logInfo("All tariffs (" + pathnames.size() + ") have been loaded.");
+    }
+    
+    public static List<Tariff> getAll() {
+        List<Tariff> tariffs = new ArrayList<>();
+        CACHE.values().forEach(targets -> tariffs.addAll(targets.values()));
         return tariffs;
     }
     
-    public static Tariff get(String tariffId) {
+    public static @Nullable Tariff get(String initId, String targetId) {
+        Map<String, Tariff> targets = CACHE.get(initId);
+        if (targets == null) return null;
+        return targets.get(targetId);
+    }
+    
+    /**
+     * Gets the rate of the tariff a nation applies on another one.
+     *
+     * @param initId the nation applying the tariff
+     * @param targetId the nation the tariff is applied on
+     * @return the decimal rate, or 0 if there is no such tariff
+     */
+    public static double getRate(String initId, String targetId) {
+        Tariff tariff = get(initId, targetId);
+        return tariff == null ? 0 : tariff.getRate();
+    }
+    
+    private static Tariff getFromFile(String tariffId) {
         String filename = tariffId + ".yml";
         File file = new File(TARIFFS_PATH + filename);
         YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
@@ -97,13 +137,9 @@ public class Tariff {
     }
     
     public static @Nullable String getTariffId(String initNation, String targetNation) {
-        for (Tariff t : Tariff.getAll()) {
-            boolean fromCond = Objects.equals(t.getInitId(),
-                    Objects.requireNonNull(Nation.getFromName(initNation)).getNationId());
-            boolean toCond = Objects.equals(t.getTargetId(),
-                    Objects.requireNonNull(Nation.getFromName(targetNation)).getNationId());
-            if (fromCond && toCond) return t.getTariffId();
-        }
-        return null;
+        String initId = Objects.requireNonNull(Nation.getFromName(initNation)).getNationId();
+        String targetId = Objects.requireNonNull(Nation.getFromName(targetNation)).getNationId();
+        Tariff tariff = get(initId, targetId);
+        return tariff == null ? null : tariff.getTariffId();
     }
 }
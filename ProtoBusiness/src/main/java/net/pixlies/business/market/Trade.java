@@ -3,6 +3,7 @@ package net.pixlies.business.market;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import net.pixlies.business.ProtoBusinesss;
+import net.pixlies.core.economy.Money;
 import net.pixlies.core.ranks.Rank;
 import org.bukkit.Bukkit;
 import org.ocpsoft.prettytime.PrettyTime;
@@ -24,7 +25,9 @@ public class Trade {
     private String orderId;
     
     private long timestamp;
-    private double price;
+    
+    // Price per item the seller gets, before the taxes and tariff paid by the buyer, in micro-coins
+    private long price;
     private int amount;
     
     private UUID giver;
@@ -37,7 +40,7 @@ public class Trade {
         
         String[] parts = serialized.split(";");
         timestamp = Long.parseLong(parts[0]);
-        price = Double.parseDouble(parts[1]);
+        price = Money.of(Double.parseDouble(parts[1]));
         amount = Integer.parseInt(parts[2]);
         giver = UUID.fromString(parts[3]);
         taker = UUID.fromString(parts[4]);
@@ -59,12 +62,12 @@ public class Trade {
     
         assert order != null;
         if (order.getType() == Order.Type.BUY) {
-            name = Rank.getRank(giver).getColor() + Objects.requireNonNull(Bukkit.getPlayer(giver)).getName();
+            name = Rank.getRank(giver).getColor() + Objects.requireNonNullElse(Bukkit.getOfflinePlayer(giver).getName(), "Unknown");
         } else {
-            name = Rank.getRank(taker).getColor() + Objects.requireNonNull(Bukkit.getPlayer(taker)).getName();
+            name = Rank.getRank(taker).getColor() + Objects.requireNonNullElse(Bukkit.getOfflinePlayer(taker).getName(), "Unknown");
         }
         
-        return " §8» §a" + amount + "§8x §7@ §6" + price + "$ §8- " + name + " §8" + time;
+        return " §8» §a" + amount + "§8x §7@ §6" + Money.format(price) + "$ §8- " + name + " §8" + time;
     }
     
     public void save() {
@@ -83,6 +86,6 @@ public class Trade {
     }
     
     public String getSerializedString() {
-        return timestamp + ";" + price + ";" + amount + ";" + giver.toString() + ";" + taker.toString() + ";" + claimed;
+        return timestamp + ";" + Money.toDouble(price) + ";" + amount + ";" + giver.toString() + ";" + taker.toString() + ";" + claimed;
     }
 }
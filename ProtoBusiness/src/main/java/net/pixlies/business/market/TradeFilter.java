@@ -0,0 +1,182 @@
+package net.pixlies.business.market;
+
+import net.pixlies.nations.nations.Nation;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Who can trade with whom, read by the matching threads for every order they could match.
+ * Trade blocks, restrictions, nations and embargoes are copied here when they change, so that checking a pair of
+ * players never loads a MarketProfile or a NationProfile, scans a list or allocates.
+ *
+ * @author vyketype
+ */
+public class TradeFilter {
+    // Blocking player -> players they blocked
+    private static final Map<UUID, Set<UUID>> BLOCKS = new ConcurrentHashMap<>();
+    
+    private static final Set<UUID> RESTRICTED = ConcurrentHashMap.newKeySet();
+    
+    // Nation ID -> row and column of the nation in the embargo matrix
+    private static final Map<String, Integer> NATIONS = new ConcurrentHashMap<>();
+    // Row and column -> nation ID
+    private static final List<String> NATION_IDS = new CopyOnWriteArrayList<>();
+    private static volatile EmbargoMatrix embargoes = new EmbargoMatrix(64);
+    
+    // Player -> row and column of their nation in the embargo matrix, for players in a nation
+    private static final Map<UUID, Integer> PLAYERS = new ConcurrentHashMap<>();
+    
+    /**
+     * @param takerUUID the player of the incoming order
+     * @param makerUUID the player of the resting order
+     * @return false if the players are the same, one is restricted, one blocked the other, or their nations are
+     * under an embargo
+     */
+    public static boolean canTrade(UUID takerUUID, UUID makerUUID) {
+        if (takerUUID.equals(makerUUID))
+            return false;
+        if (RESTRICTED.contains(takerUUID) || RESTRICTED.contains(makerUUID))
+            return false;
+        if (isBlocked(takerUUID, makerUUID) || isBlocked(makerUUID, takerUUID))
+            return false;
+        
+        Integer taker = getNation(takerUUID);
+        Integer maker = getNation(makerUUID);
+        return taker == null || maker == null || !embargoes.get(taker, maker);
+    }
+    
+    // --------------------------------------------------------------------------------------------
+    
+    public static void setBlocks(UUID uuid, Collection<UUID> blocked) {
+        if (blocked.isEmpty()) {
+            BLOCKS.remove(uuid);
+            return;
+        }
+        Set<UUID> set = ConcurrentHashMap.newKeySet(blocked.size());
+        set.addAll(blocked);
+        BLOCKS.put(uuid, set);
+    }
+    
+    public static void block(UUID uuid, UUID blocked) {
+        BLOCKS.computeIfAbsent(uuid, k -> ConcurrentHashMap.newKeySet()).add(blocked);
+    }
+    
+    public static void unblock(UUID uuid, UUID blocked) {
+        Set<UUID> set = BLOCKS.get(uuid);
+        if (set != null) set.remove(blocked);
+    }
+    
+    public static void setRestricted(UUID uuid, boolean restricted) {
+        if (restricted) RESTRICTED.add(uuid);
+        else RESTRICTED.remove(uuid);
+    }
+    
+    /**
+     * Called whenever a player joins or leaves a nation.
+     *
+     * @param nationId null if the player is in no nation
+     */
+    public static synchronized void setNation(UUID uuid, @Nullable String nationId) {
+        if (nationId == null) PLAYERS.remove(uuid);
+        else PLAYERS.put(uuid, index(nationId));
+    }
+    
+    /**
+     * Copies the members of every nation.
+     * Called once on startup.
+     */
+    public static void loadNations(Collection<Nation> nations) {
+        for (Nation nation : nations) {
+            for (UUID member : nation.getMembers()) {
+                setNation(member, nation.getNationId());
+            }
+        }
+    }
+    
+    /**
+     * Reads again whether any of two nations has put the other under an embargo.
+     * Called whenever an embargo between them is saved or deleted.
+     */
+    public static synchronized void updateEmbargo(String nationId, String otherId) {
+        int nation = index(nationId);
+        int other = index(otherId);
+        embargoes.set(nation, other, Embargo.isEmbargoed(nationId, otherId));
+    }
+    
+    /**
+     * @return the ID of the nation of the player, or null if they are in no nation
+     */
+    public static @Nullable String getNationId(UUID uuid) {
+        Integer index = getNation(uuid);
+        return index == null ? null : NATION_IDS.get(index);
+    }
+    
+    // --------------------------------------------------------------------------------------------
+    
+    private static boolean isBlocked(UUID uuid, UUID other) {
+        Set<UUID> set = BLOCKS.get(uuid);
+        return set != null && set.contains(other);
+    }
+    
+    private static @Nullable Integer getNation(UUID uuid) {
+        return PLAYERS.get(uuid);
+    }
+    
+    private static int index(String nationId) {
+        Integer index = NATIONS.get(nationId);
+        if (index != null)
+            return index;
+        
+        int next = NATIONS.size();
+        if (next >= embargoes.size) embargoes = embargoes.grow(embargoes.size * 2);
+        NATION_IDS.add(nationId);
+        NATIONS.put(nationId, next);
+        return next;
+    }
+    
+    /**
+     * Square bit matrix of the nations under an embargo, kept symmetric.
+     */
+    private static final class EmbargoMatrix {
+        private final int size;
+        private final AtomicLongArray bits;
+        
+        private EmbargoMatrix(int size) {
+            this.size = size;
+            bits = new AtomicLongArray((size * size + 63) / 64);
+        }
+        
+        private boolean get(int row, int column) {
+            int bit = row * size + column;
+            return (bits.get(bit >>> 6) & (1L << bit)) != 0;
+        }
+        
+        private void set(int row, int column, boolean value) {
+            put(row * size + column, value);
+            put(column * size + row, value);
+        }
+        
+        private void put(int bit, boolean value) {
+            long mask = 1L << bit;
+            bits.getAndUpdate(bit >>> 6, word -> value ? word | mask : word & ~mask);
+        }
+        
+        private EmbargoMatrix grow(int newSize) {
+            EmbargoMatrix grown = new EmbargoMatrix(newSize);
+            for (int row = 0; row < size; row++) {
+                for (int column = 0; column < size; column++) {
+                    if (get(row, column)) grown.put(row * newSize + column, true);
+                }
+            }
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package net.pixlies.business.market;
+
+import net.pixlies.business.ProtoBusinesss;
+import net.pixlies.business.locale.MarketLang;
+import net.pixlies.business.util.InventoryUtil;
+import net.pixlies.business.util.SoundUtil;
+import net.pixlies.business.util.preconditions.CommandPreconditions;
+import net.pixlies.core.economy.Money;
+import net.pixlies.nations.nations.interfaces.NationProfile;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * A price alert or a stop order, waiting in the trigger book of its item until a trade crosses its price.
+ * The money of a buy stop, or the items of a sell stop, are taken when it is placed and given back if it is
+ * cancelled, like for any other order.
+ *
+ * @param above true if it fires when the price rises to the trigger price, false if it fires when it falls to it
+ * @param type the side of the order placed by a stop, null for alerts
+ * @param limitPrice the price of the order placed by a stop, in micro-coins
+ * @param escrow the money taken when a buy stop was placed, in micro-coins
+ * @author vyketype
+ */
+public record Trigger(String triggerId, UUID playerUUID, OrderItem item, Kind kind, boolean above, long triggerPrice,
+                      @Nullable Order.Type type, int amount, long limitPrice, long escrow) {
+    private static final ProtoBusinesss instance = ProtoBusinesss.getInstance();
+    private static final String TRIGGERS_PATH = instance.getDataFolder().getAbsolutePath() + "/triggers/";
+    
+    // Trigger ID -> trigger
+    private static final Map<String, Trigger> CACHE = new ConcurrentHashMap<>();
+    
+    /**
+     * Adds the trigger to the book of its item and writes it to the files.
+     */
+    public void place() {
+        CACHE.put(triggerId, this);
+        OrderBook.get(item).getTriggers().add(this);
+        save();
+    }
+    
+    /**
+     * Takes the trigger out of its book, and gives back what was taken when it was placed.
+     *
+     * @return false if it was already fired or cancelled
+     */
+    public boolean cancel(Player player) {
+        if (!OrderBook.get(item).getTriggers().remove(this))
+            return false;
+        delete();
+        
+        if (kind == Kind.STOP) {
+            switch (Objects.requireNonNull(type)) {
+                case BUY -> NationProfile.get(playerUUID).addBalance(escrow);
+                case SELL -> InventoryUtil.addItemsToInventory(player, new ItemStack(item.getMaterial(), amount));
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Notifies the player, and places the order of a stop through the book.
+     * Called on the main thread once the trigger was taken out of its book.
+     */
+    public void fire() {
+        delete();
+        Player player = Bukkit.getPlayer(playerUUID);
+        
+        if (kind == Kind.ALERT) {
+            if (player == null || !player.isOnline())
+                return;
+            MarketLang.ALERT_TRIGGERED.send(
+                    player,
+                    "%ITEM%;" + item.getName(),
+                    "%PRICE%;" + Money.format(triggerPrice)
+            );
+            SoundUtil.success(player);
+            return;
+        }
+        
+        Order order = new Order(Objects.requireNonNull(type), item.name(), System.currentTimeMillis(), playerUUID,
+                limitPrice, amount);
+        OrderBook book = OrderBook.get(item);
+        if (type == Order.Type.BUY) {
+            // Taxes might have changed since the money was taken
+            long difference = Money.subtract(escrow, order.escrow());
+            NationProfile profile = NationProfile.get(playerUUID);
+            if (difference < 0 && !canPay(player, profile, -difference)) {
+                // The stop is dropped instead of placed
+                profile.addBalance(escrow);
+                if (player != null && player.isOnline()) MarketLang.STOP_DROPPED.send(player, "%TRIGGER%;" + this);
+                return;
+            }
+            if (difference > 0) profile.addBalance(difference);
+            if (difference < 0) profile.removeBalance(-difference);
+            MarketThrottle.place(() -> book.buy(order));
+        } else {
+            MarketThrottle.place(() -> book.sell(order));
+        }
+        
+        if (player != null && player.isOnline()) {
+            MarketLang.STOP_TRIGGERED.send(player, "%ORDER%;" + order);
+            SoundUtil.placedOrder(player);
+        }
+    }
+    
+    private static boolean canPay(@Nullable Player player, NationProfile profile, long amount) {
+        if (player != null && player.isOnline())
+            return CommandPreconditions.playerHasEnoughMoney(player, amount);
+        return profile.getBalance() >= amount;
+    }
+    
+    private void save() {
+        File file = new File(TRIGGERS_PATH + triggerId + ".yml");
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        
+        yaml.set("playerUUID", playerUUID.toString());
+        yaml.set("item", item.name());
+        yaml.set("kind", kind.name());
+        yaml.set("above", above);
+        yaml.set("triggerPrice", triggerPrice);
+        yaml.set("type", type == null ? null : type.name());
+        yaml.set("amount", amount);
+        yaml.set("limitPrice", limitPrice);
+        yaml.set("escrow", escrow);
+        
+        try {
+            yaml.save(file);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            instance.getLogger().log(Level.SEVERE, "Unable to save trigger of ID " + triggerId + ".");
+        }
+    }
+    
+    private void delete() {
+        CACHE.remove(triggerId);
+        new File(TRIGGERS_PATH + triggerId + ".yml").delete();
+    }
+    
+    @Override
+    public String toString() {
+        String price = Money.format(triggerPrice);
+        String direction = above ? "≥ " : "≤ ";
+        if (kind == Kind.ALERT)
+            return "§7[" + triggerId + "] §bAlert §7" + item.getName() + " " + direction + "§6" + price;
+        return "§7[" + triggerId + "] §bStop " + Objects.requireNonNull(type).name() + " §a" + amount + " §7"
+                + item.getName() + " " + direction + "§6" + price + " §7at §6" + Money.format(limitPrice);
+    }
+    
+    // --------------------------------------------------------------------------------------------
+    
+    public static void loadAll() {
+        CACHE.clear();
+        
+        File directory = new File(TRIGGERS_PATH);
+        if (directory.list() == null) {
+            directory.mkdirs();
+        }
+        
+        List<String> pathnames = List.of(Objects.requireNonNull(directory.list()));
+        for (String pathname : pathnames) {
+            Trigger trigger = getFromFile(pathname.substring(0, pathname.length() - 4));
+            CACHE.put(trigger.triggerId(), trigger);
+            OrderBook.get(trigger.item()).getTriggers().add(trigger);
+        }
+        
+        instance.logInfo("All triggers (" + pathnames.size() + ") have been loaded.");
+    }
+    
+    public static @Nullable Trigger get(String triggerId) {
+        return CACHE.get(triggerId);
+    }
+    
+    /**
+     * @return the triggers of a player, by item and price
+     */
+    public static List<Trigger> getAll(UUID uuid) {
+        List<Trigger> triggers = new ArrayList<>();
+        for (Trigger trigger : CACHE.values()) {
+            if (trigger.playerUUID().equals(uuid)) triggers.add(trigger);
+        }
+        triggers.sort(Comparator.comparing(Trigger::item).thenComparingLong(Trigger::triggerPrice));
+        return triggers;
+    }
+    
+    /**
+     * @return the players who have stop orders waiting
+     */
+    public static Set<UUID> getPlayersWithStops() {
+        Set<UUID> players = new HashSet<>();
+        for (Trigger trigger : CACHE.values()) {
+            if (trigger.kind() == Kind.STOP) players.add(trigger.playerUUID());
+        }
+        return players;
+    }
+    
+    private static Trigger getFromFile(String triggerId) {
+        File file = new File(TRIGGERS_PATH + triggerId + ".yml");
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        
+        String type = yaml.getString("type");
+        return new Trigger(
+                triggerId,
+                UUID.fromString(Objects.requireNonNull(yaml.getString("playerUUID"))),
+                OrderItem.valueOf(yaml.getString("item")),
+                Kind.valueOf(yaml.getString("kind")),
+                yaml.getBoolean("above"),
+                yaml.getLong("triggerPrice"),
+                type == null ? null : Order.Type.valueOf(type),
+                yaml.getInt("amount"),
+                yaml.getLong("limitPrice"),
+                yaml.getLong("escrow")
+        );
+    }
+    
+    // --------------------------------------------------------------------------------------------
+    
+    public enum Kind {
+        ALERT,
+        STOP
+    }
+}
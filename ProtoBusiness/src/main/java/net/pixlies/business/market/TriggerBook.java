@@ -0,0 +1,54 @@
+package net.pixlies.business.market;
+
+import java.util.*;
+
+/**
+ * Price alerts and stop orders of one item, sorted by their trigger price.
+ * After a trade, only the triggers crossed by the traded prices are looked at, in O(log n + k).
+ *
+ * @author vyketype
+ */
+public class TriggerBook {
+    // Fired when the price rises to the key, or falls to it
+    private final NavigableMap<Long, List<Trigger>> above = new TreeMap<>();
+    private final NavigableMap<Long, List<Trigger>> below = new TreeMap<>();
+    
+    public synchronized void add(Trigger trigger) {
+        getSide(trigger).computeIfAbsent(trigger.triggerPrice(), price -> new ArrayList<>()).add(trigger);
+    }
+    
+    /**
+     * @return whether the trigger was in the book, so that it is only fired or cancelled once
+     */
+    public synchronized boolean remove(Trigger trigger) {
+        NavigableMap<Long, List<Trigger>> side = getSide(trigger);
+        List<Trigger> triggers = side.get(trigger.triggerPrice());
+        if (triggers == null || !triggers.remove(trigger))
+            return false;
+        if (triggers.isEmpty()) side.remove(trigger.triggerPrice());
+        return true;
+    }
+    
+    /**
+     * Takes out every trigger crossed by trades between two prices.
+     *
+     * @param low the lowest traded price
+     * @param high the highest traded price
+     * @return the crossed triggers, oldest first for each price
+     */
+    public synchronized List<Trigger> pop(long low, long high) {
+        List<Trigger> fired = new ArrayList<>();
+        pop(above.headMap(high, true), fired);
+        pop(below.tailMap(low, true), fired);
+        return fired;
+    }
+    
+    private static void pop(NavigableMap<Long, List<Trigger>> crossed, List<Trigger> fired) {
+        crossed.values().forEach(fired::addAll);
+        crossed.clear();
+    }
+    
+    private NavigableMap<Long, List<Trigger>> getSide(Trigger trigger) {
+        return trigger.above() ? above : below;
+    }
+}
@@ -1,43 +1,61 @@
 package net.pixlies.business.threads;
 
+import net.pixlies.business.ProtoBusinesss;
 import net.pixlies.business.market.Embargo;
+import org.jetbrains.annotations.NotNull;
 
-import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Checks for embargo expirations.
+ * Removes embargoes once they expire.
+ * Sleeps until the next embargo is due, then removes it on the main thread.
  *
  * @author vyketype
  */
 public class EmbargoExpirationThread extends Thread {
-    public static Map<String, Integer> EMBARGO_EXPIRATIONS;
+    private static final ProtoBusinesss instance = ProtoBusinesss.getInstance();
     
-    public boolean running = false;
+    private final DelayQueue<Expiration> expirations = new DelayQueue<>();
+    
+    public volatile boolean running = false;
     
-    // Runs every minute
     public void run() {
         while (running) {
             try {
-                tick();
-                sleep(1000 * 1);
+                Embargo embargo = expirations.take().embargo();
+                instance.getServer().getScheduler().runTask(instance, () -> expire(embargo));
+            } catch (InterruptedException ignored) {
+                // Woken up by stopThread()
             } catch (Exception e) {
                 e.printStackTrace();
             }
         }
     }
     
-    public void tick() {
-        for (Map.Entry<String, Integer> entry : EMBARGO_EXPIRATIONS.entrySet()) {
-            if (entry.getValue() != 0) {
-                entry.setValue(entry.getValue() - 1);
-                continue;
-            }
+    /**
+     * Schedules the removal of an embargo at its expiration time.
+     * Embargoes that never expire are ignored.
+     */
+    public void schedule(Embargo embargo) {
+        if (!embargo.expires()) return;
+        expirations.add(new Expiration(embargo));
+    }
     
-            Embargo embargo = Embargo.get(entry.getKey());
-            embargo.delete();
-            embargo.sendDeletionMessages();
-            EMBARGO_EXPIRATIONS.remove(entry.getKey());
-        }
+    public void scheduleAll() {
+        Embargo.getAll().forEach(this::schedule);
+    }
+    
+    private void expire(Embargo embargo) {
+        // The embargo might have been removed or replaced in the meantime
+        if (!Objects.equals(Embargo.get(embargo.initId(), embargo.targetId()), embargo))
+            return;
+        
+        embargo.delete();
+        embargo.sendDeletionMessages();
+        instance.logInfo("Embargo " + embargo.embargoId() + " has expired.");
     }
     
     public void startThread() {
@@ -47,5 +65,18 @@ public class EmbargoExpirationThread extends Thread {
     
     public void stopThread() {
         this.running = false;
+        this.interrupt();
+    }
+    
+    private record Expiration(Embargo embargo) implements Delayed {
+        @Override
+        public long getDelay(@NotNull TimeUnit unit) {
+            return unit.convert(embargo.expiresAt() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+        
+        @Override
+        public int compareTo(@NotNull Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
     }
 }
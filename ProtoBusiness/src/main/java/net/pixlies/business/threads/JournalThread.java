@@ -0,0 +1,237 @@
+package net.pixlies.business.threads;
+
+import net.pixlies.business.ProtoBusinesss;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+
+/**
+ * Writes the market journal and the order book snapshots.
+ * Records are written in batches: everything queued while the previous batch was being synced is written and synced
+ * at once, so neither the main thread nor the matching threads ever wait for the disk.
+ * The order books already depend on every record queued, so a batch which fails is never dropped: the journal is cut
+ * back to its last sync, and the rest of the batch written again until it succeeds.
+ *
+ * @author vyketype
+ */
+public class JournalThread extends Thread {
+    private static final ProtoBusinesss instance = ProtoBusinesss.getInstance();
+    
+    private static final long RETRY_DELAY_MILLIS = 1000;
+    private static final long STOP_TIMEOUT_MILLIS = 30_000;
+    
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final File journalFile;
+    private final File oldJournalFile;
+    private final File snapshotsDirectory;
+    
+    private FileOutputStream journal;
+    private DataOutputStream out;
+    
+    // Length of the journal at its last sync, everything after it may be a partly written record
+    private long syncedLength;
+    
+    public volatile boolean running = false;
+    
+    public JournalThread(File journalFile, File oldJournalFile, File snapshotsDirectory) {
+        super("ProtoBusiness-Journal");
+        this.journalFile = journalFile;
+        this.oldJournalFile = oldJournalFile;
+        this.snapshotsDirectory = snapshotsDirectory;
+    }
+    
+    public void run() {
+        List<Entry> batch = new ArrayList<>();
+        while (running) {
+            try {
+                if (batch.isEmpty()) batch.add(queue.take());
+                queue.drainTo(batch);
+                write(batch);
+            } catch (InterruptedException ignored) {
+                // Stopping
+            } catch (Exception ex) {
+                instance.getLogger().log(Level.SEVERE, "Unable to write the market journal, retrying " + batch.size() + " entries.", ex);
+                retryLater();
+            }
+        }
+        
+        try {
+            out.close();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+    
+    public void append(byte[] record) {
+        if (!running) return;
+        queue.add(new Entry(Entry.Kind.RECORD, record, null));
+    }
+    
+    /**
+     * Moves every record queued so far to the old journal, and starts a new one.
+     */
+    public void rotate() {
+        if (!running) return;
+        queue.add(new Entry(Entry.Kind.ROTATE, null, null));
+    }
+    
+    /**
+     * Writes the snapshots, then deletes the old journal.
+     *
+     * @param snapshots the serialized books by item name
+     */
+    public void checkpoint(Map<String, byte[]> snapshots) {
+        if (!running) return;
+        queue.add(new Entry(Entry.Kind.CHECKPOINT, null, snapshots));
+    }
+    
+    /**
+     * Removes the entries from the batch as they are synced, so that only the ones which failed are left.
+     */
+    private void write(List<Entry> batch) throws IOException {
+        int records = 0;
+        while (records < batch.size()) {
+            Entry entry = batch.get(records);
+            if (entry.kind() == Entry.Kind.RECORD) {
+                out.writeInt(entry.record().length);
+                out.write(entry.record());
+                records++;
+                continue;
+            }
+            
+            if (records > 0) {
+                sync();
+                batch.subList(0, records).clear();
+                records = 0;
+            }
+            
+            switch (entry.kind()) {
+                case ROTATE -> rotateJournal();
+                case CHECKPOINT -> writeSnapshots(entry.snapshots());
+                case STOP -> running = false;
+            }
+            batch.remove(0);
+        }
+        
+        if (records > 0) {
+            sync();
+            batch.clear();
+        }
+    }
+    
+    private void sync() throws IOException {
+        out.flush();
+        journal.getChannel().force(false);
+        syncedLength = journal.getChannel().position();
+    }
+    
+    /**
+     * Waits a little, then cuts the journal back to its last sync, so that no partly written record is left before
+     * the batch is written again.
+     */
+    private void retryLater() {
+        try {
+            Thread.sleep(RETRY_DELAY_MILLIS);
+        } catch (InterruptedException ignored) {
+            // Retrying now
+        }
+        
+        try {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // The stream is replaced anyway
+            }
+            journal = new FileOutputStream(journalFile, true);
+            journal.getChannel().truncate(syncedLength);
+            out = new DataOutputStream(new BufferedOutputStream(journal));
+        } catch (IOException ex) {
+            instance.getLogger().log(Level.SEVERE, "Unable to reopen the market journal.", ex);
+        }
+    }
+    
+    private void rotateJournal() throws IOException {
+        out.close();
+        
+        // The previous checkpoint did not finish, so its records must be kept as well
+        if (oldJournalFile.exists()) {
+            Files.write(oldJournalFile.toPath(), Files.readAllBytes(journalFile.toPath()), StandardOpenOption.APPEND,
+                    StandardOpenOption.SYNC);
+        } else {
+            Files.move(journalFile.toPath(), oldJournalFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        
+        open(false);
+    }
+    
+    private void writeSnapshots(Map<String, byte[]> snapshots) throws IOException {
+        for (Map.Entry<String, byte[]> snapshot : snapshots.entrySet()) {
+            File temp = new File(snapshotsDirectory, snapshot.getKey() + ".tmp");
+            try (FileOutputStream stream = new FileOutputStream(temp)) {
+                stream.write(snapshot.getValue());
+                stream.getChannel().force(false);
+            }
+            Files.move(temp.toPath(), new File(snapshotsDirectory, snapshot.getKey() + ".dat").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        
+        // Everything in the old journal is now part of a snapshot
+        Files.deleteIfExists(oldJournalFile.toPath());
+        instance.logInfo("Wrote " + snapshots.size() + " OrderBook snapshots and compacted the journal.");
+    }
+    
+    private void open(boolean append) throws IOException {
+        journal = new FileOutputStream(journalFile, append);
+        out = new DataOutputStream(new BufferedOutputStream(journal));
+        syncedLength = journal.getChannel().size();
+    }
+    
+    public void startThread() {
+        try {
+            snapshotsDirectory.mkdirs();
+            open(true);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            instance.getLogger().log(Level.SEVERE, "Unable to open the market journal.");
+            return;
+        }
+        this.running = true;
+        this.start();
+    }
+    
+    /**
+     * Writes everything still queued, then stops the thread.
+     * Gives up after a while if the journal cannot be written, so that the server can still stop.
+     */
+    public void stopThread() {
+        if (!running) return;
+        queue.add(new Entry(Entry.Kind.STOP, null, null));
+        try {
+            this.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException ignored) {
+            // Shutting down anyway
+        }
+        if (this.isAlive()) {
+            running = false;
+            this.interrupt();
+            instance.getLogger().log(Level.SEVERE, "Stopped the market journal before it could write " + queue.size() + " entries.");
+        }
+    }
+    
+    private record Entry(Kind kind, byte[] record, Map<String, byte[]> snapshots) {
+        enum Kind {
+            RECORD,
+            ROTATE,
+            CHECKPOINT,
+            STOP
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package net.pixlies.business.threads;
+
+import net.pixlies.business.ProtoBusinesss;
+import net.pixlies.business.locale.MarketLang;
+import net.pixlies.business.market.Order;
+import net.pixlies.business.market.OrderBook;
+import net.pixlies.business.util.SoundUtil;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes orders out of their books once they expire.
+ * Every book shares the same queue, sorted by expiration time, so only the orders which are due are ever looked at.
+ * Sleeps until the next order is due, then expires it on the main thread.
+ *
+ * @author vyketype
+ */
+public class OrderExpirationThread extends Thread {
+    private static final ProtoBusinesss instance = ProtoBusinesss.getInstance();
+    
+    private final DelayQueue<Expiration> expirations = new DelayQueue<>();
+    
+    public volatile boolean running = false;
+    
+    public void run() {
+        while (running) {
+            try {
+                Order order = expirations.take().order();
+                instance.getServer().getScheduler().runTask(instance, () -> expire(order));
+            } catch (InterruptedException ignored) {
+                // Woken up by stopThread()
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * Schedules the expiration of an order which was placed.
+     * Orders that never expire are ignored.
+     */
+    public void schedule(Order order) {
+        if (!order.expires()) return;
+        expirations.add(new Expiration(order));
+    }
+    
+    public void scheduleAll() {
+        for (OrderBook book : OrderBook.getAll()) {
+            book.getBuyOrders().forEach(this::schedule);
+            book.getSellOrders().forEach(this::schedule);
+        }
+    }
+    
+    private void expire(Order order) {
+        // The order might have been filled or cancelled in the meantime
+        if (!OrderBook.get(order.getBookItem()).expire(order))
+            return;
+        
+        instance.logInfo("Order " + order.getOrderId() + " has expired.");
+        
+        Player player = Bukkit.getPlayer(order.getPlayerUUID());
+        if (player == null || !player.isOnline())
+            return;
+        MarketLang.ORDER_EXPIRED.send(player, "%ORDER%;" + order);
+        SoundUtil.cancelledOrder(player);
+    }
+    
+    public void startThread() {
+        this.running = true;
+        this.start();
+    }
+    
+    public void stopThread() {
+        this.running = false;
+        this.interrupt();
+    }
+    
+    private record Expiration(Order order) implements Delayed {
+        @Override
+        public long getDelay(@NotNull TimeUnit unit) {
+            return unit.convert(order.getExpiresAt() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+        
+        @Override
+        public int compareTo(@NotNull Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
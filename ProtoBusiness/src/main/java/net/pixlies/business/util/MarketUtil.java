@@ -1,44 +1,42 @@
 package net.pixlies.business.util;
 
+import net.pixlies.business.market.Mailbox;
 import net.pixlies.business.market.Order;
 import net.pixlies.business.market.OrderBook;
+import net.pixlies.core.economy.Money;
 import net.pixlies.nations.nations.Nation;
 import net.pixlies.nations.nations.interfaces.NationProfile;
-import org.bukkit.Bukkit;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 public class MarketUtil {
-      public static double getTaxedPrice(UUID playerUUID, double price) {
+      // Price difference of the "best price +/-" option, in micro-coins
+      public static final long PRICE_STEP = Money.of(0.1);
+      
+      public static long getTaxedPrice(UUID playerUUID, long price) {
             NationProfile profile = NationProfile.get(playerUUID);
             Nation nation = Nation.getFromId(profile.getNationId());
             if (nation == null)
                   return price;
-            return price * (1 + nation.getTaxRate());
+            return Money.tax(price, nation.getTaxRate());
       }
       
       public static List<Order> getPlayerBuyOrders(UUID uuid) {
-            List<Order> list = new ArrayList<>();
-            for (OrderBook book : OrderBook.getAll()) {
-                  if (book.getBuyOrders().isEmpty()) continue;
-                  for (Order order : book.getBuyOrders()) {
-                        if (Bukkit.getOfflinePlayer(order.getPlayerUUID()) == Bukkit.getOfflinePlayer(uuid))
-                              list.add(order);
-                  }
-            }
-            return list;
+            return getPlayerOrders(uuid, Order.Type.BUY);
       }
       
       public static List<Order> getPlayerSellOrders(UUID uuid) {
+            return getPlayerOrders(uuid, Order.Type.SELL);
+      }
+      
+      // Live orders first, then the settled ones from the mailbox
+      private static List<Order> getPlayerOrders(UUID uuid, Order.Type type) {
+            Set<Order> orders = new LinkedHashSet<>(OrderBook.getPlayerOrders(uuid));
+            orders.addAll(Mailbox.getOrders(uuid));
+            
             List<Order> list = new ArrayList<>();
-            for (OrderBook book : OrderBook.getAll()) {
-                  if (book.getSellOrders().isEmpty()) continue;
-                  for (Order order : book.getSellOrders()) {
-                        if (Bukkit.getOfflinePlayer(order.getPlayerUUID()) == Bukkit.getOfflinePlayer(uuid))
-                              list.add(order);
-                  }
+            for (Order order : orders) {
+                  if (order.getType() == type) list.add(order);
             }
             return list;
       }
@@ -6,8 +6,10 @@ import net.pixlies.business.market.Embargo;
 import net.pixlies.business.market.OrderItem;
 import net.pixlies.business.market.Tariff;
 import net.pixlies.business.market.MarketProfile;
+import net.pixlies.business.market.Trigger;
 import net.pixlies.business.util.InventoryUtil;
 import net.pixlies.business.util.SoundUtil;
+import net.pixlies.core.economy.Money;
 import net.pixlies.core.entity.user.User;
 import net.pixlies.nations.locale.NationsLang;
 import net.pixlies.nations.nations.Nation;
@@ -46,8 +48,8 @@ public class CommandPreconditions {
             return true;
       }
       
-      public static boolean playerHasEnoughMoney(Player player, double amount) {
-            double balance = NationProfile.get(player.getUniqueId()).getBalance();
+      public static boolean playerHasEnoughMoney(Player player, long amount) {
+            long balance = NationProfile.get(player.getUniqueId()).getBalance();
             if (balance < amount || balance < 0) {
                   MarketLang.GENERAL_NOT_ENOUGH_MONEY.send(player);
                   SoundUtil.error(player);
@@ -161,6 +163,18 @@ public class CommandPreconditions {
            return true;
      }
      
+     public static boolean isAmountValidMoney(Player player, String amount) {
+           try {
+                 if (Money.parse(amount) > 0)
+                       return true;
+           } catch (NullPointerException | NumberFormatException ignored) {
+                 // Handled below
+           }
+           MarketLang.AMOUNT_NOT_VALID.send(player);
+           SoundUtil.error(player);
+           return false;
+     }
+     
      private static boolean nationGeneral(Player player, String targetNation, boolean tariff) {
            User user = User.get(player.getUniqueId());
            NationProfile nationProfile = NationProfile.get(player.getUniqueId());
@@ -198,6 +212,7 @@ public class CommandPreconditions {
             if (Embargo.getEmbargoId(nationProfile.getNation().getName(), targetNation) == null) {
                   MarketLang.EMBARGO_DOES_NOT_EXIST.send(player);
                   SoundUtil.error(player);
+                  return false;
             }
             
             return true;
@@ -211,6 +226,7 @@ public class CommandPreconditions {
            if (Embargo.getEmbargoId(nationProfile.getNation().getName(), targetNation) != null) {
                  MarketLang.EMBARGO_ALREADY_EXISTS.send(player);
                  SoundUtil.error(player);
+                 return false;
            }
            
            return true;
@@ -303,7 +319,26 @@ public class CommandPreconditions {
            if (!CommandPreconditions.hasPlayerEverJoined(player, offlineTarget.getUniqueId()))
                  return false;
       
-           // If the amount is a valid number
-           return CommandPreconditions.isAmountValidNumber(player, strAmount);
+           // If the amount is a valid amount of money
+           return CommandPreconditions.isAmountValidMoney(player, strAmount);
+     }
+     
+     public static boolean isTriggerLimitReached(Player player) {
+           int max = instance.getConfig().getInt("maxTriggers", 20);
+           if (Trigger.getAll(player.getUniqueId()).size() >= max) {
+                 MarketLang.TRIGGER_LIMIT_REACHED.send(player, "%MAX%;" + max);
+                 SoundUtil.error(player);
+                 return true;
+           }
+           return false;
+     }
+     
+     public static boolean doesTriggerExist(Player player, @Nullable Trigger trigger, Trigger.Kind kind) {
+           if (trigger == null || trigger.kind() != kind || !trigger.playerUUID().equals(player.getUniqueId())) {
+                 MarketLang.TRIGGER_DOES_NOT_EXIST.send(player);
+                 SoundUtil.error(player);
+                 return false;
+           }
+           return true;
      }
 }
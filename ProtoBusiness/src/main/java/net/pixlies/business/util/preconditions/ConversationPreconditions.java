@@ -8,7 +8,7 @@ import org.bukkit.entity.Player;
 
 @SuppressWarnings("BooleanMethodIsAlwaysInverted")
 public class ConversationPreconditions {
-      public static boolean playerHasEnoughMoney(Player player, double amount) {
+      public static boolean playerHasEnoughMoney(Player player, long amount) {
             if (NationProfile.get(player.getUniqueId()).getBalance() < amount) {
                   // MarketLang.GENERAL_NOT_ENOUGH_MONEY.send(player);
                   player.sendTitle("§c§lNot enough money!", "§7You're poor.");